@@ -0,0 +1,91 @@
+package com.jakubstas.swagger.benchmarks;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.NoBenchmarksException;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+import com.jakubstas.swagger.service.RecoveryBenchmark;
+
+/**
+ * Runs the benchmarks selected by the usual JMH command line options once for every thread count of <code>benchmark.threads</code> (comma
+ * separated, <code>1,4</code> by default) and writes results of all runs as a single JSON report into <code>benchmark.result</code>
+ * (<code>jmh-result.json</code> by default), so reports of two releases can be compared benchmark by benchmark.
+ * <p>
+ * Thread count given by <code>-t</code> replaces the sweep. {@link RecoveryBenchmark} measures a cold start and always runs single threaded.
+ */
+public final class BenchmarkRunner {
+
+    private static final String SINGLE_THREADED = RecoveryBenchmark.class.getSimpleName();
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(final String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        final CommandLineOptions commandLine = new CommandLineOptions(args);
+
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+
+        if (commandLine.shouldList()) {
+            new Runner(commandLine).list();
+            return;
+        }
+
+        final List<RunResult> results = new ArrayList<RunResult>();
+
+        for (final int threads : getThreadCounts(commandLine)) {
+            results.addAll(run(new OptionsBuilder().parent(commandLine).exclude("\\." + SINGLE_THREADED + "\\.").threads(threads).build()));
+        }
+
+        // excludes benchmarks which are not single threaded, benchmarks not included by the command line stay excluded
+        results.addAll(run(new OptionsBuilder().parent(commandLine).exclude("^(?!.*\\." + SINGLE_THREADED + "\\.)").threads(1).build()));
+
+        final String resultFile = System.getProperty("benchmark.result", "jmh-result.json");
+
+        try (PrintStream output = new PrintStream(resultFile, Charsets.UTF_8.name())) {
+            ResultFormatFactory.getInstance(ResultFormatType.JSON, output).writeOut(results);
+        }
+
+        System.out.println("Results of " + results.size() + " benchmarks written to " + resultFile);
+    }
+
+    private static List<Integer> getThreadCounts(final CommandLineOptions commandLine) {
+        final List<Integer> threadCounts = new ArrayList<Integer>();
+
+        if (commandLine.getThreads().hasValue()) {
+            threadCounts.add(commandLine.getThreads().get());
+        } else {
+            for (final String threads : Splitter.on(',').trimResults().omitEmptyStrings().split(System.getProperty("benchmark.threads", "1,4"))) {
+                threadCounts.add(Integer.valueOf(threads));
+            }
+        }
+
+        return threadCounts;
+    }
+
+    private static Collection<RunResult> run(final Options options) throws RunnerException {
+        try {
+            return new Runner(options).run();
+        } catch (NoBenchmarksException e) {
+            // the command line selected none of these benchmarks
+            return new ArrayList<RunResult>();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.jakubstas.swagger.benchmarks;
+
+import java.io.OutputStream;
+
+/**
+ * Output stream discarding written bytes, only their count is kept so that the writes can not be optimized away.
+ */
+final class CountingOutputStream extends OutputStream {
+
+    private long count;
+
+    @Override
+    public void write(final int b) {
+        count++;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+        count += len;
+    }
+
+    long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,71 @@
+package com.jakubstas.swagger.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.jakubstas.swagger.model.Product;
+import com.jakubstas.swagger.model.User;
+import com.jakubstas.swagger.service.EmailAlreadyRegisteredException;
+import com.jakubstas.swagger.service.EntityAlreadyExistsException;
+import com.jakubstas.swagger.service.ProductService;
+import com.jakubstas.swagger.service.UserService;
+
+/**
+ * Concurrent creation of users and products, including the striped locks and the durable journal append with group commit. Run with more
+ * threads to measure how commits of concurrent writers are grouped.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CreateBenchmark {
+
+    /**
+     * Number of entities existing before the measurement.
+     */
+    @Param({ "0", "100000" })
+    private int size;
+
+    private ServiceContext context;
+
+    private UserService userService;
+
+    private ProductService productService;
+
+    private AtomicInteger sequence;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = new ServiceContext();
+        context.createUsers(size);
+        context.createProducts(size);
+        userService = context.getUserService();
+        productService = context.getProductService();
+        sequence = new AtomicInteger(size);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+    }
+
+    @Benchmark
+    public User createUser() throws EntityAlreadyExistsException, EmailAlreadyRegisteredException, IOException {
+        return userService.createUser(Datasets.user(sequence.getAndIncrement()));
+    }
+
+    @Benchmark
+    public Product createProduct() throws EntityAlreadyExistsException, IOException {
+        return productService.createProduct(Datasets.product(sequence.getAndIncrement()));
+    }
+}
@@ -0,0 +1,75 @@
+package com.jakubstas.swagger.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.jakubstas.swagger.model.Product;
+import com.jakubstas.swagger.model.User;
+
+/**
+ * Deterministic entities used by the benchmarks. Entity with a given number is always the same, so benchmarks can look up entities they did not
+ * create themselves.
+ */
+public final class Datasets {
+
+    private static final String[] FIRST_NAMES = { "Stanley", "Kyle", "Eric", "Kenny", "Butters", "Wendy", "Bebe", "Token", "Clyde", "Tweek" };
+
+    private static final String[] SURNAMES = { "Marsh", "Broflovski", "Cartman", "McCormick", "Stotch", "Testaburger", "Stevens", "Black", "Donovan",
+            "Tweak" };
+
+    private Datasets() {
+    }
+
+    public static String userName(final int number) {
+        return "user" + number;
+    }
+
+    public static String email(final int number) {
+        return "user" + number + "@jakubstas.com";
+    }
+
+    public static User user(final int number) {
+        final User user = new User();
+        user.setUserName(userName(number));
+        user.setFirstName(FIRST_NAMES[number % FIRST_NAMES.length] + Integer.toString(number / FIRST_NAMES.length, 36));
+        user.setSurname(SURNAMES[number / FIRST_NAMES.length % SURNAMES.length]);
+        user.setEmail(email(number));
+        user.setLastUpdated(new Date(1400000000000L + number));
+
+        return user;
+    }
+
+    public static List<User> users(final int count) {
+        final List<User> users = new ArrayList<User>(count);
+
+        for (int i = 0; i < count; i++) {
+            users.add(user(i));
+        }
+
+        return users;
+    }
+
+    public static String productCode(final int number) {
+        return "product" + number;
+    }
+
+    public static Product product(final int number) {
+        final Product product = new Product();
+        product.setCode(productCode(number));
+        product.setName("Product " + number);
+        product.setDescription("Sparkling water bottled in a glass bottle number " + number + " of the limited series");
+
+        return product;
+    }
+
+    public static List<Product> products(final int count) {
+        final List<Product> products = new ArrayList<Product>(count);
+
+        for (int i = 0; i < count; i++) {
+            products.add(product(i));
+        }
+
+        return products;
+    }
+}
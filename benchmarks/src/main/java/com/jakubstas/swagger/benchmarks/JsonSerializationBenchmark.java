@@ -0,0 +1,77 @@
+package com.jakubstas.swagger.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jakubstas.swagger.model.User;
+import com.jakubstas.swagger.model.UserList;
+import com.jakubstas.swagger.rest.io.JsonMappers;
+import com.jakubstas.swagger.rest.io.NdjsonStreamingOutput;
+import com.jakubstas.swagger.rest.io.UserListStreamingOutput;
+
+/**
+ * Jackson serialization of users, both through the mapper as JAX-RS writes entities and through the streaming outputs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonSerializationBenchmark {
+
+    @Param({ "1", "100", "10000" })
+    private int size;
+
+    private final ObjectMapper mapper = JsonMappers.getMapper();
+
+    private List<User> users;
+
+    private UserList userList;
+
+    @Setup
+    public void setUp() {
+        users = Datasets.users(size);
+        userList = new UserList(users);
+    }
+
+    @Benchmark
+    public long writeUser() throws IOException {
+        final CountingOutputStream output = new CountingOutputStream();
+        mapper.writeValue(output, users.get(0));
+
+        return output.getCount();
+    }
+
+    @Benchmark
+    public long writeUserList() throws IOException {
+        final CountingOutputStream output = new CountingOutputStream();
+        mapper.writeValue(output, userList);
+
+        return output.getCount();
+    }
+
+    @Benchmark
+    public long streamUserList() throws IOException {
+        final CountingOutputStream output = new CountingOutputStream();
+        new UserListStreamingOutput(users).write(output);
+
+        return output.getCount();
+    }
+
+    @Benchmark
+    public long streamNdjson() throws IOException {
+        final CountingOutputStream output = new CountingOutputStream();
+        new NdjsonStreamingOutput<User>(users).write(output);
+
+        return output.getCount();
+    }
+}
@@ -0,0 +1,57 @@
+package com.jakubstas.swagger.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.jakubstas.swagger.model.Product;
+import com.jakubstas.swagger.service.Page;
+import com.jakubstas.swagger.service.ProductService;
+
+/**
+ * Lookups of products by code and by full-text search in catalogs of growing size. Run with more threads to measure lookups under contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductLookupBenchmark {
+
+    @Param({ "1000", "100000" })
+    private int size;
+
+    private ServiceContext context;
+
+    private ProductService productService;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = new ServiceContext();
+        context.createProducts(size);
+        productService = context.getProductService();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+    }
+
+    @Benchmark
+    public Product findByCode() {
+        return productService.findByCode(Datasets.productCode(ThreadLocalRandom.current().nextInt(size)));
+    }
+
+    @Benchmark
+    public Page<Product> search() {
+        return productService.search("glass bottle " + ThreadLocalRandom.current().nextInt(size), 0, 20);
+    }
+}
@@ -0,0 +1,102 @@
+package com.jakubstas.swagger.benchmarks;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.FileSystemUtils;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.Files;
+import com.jakubstas.swagger.model.ProductOperation;
+import com.jakubstas.swagger.model.User;
+import com.jakubstas.swagger.service.ProductService;
+import com.jakubstas.swagger.service.UserService;
+
+/**
+ * Services of the application wired by Spring the same way they are in the application, persisting into a temporary store removed on close.
+ */
+public final class ServiceContext implements Closeable {
+
+    private final File directory;
+
+    private final AnnotationConfigApplicationContext context;
+
+    public ServiceContext() throws IOException {
+        directory = Files.createTempDir();
+
+        final Properties properties = PropertiesLoaderUtils.loadProperties(new ClassPathResource("store.properties"));
+        properties.setProperty("store.directory", directory.getAbsolutePath());
+        // snapshots are not part of any measurement
+        properties.setProperty("store.snapshotInterval", Integer.toString(Integer.MAX_VALUE));
+
+        final PropertySourcesPlaceholderConfigurer configurer = new PropertySourcesPlaceholderConfigurer();
+        configurer.setProperties(properties);
+
+        context = new AnnotationConfigApplicationContext();
+        context.addBeanFactoryPostProcessor(configurer);
+        context.scan("com.jakubstas.swagger.service");
+        context.refresh();
+    }
+
+    public UserService getUserService() {
+        return context.getBean(UserService.class);
+    }
+
+    public ProductService getProductService() {
+        return context.getBean(ProductService.class);
+    }
+
+    /**
+     * Creates users {@link Datasets#user(int)} from 0 up to the count.
+     */
+    public void createUsers(final int count) throws IOException {
+        final UserService userService = getUserService();
+
+        for (int start = 0; start < count; start += UserService.MAX_BATCH_SIZE) {
+            final List<User> users = new ArrayList<User>(UserService.MAX_BATCH_SIZE);
+
+            for (int i = start; i < Math.min(count, start + UserService.MAX_BATCH_SIZE); i++) {
+                users.add(Datasets.user(i));
+            }
+
+            for (final String error : userService.createUsers(users)) {
+                Preconditions.checkState(error == null, error);
+            }
+        }
+    }
+
+    /**
+     * Creates products {@link Datasets#product(int)} from 0 up to the count.
+     */
+    public void createProducts(final int count) throws IOException {
+        final ProductService productService = getProductService();
+
+        for (int start = 0; start < count; start += ProductService.MAX_BATCH_SIZE) {
+            final List<ProductOperation> operations = new ArrayList<ProductOperation>(ProductService.MAX_BATCH_SIZE);
+
+            for (int i = start; i < Math.min(count, start + ProductService.MAX_BATCH_SIZE); i++) {
+                final ProductOperation operation = new ProductOperation();
+                operation.setAction(ProductOperation.Action.CREATE);
+                operation.setProduct(Datasets.product(i));
+
+                operations.add(operation);
+            }
+
+            Preconditions.checkState(productService.applyBatch(operations, true).isApplied(), "Products were not created");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+}
@@ -0,0 +1,67 @@
+package com.jakubstas.swagger.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.jakubstas.swagger.model.User;
+import com.jakubstas.swagger.service.Page;
+import com.jakubstas.swagger.service.UserService;
+
+/**
+ * Lookups of users by username, email address and name prefix in registries of growing size. Run with more threads to measure lookups under
+ * contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class UserLookupBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    private int size;
+
+    private ServiceContext context;
+
+    private UserService userService;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = new ServiceContext();
+        context.createUsers(size);
+        userService = context.getUserService();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+    }
+
+    @Benchmark
+    public User findByUserName() {
+        return userService.findByUserName(Datasets.userName(ThreadLocalRandom.current().nextInt(size)));
+    }
+
+    @Benchmark
+    public User findByEmail() {
+        return userService.findByEmail(Datasets.email(ThreadLocalRandom.current().nextInt(size)));
+    }
+
+    @Benchmark
+    public Page<User> findByNamePrefix() {
+        final User user = Datasets.user(ThreadLocalRandom.current().nextInt(size));
+
+        return userService.findByNamePrefix(user.getFirstName().substring(0, 4), null, 20);
+    }
+}
@@ -0,0 +1,82 @@
+package com.jakubstas.swagger.benchmarks;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.jakubstas.swagger.model.Product;
+import com.jakubstas.swagger.model.ProductList;
+import com.jakubstas.swagger.rest.io.StreamingProductList;
+import com.jakubstas.swagger.rest.io.StreamingProductListWriter;
+
+/**
+ * JAXB marshalling of products with a shared context and a marshaller per call, as JAX-RS writes entities, and the StAX streaming writer of the
+ * catalog.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class XmlMarshallingBenchmark {
+
+    @Param({ "1", "100", "10000" })
+    private int size;
+
+    private JAXBContext productContext;
+
+    private JAXBContext productListContext;
+
+    private StreamingProductListWriter streamingWriter;
+
+    private List<Product> products;
+
+    private ProductList productList;
+
+    @Setup
+    public void setUp() throws JAXBException {
+        productContext = JAXBContext.newInstance(Product.class);
+        productListContext = JAXBContext.newInstance(ProductList.class);
+        streamingWriter = new StreamingProductListWriter();
+        products = Datasets.products(size);
+        productList = new ProductList(products);
+    }
+
+    @Benchmark
+    public long marshalProduct() throws JAXBException {
+        final CountingOutputStream output = new CountingOutputStream();
+        productContext.createMarshaller().marshal(products.get(0), output);
+
+        return output.getCount();
+    }
+
+    @Benchmark
+    public long marshalProductList() throws JAXBException {
+        final CountingOutputStream output = new CountingOutputStream();
+        productListContext.createMarshaller().marshal(productList, output);
+
+        return output.getCount();
+    }
+
+    @Benchmark
+    public long streamProductList() throws IOException {
+        final CountingOutputStream output = new CountingOutputStream();
+        streamingWriter.writeTo(new StreamingProductList(products), StreamingProductList.class, StreamingProductList.class, new Annotation[0],
+                MediaType.APPLICATION_XML_TYPE, new MultivaluedHashMap<String, Object>(), output);
+
+        return output.getCount();
+    }
+}
@@ -0,0 +1,124 @@
+package com.jakubstas.swagger.loadtest;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Enumeration;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.webapp.WebAppContext;
+import org.springframework.util.FileSystemUtils;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+/**
+ * The WAR deployed into embedded Jetty with the same context path <code>jetty:run</code> uses. The WAR is unpacked into a temporary directory and
+ * its store is redirected into that directory, so every run starts with an empty store and leaves nothing behind.
+ */
+final class EmbeddedApplication implements Closeable {
+
+    private static final String CONTEXT_PATH = "/SpringWithSwagger";
+
+    private static final String STORE_PROPERTIES = "WEB-INF/classes/store.properties";
+
+    /**
+     * APIs the WAR bundles which are on the classpath of the load test as well. They have to be loaded from the WAR along with their
+     * implementations.
+     */
+    private static final String[] WEB_APP_APIS = { "javax.inject.", "javax.validation.", "javax.ws.rs." };
+
+    private final File directory;
+
+    private final Server server;
+
+    EmbeddedApplication(final File war, final int port) throws Exception {
+        directory = Files.createTempDir();
+
+        final File webApp = new File(directory, "webapp");
+        unpack(war, webApp);
+        redirectStore(new File(webApp, STORE_PROPERTIES), new File(directory, "store"));
+
+        final WebAppContext context = new WebAppContext();
+        context.setContextPath(CONTEXT_PATH);
+        context.setWar(webApp.getAbsolutePath());
+        context.setTempDirectory(new File(directory, "work"));
+        context.setThrowUnavailableOnStartupException(true);
+
+        for (final String api : WEB_APP_APIS) {
+            context.prependSystemClass("-" + api);
+        }
+
+        server = new Server(port);
+        server.setHandler(context);
+        server.start();
+    }
+
+    /**
+     * Returns base URI of the REST API.
+     */
+    URI getBaseUri() {
+        final int port = ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+
+        return URI.create("http://localhost:" + port + CONTEXT_PATH + "/rest/");
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            server.stop();
+        } catch (Exception e) {
+            throw new IOException("Unable to stop Jetty", e);
+        } finally {
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    private static void unpack(final File war, final File directory) throws IOException {
+        try (ZipFile zip = new ZipFile(war)) {
+            final Enumeration<? extends ZipEntry> entries = zip.entries();
+
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                final File file = new File(directory, entry.getName());
+
+                if (!file.getCanonicalPath().startsWith(directory.getCanonicalPath() + File.separator)) {
+                    throw new IOException("Entry " + entry.getName() + " is outside of the WAR");
+                }
+
+                if (entry.isDirectory()) {
+                    file.mkdirs();
+                } else {
+                    Files.createParentDirs(file);
+
+                    try (InputStream input = zip.getInputStream(entry); OutputStream output = new FileOutputStream(file)) {
+                        ByteStreams.copy(input, output);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void redirectStore(final File storeProperties, final File storeDirectory) throws IOException {
+        final Properties properties = new Properties();
+
+        try (InputStream input = new FileInputStream(storeProperties)) {
+            properties.load(input);
+        }
+
+        properties.setProperty("store.directory", storeDirectory.getAbsolutePath());
+
+        try (OutputStream output = new FileOutputStream(storeProperties)) {
+            properties.store(output, null);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.jakubstas.swagger.loadtest;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Open model load generator. Requests are scheduled at a constant rate regardless of how fast responses arrive and sent asynchronously, so a slow
+ * server does not slow the generator down and the offered load stays the same.
+ * <p>
+ * Latency of a request is measured from its scheduled send time rather than from the time it was actually sent. A request delayed because the
+ * generator, the client connection pool or the server was stalled is charged with the whole delay, which corrects the coordinated omission of
+ * closed model load tests. Time from the moment the request began to be sent on a connection is reported alongside as service time.
+ */
+final class LoadGenerator {
+
+    private final Workload workload;
+
+    private final OperationMix mix;
+
+    private final double rate;
+
+    private final long warmupNanos;
+
+    private final long durationNanos;
+
+    private final long timeoutNanos;
+
+    private final Map<Operation, OperationStats> stats = new EnumMap<Operation, OperationStats>(Operation.class);
+
+    private final OperationStats total = new OperationStats("all");
+
+    private final AtomicLong outstanding = new AtomicLong();
+
+    LoadGenerator(final Workload workload, final OperationMix mix, final double rate, final long warmup, final long duration, final long timeout,
+            final TimeUnit unit) {
+        Preconditions.checkArgument(rate > 0, "Rate must be positive");
+
+        this.workload = workload;
+        this.mix = mix;
+        this.rate = rate;
+        this.warmupNanos = unit.toNanos(warmup);
+        this.durationNanos = unit.toNanos(duration);
+        this.timeoutNanos = unit.toNanos(timeout);
+
+        for (final Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats(operation.getName()));
+        }
+    }
+
+    /**
+     * Sends requests for the warmup and the measurement, then waits for outstanding requests until they time out.
+     */
+    void run() throws InterruptedException {
+        final double intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        final long start = System.nanoTime();
+        final long measurementStart = start + warmupNanos;
+        final long end = measurementStart + durationNanos;
+
+        for (long i = 0;; i++) {
+            final long scheduled = start + (long) (i * intervalNanos);
+
+            if (scheduled - end >= 0) {
+                break;
+            }
+
+            for (long delay = scheduled - System.nanoTime(); delay > 0; delay = scheduled - System.nanoTime()) {
+                LockSupport.parkNanos(delay);
+            }
+
+            final Operation operation = mix.next(workload.getRandom());
+            send(operation.newRequest(workload), scheduled, scheduled - measurementStart >= 0 ? stats.get(operation) : null);
+        }
+
+        final long deadline = System.nanoTime() + timeoutNanos + TimeUnit.SECONDS.toNanos(1);
+
+        while (outstanding.get() > 0 && deadline - System.nanoTime() > 0) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Returns results of the measurement.
+     */
+    LoadTestReport getReport() {
+        final List<OperationReport> operations = new ArrayList<OperationReport>();
+
+        for (final OperationStats operationStats : stats.values()) {
+            final OperationReport report = operationStats.getReport(durationNanos);
+
+            if (report.getRequests() > 0) {
+                operations.add(report);
+            }
+        }
+
+        final LoadTestReport report = new LoadTestReport();
+        report.setTargetRate(rate);
+        report.setWarmup(TimeUnit.NANOSECONDS.toSeconds(warmupNanos));
+        report.setDuration(TimeUnit.NANOSECONDS.toSeconds(durationNanos));
+        report.setTotal(total.getReport(durationNanos));
+        report.setOperations(operations);
+
+        return report;
+    }
+
+    /**
+     * Sends the request, its response is recorded into the statistics unless they are <code>null</code>.
+     */
+    private void send(final Request request, final long scheduled, final OperationStats operationStats) {
+        if (operationStats != null) {
+            operationStats.sent();
+            total.sent();
+        }
+
+        outstanding.incrementAndGet();
+
+        final Exchange exchange = new Exchange(scheduled, operationStats);
+        request.timeout(timeoutNanos, TimeUnit.NANOSECONDS).onRequestBegin(exchange).send(exchange);
+    }
+
+    /**
+     * Request on its way, it waits in the client until a connection is available and it begins to be sent then.
+     */
+    private class Exchange implements Request.BeginListener, Response.CompleteListener {
+
+        private final long scheduled;
+
+        private final OperationStats operationStats;
+
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private volatile long begun;
+
+        Exchange(final long scheduled, final OperationStats operationStats) {
+            this.scheduled = scheduled;
+            this.operationStats = operationStats;
+        }
+
+        @Override
+        public void onBegin(final Request request) {
+            begun = System.nanoTime();
+        }
+
+        @Override
+        public void onComplete(final Result result) {
+            // an aborted request may be completed more than once
+            if (!completed.compareAndSet(false, true)) {
+                return;
+            }
+
+            final long finished = System.nanoTime();
+            final long latency = finished - scheduled;
+            // request failed before it began to be sent has no service time
+            final long serviceTime = begun == 0 ? -1 : finished - begun;
+
+            if (operationStats != null) {
+                if (result.isFailed()) {
+                    operationStats.failed(latency, serviceTime);
+                    total.failed(latency, serviceTime);
+                } else {
+                    operationStats.completed(result.getResponse().getStatus(), latency, serviceTime);
+                    total.completed(result.getResponse().getStatus(), latency, serviceTime);
+                }
+            }
+
+            outstanding.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.jakubstas.swagger.loadtest;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.client.HttpClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.jakubstas.swagger.model.LatencySummary;
+
+/**
+ * End to end load test of the application deployed from its WAR into embedded Jetty, or of an application already running at
+ * <code>loadtest.url</code>. The application is populated first, then an open model generator sends a mix of calls at a constant rate and
+ * latencies corrected for coordinated omission are reported (see {@link LoadGenerator}).
+ * <p>
+ * The test is configured by system properties:
+ * <ul>
+ * <li><code>loadtest.war</code> - WAR to deploy, <code>../target/SpringWithSwagger.war</code> by default</li>
+ * <li><code>loadtest.port</code> - port of embedded Jetty, any free port by default</li>
+ * <li><code>loadtest.url</code> - base URI of the REST API of a running application to test instead</li>
+ * <li><code>loadtest.rate</code> - requests per second, 500 by default</li>
+ * <li><code>loadtest.warmup</code> and <code>loadtest.duration</code> - seconds of the warmup and of the measurement, 10 and 60 by default</li>
+ * <li><code>loadtest.timeout</code> - seconds a request may take, 10 by default</li>
+ * <li><code>loadtest.connections</code> - maximum number of client connections, 64 by default</li>
+ * <li><code>loadtest.mix</code> - weights of operations, see {@link #DEFAULT_MIX}</li>
+ * <li><code>loadtest.users</code>, <code>loadtest.products</code> and <code>loadtest.avatars</code> - number of users, products and users with
+ * avatar to populate the application with, 10000, 10000 and 100 by default</li>
+ * <li><code>loadtest.seed</code> - seed of the random choices, so runs can be repeated</li>
+ * <li><code>loadtest.result</code> - file the JSON report is written to, <code>loadtest-result.json</code> by default</li>
+ * </ul>
+ */
+public final class LoadTest {
+
+    /**
+     * Read mostly mix of all operations.
+     */
+    public static final String DEFAULT_MIX = "getUser:25,listUsers:5,createUser:5,getProduct:25,listProducts:5,createProduct:3,updateProduct:7,"
+            + "listEmployees:5,getAvatar:15,uploadAvatar:5";
+
+    private static final int MAX_QUEUED_REQUESTS = 100000;
+
+    private LoadTest() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int connections = Integer.getInteger("loadtest.connections", 64);
+        final String url = System.getProperty("loadtest.url");
+
+        final HttpClient client = new HttpClient();
+        client.setMaxConnectionsPerDestination(connections);
+        // the generator does not wait for connections, requests queue in the client and their wait counts into latency
+        client.setMaxRequestsQueuedPerDestination(MAX_QUEUED_REQUESTS);
+        client.setFollowRedirects(false);
+        client.start();
+
+        EmbeddedApplication application = null;
+
+        try {
+            final URI baseUri;
+
+            if (url != null) {
+                baseUri = URI.create(url.endsWith("/") ? url : url + "/");
+            } else {
+                application = new EmbeddedApplication(new File(System.getProperty("loadtest.war", "../target/SpringWithSwagger.war")),
+                        Integer.getInteger("loadtest.port", 0));
+                baseUri = application.getBaseUri();
+            }
+
+            final Workload workload = new Workload(client, baseUri, Integer.getInteger("loadtest.users", 10000), Integer.getInteger("loadtest.products",
+                    10000), Integer.getInteger("loadtest.avatars", 100), Long.getLong("loadtest.seed", 42));
+
+            System.out.println("Populating " + baseUri);
+            workload.populate();
+
+            final LoadGenerator generator = new LoadGenerator(workload, OperationMix.parse(System.getProperty("loadtest.mix", DEFAULT_MIX)),
+                    Double.parseDouble(System.getProperty("loadtest.rate", "500")), Long.getLong("loadtest.warmup", 10),
+                    Long.getLong("loadtest.duration", 60), Long.getLong("loadtest.timeout", 10), TimeUnit.SECONDS);
+
+            System.out.println("Running load test");
+            generator.run();
+
+            final LoadTestReport report = generator.getReport();
+            report.setConnections(connections);
+
+            print(report, System.out);
+
+            final File resultFile = new File(System.getProperty("loadtest.result", "loadtest-result.json"));
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(resultFile, report);
+
+            System.out.println("Report written to " + resultFile);
+        } finally {
+            client.stop();
+
+            if (application != null) {
+                application.close();
+            }
+        }
+    }
+
+    private static void print(final LoadTestReport report, final PrintStream output) {
+        final List<OperationReport> operations = new ArrayList<OperationReport>(report.getOperations());
+        operations.add(report.getTotal());
+
+        output.println();
+        output.printf(Locale.ROOT, "Target rate %.1f requests/s, %d s measured after %d s of warmup, latency in ms corrected for coordinated omission%n",
+                report.getTargetRate(), report.getDuration(), report.getWarmup());
+        output.printf(Locale.ROOT, "%-14s %9s %9s %7s %8s %8s %8s %8s %8s %8s  %s%n", "operation", "requests", "req/s", "failed", "p50", "p90", "p99",
+                "p99.9", "max", "svc p99", "statuses");
+
+        for (final OperationReport operation : operations) {
+            final LatencySummary latency = operation.getLatency();
+            final LatencySummary serviceTime = operation.getServiceTime();
+
+            output.printf(Locale.ROOT, "%-14s %9d %9.1f %7d %8.2f %8.2f %8.2f %8.2f %8.2f %8.2f  %s%n", operation.getOperation(), operation.getRequests(),
+                    operation.getThroughput(), operation.getFailed(), latency == null ? 0 : latency.getP50(), latency == null ? 0 : latency.getP90(),
+                    latency == null ? 0 : latency.getP99(), latency == null ? 0 : latency.getP999(), latency == null ? 0 : latency.getMax(),
+                    serviceTime == null ? 0 : serviceTime.getP99(), operation.getStatuses());
+        }
+
+        output.println();
+    }
+}
@@ -0,0 +1,81 @@
+package com.jakubstas.swagger.loadtest;
+
+import java.util.List;
+
+/**
+ * Results of a load test run, latencies are in milliseconds.
+ */
+public class LoadTestReport {
+
+    private double targetRate;
+
+    private long warmup;
+
+    private long duration;
+
+    private int connections;
+
+    private OperationReport total;
+
+    private List<OperationReport> operations;
+
+    /**
+     * Returns requests per second the generator was scheduled to send.
+     */
+    public double getTargetRate() {
+        return targetRate;
+    }
+
+    public void setTargetRate(double targetRate) {
+        this.targetRate = targetRate;
+    }
+
+    /**
+     * Returns seconds of load before the measurement.
+     */
+    public long getWarmup() {
+        return warmup;
+    }
+
+    public void setWarmup(long warmup) {
+        this.warmup = warmup;
+    }
+
+    /**
+     * Returns seconds of the measurement.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    public void setDuration(long duration) {
+        this.duration = duration;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public void setConnections(int connections) {
+        this.connections = connections;
+    }
+
+    /**
+     * Returns results of all operations together.
+     */
+    public OperationReport getTotal() {
+        return total;
+    }
+
+    public void setTotal(OperationReport total) {
+        this.total = total;
+    }
+
+    public List<OperationReport> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(List<OperationReport> operations) {
+        this.operations = operations;
+    }
+}
@@ -0,0 +1,111 @@
+package com.jakubstas.swagger.loadtest;
+
+import org.eclipse.jetty.client.api.Request;
+
+/**
+ * Calls of the API the load test mixes, named in <code>loadtest.mix</code> by their {@link #getName() name}.
+ */
+enum Operation {
+
+    GET_USER("getUser") {
+
+        @Override
+        Request newRequest(final Workload workload) {
+            return workload.getUser();
+        }
+    },
+
+    LIST_USERS("listUsers") {
+
+        @Override
+        Request newRequest(final Workload workload) {
+            return workload.listUsers();
+        }
+    },
+
+    CREATE_USER("createUser") {
+
+        @Override
+        Request newRequest(final Workload workload) {
+            return workload.createUser();
+        }
+    },
+
+    GET_PRODUCT("getProduct") {
+
+        @Override
+        Request newRequest(final Workload workload) {
+            return workload.getProduct();
+        }
+    },
+
+    LIST_PRODUCTS("listProducts") {
+
+        @Override
+        Request newRequest(final Workload workload) {
+            return workload.listProducts();
+        }
+    },
+
+    CREATE_PRODUCT("createProduct") {
+
+        @Override
+        Request newRequest(final Workload workload) {
+            return workload.createProduct();
+        }
+    },
+
+    UPDATE_PRODUCT("updateProduct") {
+
+        @Override
+        Request newRequest(final Workload workload) {
+            return workload.updateProduct();
+        }
+    },
+
+    LIST_EMPLOYEES("listEmployees") {
+
+        @Override
+        Request newRequest(final Workload workload) {
+            return workload.listEmployees();
+        }
+    },
+
+    GET_AVATAR("getAvatar") {
+
+        @Override
+        Request newRequest(final Workload workload) {
+            return workload.getAvatar();
+        }
+    },
+
+    UPLOAD_AVATAR("uploadAvatar") {
+
+        @Override
+        Request newRequest(final Workload workload) {
+            return workload.uploadAvatar();
+        }
+    };
+
+    private final String name;
+
+    private Operation(final String name) {
+        this.name = name;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    abstract Request newRequest(Workload workload);
+
+    static Operation forName(final String name) {
+        for (final Operation operation : values()) {
+            if (operation.name.equals(name)) {
+                return operation;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown operation '" + name + "'");
+    }
+}
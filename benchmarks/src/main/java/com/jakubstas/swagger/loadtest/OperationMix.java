@@ -0,0 +1,58 @@
+package com.jakubstas.swagger.loadtest;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+
+/**
+ * Weighted choice of operations, given as comma separated <code>operation:weight</code> pairs. Operations missing from the mix are not called.
+ */
+final class OperationMix {
+
+    private final Operation[] operations;
+
+    private final int[] cumulativeWeights;
+
+    private OperationMix(final Operation[] operations, final int[] cumulativeWeights) {
+        this.operations = operations;
+        this.cumulativeWeights = cumulativeWeights;
+    }
+
+    static OperationMix parse(final String mix) {
+        final Map<String, String> weights = Splitter.on(',').trimResults().omitEmptyStrings().withKeyValueSeparator(Splitter.on(':').trimResults())
+                .split(mix);
+        final Operation[] operations = new Operation[weights.size()];
+        final int[] cumulativeWeights = new int[weights.size()];
+        int total = 0;
+        int i = 0;
+
+        for (final Entry<String, String> weight : weights.entrySet()) {
+            final int value = Integer.parseInt(weight.getValue());
+            Preconditions.checkArgument(value > 0, "Weight of operation '%s' must be positive", weight.getKey());
+
+            total += value;
+            operations[i] = Operation.forName(weight.getKey());
+            cumulativeWeights[i] = total;
+            i++;
+        }
+
+        Preconditions.checkArgument(total > 0, "Operation mix is empty");
+
+        return new OperationMix(operations, cumulativeWeights);
+    }
+
+    Operation next(final Random random) {
+        final int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+
+        throw new IllegalStateException();
+    }
+}
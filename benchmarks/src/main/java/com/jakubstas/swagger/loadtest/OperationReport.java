@@ -0,0 +1,108 @@
+package com.jakubstas.swagger.loadtest;
+
+import java.util.Map;
+
+import com.jakubstas.swagger.model.LatencySummary;
+
+/**
+ * Results of an operation measured by the load test. Latency is measured from the time the request was scheduled to be sent, so it includes time
+ * the request waited because the generator or the client fell behind. Service time is measured from the time the request began to be sent on a
+ * connection.
+ */
+public class OperationReport {
+
+    private String operation;
+
+    private long requests;
+
+    private long completed;
+
+    private long failed;
+
+    private double throughput;
+
+    private Map<String, Long> statuses;
+
+    private LatencySummary latency;
+
+    private LatencySummary serviceTime;
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Returns number of requests sent during the measurement.
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    public void setRequests(long requests) {
+        this.requests = requests;
+    }
+
+    /**
+     * Returns number of requests which received a response.
+     */
+    public long getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(long completed) {
+        this.completed = completed;
+    }
+
+    /**
+     * Returns number of requests which failed without a response, timed out or were rejected by the client.
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    /**
+     * Returns completed requests per second.
+     */
+    public double getThroughput() {
+        return throughput;
+    }
+
+    public void setThroughput(double throughput) {
+        this.throughput = throughput;
+    }
+
+    /**
+     * Returns number of responses by status code.
+     */
+    public Map<String, Long> getStatuses() {
+        return statuses;
+    }
+
+    public void setStatuses(Map<String, Long> statuses) {
+        this.statuses = statuses;
+    }
+
+    public LatencySummary getLatency() {
+        return latency;
+    }
+
+    public void setLatency(LatencySummary latency) {
+        this.latency = latency;
+    }
+
+    public LatencySummary getServiceTime() {
+        return serviceTime;
+    }
+
+    public void setServiceTime(LatencySummary serviceTime) {
+        this.serviceTime = serviceTime;
+    }
+}
@@ -0,0 +1,108 @@
+package com.jakubstas.swagger.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.jakubstas.swagger.metrics.LatencyHistogram;
+import com.jakubstas.swagger.model.LatencySummary;
+
+/**
+ * Counters and latency histograms of requests of an operation, updated by client threads as the responses arrive.
+ */
+final class OperationStats {
+
+    private static final int MAX_STATUS = 599;
+
+    private final String operation;
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLongArray statuses = new AtomicLongArray(MAX_STATUS + 1);
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final LatencyHistogram serviceTime = new LatencyHistogram();
+
+    OperationStats(final String operation) {
+        this.operation = operation;
+    }
+
+    void sent() {
+        requests.incrementAndGet();
+    }
+
+    /**
+     * Records a response. Service time is negative if the request never began to be sent.
+     */
+    void completed(final int status, final long latencyNanos, final long serviceTimeNanos) {
+        statuses.incrementAndGet(status > 0 && status <= MAX_STATUS ? status : 0);
+        record(latencyNanos, serviceTimeNanos);
+    }
+
+    /**
+     * Records a request which failed without a response. Service time is negative if the request never began to be sent.
+     */
+    void failed(final long latencyNanos, final long serviceTimeNanos) {
+        failed.incrementAndGet();
+        record(latencyNanos, serviceTimeNanos);
+    }
+
+    private void record(final long latencyNanos, final long serviceTimeNanos) {
+        latency.record(latencyNanos);
+
+        if (serviceTimeNanos >= 0) {
+            serviceTime.record(serviceTimeNanos);
+        }
+    }
+
+    OperationReport getReport(final long durationNanos) {
+        final Map<String, Long> statusCounts = new TreeMap<String, Long>();
+        long completed = 0;
+
+        for (int status = 0; status <= MAX_STATUS; status++) {
+            final long count = statuses.get(status);
+
+            if (count > 0) {
+                statusCounts.put(status == 0 ? "invalid" : Integer.toString(status), count);
+                completed += count;
+            }
+        }
+
+        final OperationReport report = new OperationReport();
+        report.setOperation(operation);
+        report.setRequests(requests.get());
+        report.setCompleted(completed);
+        report.setFailed(failed.get());
+        report.setThroughput(completed / (durationNanos / (double) TimeUnit.SECONDS.toNanos(1)));
+        report.setStatuses(statusCounts);
+        report.setLatency(summarize(latency));
+        report.setServiceTime(summarize(serviceTime));
+
+        return report;
+    }
+
+    private static LatencySummary summarize(final LatencyHistogram histogram) {
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        if (snapshot.getCount() == 0) {
+            return null;
+        }
+
+        final LatencySummary summary = new LatencySummary();
+        summary.setCount(snapshot.getCount());
+        summary.setSum(snapshot.getSum(TimeUnit.MILLISECONDS));
+        summary.setMean(snapshot.getMean(TimeUnit.MILLISECONDS));
+        summary.setP50(snapshot.getValueAt(0.5, TimeUnit.MILLISECONDS));
+        summary.setP90(snapshot.getValueAt(0.9, TimeUnit.MILLISECONDS));
+        summary.setP99(snapshot.getValueAt(0.99, TimeUnit.MILLISECONDS));
+        summary.setP999(snapshot.getValueAt(0.999, TimeUnit.MILLISECONDS));
+        summary.setMax(snapshot.getMax(TimeUnit.MILLISECONDS));
+
+        return summary;
+    }
+}
@@ -0,0 +1,228 @@
+package com.jakubstas.swagger.loadtest;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.imageio.ImageIO;
+import javax.ws.rs.core.MediaType;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.util.BytesContentProvider;
+import org.eclipse.jetty.http.HttpMethod;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.base.Preconditions;
+import com.jakubstas.swagger.benchmarks.Datasets;
+import com.jakubstas.swagger.model.Product;
+import com.jakubstas.swagger.model.ProductBatch;
+import com.jakubstas.swagger.model.ProductOperation;
+import com.jakubstas.swagger.model.User;
+import com.jakubstas.swagger.rest.io.JsonMappers;
+import com.jakubstas.swagger.rest.io.MediaTypes;
+import com.jakubstas.swagger.rest.io.NdjsonStreamingOutput;
+import com.jakubstas.swagger.service.ProductService;
+
+/**
+ * Data the load test works with and requests built from it. The application is populated with {@link Datasets} users, products and avatars,
+ * operations then pick among them at random. Requests are built by the generator thread only, so the workload is not thread safe.
+ */
+final class Workload {
+
+    private static final long POPULATE_TIMEOUT_SECONDS = 300;
+
+    private final HttpClient client;
+
+    private final URI baseUri;
+
+    private final int users;
+
+    private final int products;
+
+    private final int avatars;
+
+    private final Random random;
+
+    private final JAXBContext jaxbContext;
+
+    private final byte[] avatar;
+
+    private int createdUsers;
+
+    private int createdProducts;
+
+    private int productUpdates;
+
+    Workload(final HttpClient client, final URI baseUri, final int users, final int products, final int avatars, final long seed)
+            throws JAXBException, IOException {
+        Preconditions.checkArgument(users > 0 && products > 0, "Load test needs at least one user and one product");
+        Preconditions.checkArgument(avatars > 0 && avatars <= users, "Users with avatars must be between 1 and the number of users");
+
+        this.client = client;
+        this.baseUri = baseUri;
+        this.users = users;
+        this.products = products;
+        this.avatars = avatars;
+        this.random = new Random(seed);
+        this.jaxbContext = JAXBContext.newInstance(Product.class, ProductBatch.class);
+        this.avatar = createAvatar();
+    }
+
+    /**
+     * Creates the users, products and avatars operations pick from. Entities which already exist are kept.
+     */
+    void populate() throws IOException, JAXBException {
+        final ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        new NdjsonStreamingOutput<User>(Datasets.users(users)).write(ndjson);
+        send(newRequest(HttpMethod.POST, "users/import", MediaType.APPLICATION_JSON).content(new BytesContentProvider(ndjson.toByteArray()),
+                MediaTypes.APPLICATION_NDJSON));
+
+        for (int start = 0; start < products; start += ProductService.MAX_BATCH_SIZE) {
+            final List<ProductOperation> operations = new ArrayList<ProductOperation>();
+
+            for (int i = start; i < Math.min(products, start + ProductService.MAX_BATCH_SIZE); i++) {
+                final ProductOperation operation = new ProductOperation();
+                operation.setAction(ProductOperation.Action.CREATE);
+                operation.setProduct(Datasets.product(i));
+
+                operations.add(operation);
+            }
+
+            final ProductBatch batch = new ProductBatch();
+            batch.setOperations(operations);
+
+            send(newRequest(HttpMethod.POST, "products/batch", MediaType.APPLICATION_XML).content(new BytesContentProvider(marshal(batch)),
+                    MediaType.APPLICATION_XML));
+        }
+
+        for (int i = 0; i < avatars; i++) {
+            send(uploadAvatar(i));
+        }
+    }
+
+    Request getUser() {
+        return newRequest(HttpMethod.GET, "users/" + Datasets.userName(random.nextInt(users)), MediaType.APPLICATION_JSON);
+    }
+
+    Request listUsers() {
+        return newRequest(HttpMethod.GET, "users?limit=100", MediaType.APPLICATION_JSON);
+    }
+
+    Request createUser() {
+        final User user = Datasets.user(users + createdUsers++);
+
+        try {
+            return newRequest(HttpMethod.POST, "users", MediaType.APPLICATION_JSON).content(
+                    new BytesContentProvider(JsonMappers.getMapper().writeValueAsBytes(user)), MediaType.APPLICATION_JSON);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    Request getProduct() {
+        return newRequest(HttpMethod.GET, "products/" + Datasets.productCode(random.nextInt(products)), MediaType.APPLICATION_XML);
+    }
+
+    Request listProducts() {
+        return newRequest(HttpMethod.GET, "products?limit=100", MediaType.APPLICATION_XML);
+    }
+
+    Request createProduct() {
+        final Product product = Datasets.product(products + createdProducts++);
+
+        return newRequest(HttpMethod.POST, "products", MediaType.APPLICATION_XML).content(new BytesContentProvider(marshal(product)),
+                MediaType.APPLICATION_XML);
+    }
+
+    Request updateProduct() {
+        final int number = random.nextInt(products);
+        final Product product = Datasets.product(number);
+        product.setName("Product " + number + " revision " + productUpdates++);
+
+        return newRequest(HttpMethod.PUT, "products/" + product.getCode(), MediaType.APPLICATION_XML).content(
+                new BytesContentProvider(marshal(product)), MediaType.APPLICATION_XML);
+    }
+
+    Request listEmployees() {
+        return newRequest(HttpMethod.GET, "employees", MediaType.APPLICATION_JSON);
+    }
+
+    Request getAvatar() {
+        return newRequest(HttpMethod.GET, "users/" + Datasets.userName(random.nextInt(avatars)) + "/avatar", "image/png");
+    }
+
+    Request uploadAvatar() {
+        return uploadAvatar(random.nextInt(avatars));
+    }
+
+    Random getRandom() {
+        return random;
+    }
+
+    private Request uploadAvatar(final int number) {
+        return newRequest(HttpMethod.PUT, "users/" + Datasets.userName(number) + "/avatar", MediaType.WILDCARD).content(
+                new BytesContentProvider(avatar), "image/png");
+    }
+
+    private Request newRequest(final HttpMethod method, final String path, final String accept) {
+        return client.newRequest(baseUri.resolve(path)).method(method).accept(accept);
+    }
+
+    private byte[] marshal(final Object entity) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try {
+            jaxbContext.createMarshaller().marshal(entity, output);
+        } catch (JAXBException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return output.toByteArray();
+    }
+
+    private static void send(final Request request) throws IOException {
+        final ContentResponse response;
+
+        try {
+            response = request.timeout(POPULATE_TIMEOUT_SECONDS, TimeUnit.SECONDS).send();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while populating the application", e);
+        } catch (TimeoutException | ExecutionException e) {
+            throw new IOException("Unable to populate the application", e);
+        }
+
+        if (response.getStatus() >= 300) {
+            throw new IOException(request.getMethod() + " " + request.getURI() + " failed with status " + response.getStatus() + ": "
+                    + response.getContentAsString());
+        }
+    }
+
+    private static byte[] createAvatar() throws IOException {
+        final BufferedImage image = new BufferedImage(128, 128, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D graphics = image.createGraphics();
+
+        graphics.setPaint(new GradientPaint(0, 0, Color.ORANGE, 128, 128, Color.BLUE));
+        graphics.fillRect(0, 0, 128, 128);
+        graphics.dispose();
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", output);
+
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,206 @@
+package com.jakubstas.swagger.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.server.model.Resource;
+import org.glassfish.jersey.server.model.ResourceMethod;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+
+/**
+ * Overhead {@link RequestLatencyListener} adds to a request, the whole sequence of events Jersey fires for a matched request which writes its
+ * response, with and without resource accounting. Recording into a single histogram is measured on its own as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RequestLatencyListenerBenchmark {
+
+    private static final RequestEvent.Type[] REQUEST_EVENTS = { RequestEvent.Type.MATCHING_START, RequestEvent.Type.REQUEST_MATCHED,
+            RequestEvent.Type.REQUEST_FILTERED, RequestEvent.Type.RESOURCE_METHOD_START, RequestEvent.Type.RESOURCE_METHOD_FINISHED,
+            RequestEvent.Type.RESP_FILTERS_START, RequestEvent.Type.RESP_FILTERS_FINISHED, RequestEvent.Type.FINISHED };
+
+    @Param({ "false", "true" })
+    private boolean accounting;
+
+    private AnnotationConfigApplicationContext context;
+
+    private final RequestLatencyListener listener = new RequestLatencyListener();
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    private RequestEvent[] events;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        final Properties properties = new Properties();
+        properties.setProperty("metrics.accounting", Boolean.toString(accounting));
+
+        final PropertySourcesPlaceholderConfigurer configurer = new PropertySourcesPlaceholderConfigurer();
+        configurer.setProperties(properties);
+
+        context = new AnnotationConfigApplicationContext();
+        context.addBeanFactoryPostProcessor(configurer);
+        context.register(RequestMetrics.class, ResourceAccounting.class);
+        context.refresh();
+        context.getAutowireCapableBeanFactory().autowireBean(listener);
+
+        final Resource.Builder resource = Resource.builder("/benchmark");
+        resource.addMethod("GET").handledBy(RequestLatencyListenerBenchmark.class,
+                RequestLatencyListenerBenchmark.class.getMethod("processRequest"));
+
+        final ResourceMethod method = resource.build().getResourceMethods().get(0);
+        final ContainerRequest request = new ContainerRequest(URI.create("http://localhost/"), URI.create("http://localhost/benchmark"), "GET", null,
+                new MapPropertiesDelegate());
+        final ContainerResponse response = new ContainerResponse(request, Response.ok().build());
+        final ExtendedUriInfo uriInfo = matchedUriInfo(method);
+
+        events = new RequestEvent[REQUEST_EVENTS.length];
+
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new SimulatedEvent(REQUEST_EVENTS[i], request, response, uriInfo);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public RequestEventListener processRequest() {
+        final RequestEventListener recorder = listener.onRequest(null);
+
+        for (final RequestEvent event : events) {
+            recorder.onEvent(event);
+        }
+
+        return recorder;
+    }
+
+    @Benchmark
+    public void recordHistogram() {
+        histogram.record(123456);
+    }
+
+    /**
+     * Returns URI info of a request matched to the resource method.
+     */
+    private static ExtendedUriInfo matchedUriInfo(final ResourceMethod method) {
+        return (ExtendedUriInfo) Proxy.newProxyInstance(ExtendedUriInfo.class.getClassLoader(), new Class<?>[] { ExtendedUriInfo.class },
+                new InvocationHandler() {
+
+                    @Override
+                    public Object invoke(final Object proxy, final Method invoked, final Object[] args) {
+                        return invoked.getName().equals("getMatchedResourceMethod") ? method : null;
+                    }
+                });
+    }
+
+    /**
+     * Event of a successful request which wrote its response.
+     */
+    private static class SimulatedEvent implements RequestEvent {
+
+        private final Type type;
+
+        private final ContainerRequest request;
+
+        private final ContainerResponse response;
+
+        private final ExtendedUriInfo uriInfo;
+
+        SimulatedEvent(final Type type, final ContainerRequest request, final ContainerResponse response, final ExtendedUriInfo uriInfo) {
+            this.type = type;
+            this.request = request;
+            this.response = response;
+            this.uriInfo = uriInfo;
+        }
+
+        @Override
+        public Type getType() {
+            return type;
+        }
+
+        @Override
+        public ContainerRequest getContainerRequest() {
+            return request;
+        }
+
+        @Override
+        public ContainerResponse getContainerResponse() {
+            return response;
+        }
+
+        @Override
+        public Throwable getException() {
+            return null;
+        }
+
+        @Override
+        public ExtendedUriInfo getUriInfo() {
+            return uriInfo;
+        }
+
+        @Override
+        public ExceptionMapper<?> getExceptionMapper() {
+            return null;
+        }
+
+        @Override
+        public Iterable<ContainerRequestFilter> getContainerRequestFilters() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Iterable<ContainerResponseFilter> getContainerResponseFilters() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isSuccess() {
+            return true;
+        }
+
+        @Override
+        public boolean isResponseSuccessfullyMapped() {
+            return false;
+        }
+
+        @Override
+        public ExceptionCause getExceptionCause() {
+            return null;
+        }
+
+        @Override
+        public boolean isResponseWritten() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.jakubstas.swagger.rest.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import scala.Option;
+import scala.collection.immutable.Map;
+import scala.collection.immutable.Map$;
+
+import com.jakubstas.swagger.model.Product;
+import com.jakubstas.swagger.model.User;
+import com.wordnik.swagger.annotations.ApiModelProperty;
+import com.wordnik.swagger.model.Model;
+
+/**
+ * Reading of API models by {@link AccessHiddenModelConverter}, by the converter shared the way Swagger shares it and by a new converter which has
+ * to collect hidden properties again, against the baseline {@link LegacyAccessHiddenModelConverter} which introspects the model on every read.
+ * Besides the application models a hierarchy six classes deep is read, hidden properties are collected from every class of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ModelConverterBenchmark {
+
+    @Param({ "user", "product", "deepHierarchy" })
+    private String model;
+
+    private final AccessHiddenModelConverter converter = new AccessHiddenModelConverter();
+
+    private final LegacyAccessHiddenModelConverter legacyConverter = new LegacyAccessHiddenModelConverter();
+
+    private Class<?> modelClass;
+
+    private Map<String, String> typeMap;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        if (model.equals("user")) {
+            modelClass = User.class;
+        } else if (model.equals("product")) {
+            modelClass = Product.class;
+        } else {
+            modelClass = Level5.class;
+        }
+
+        typeMap = (Map<String, String>) (Object) Map$.MODULE$.empty();
+    }
+
+    @Benchmark
+    public Option<Model> readLegacy() {
+        return legacyConverter.read(modelClass, typeMap);
+    }
+
+    @Benchmark
+    public Option<Model> readShared() {
+        return converter.read(modelClass, typeMap);
+    }
+
+    @Benchmark
+    public Option<Model> readNew() {
+        return new AccessHiddenModelConverter().read(modelClass, typeMap);
+    }
+
+    public static class Level0 {
+
+        private String name0;
+
+        private String secret0;
+
+        @ApiModelProperty
+        public String getName0() {
+            return name0;
+        }
+
+        public void setName0(String name0) {
+            this.name0 = name0;
+        }
+
+        @ApiModelProperty(access = "hidden")
+        public String getSecret0() {
+            return secret0;
+        }
+
+        public void setSecret0(String secret0) {
+            this.secret0 = secret0;
+        }
+    }
+
+    public static class Level1 extends Level0 {
+
+        private String name1;
+
+        private String secret1;
+
+        @ApiModelProperty
+        public String getName1() {
+            return name1;
+        }
+
+        public void setName1(String name1) {
+            this.name1 = name1;
+        }
+
+        @ApiModelProperty(access = "hidden")
+        public String getSecret1() {
+            return secret1;
+        }
+
+        public void setSecret1(String secret1) {
+            this.secret1 = secret1;
+        }
+    }
+
+    public static class Level2 extends Level1 {
+
+        private String name2;
+
+        private String secret2;
+
+        @ApiModelProperty
+        public String getName2() {
+            return name2;
+        }
+
+        public void setName2(String name2) {
+            this.name2 = name2;
+        }
+
+        @ApiModelProperty(access = "hidden")
+        public String getSecret2() {
+            return secret2;
+        }
+
+        public void setSecret2(String secret2) {
+            this.secret2 = secret2;
+        }
+    }
+
+    public static class Level3 extends Level2 {
+
+        private String name3;
+
+        private String secret3;
+
+        @ApiModelProperty
+        public String getName3() {
+            return name3;
+        }
+
+        public void setName3(String name3) {
+            this.name3 = name3;
+        }
+
+        @ApiModelProperty(access = "hidden")
+        public String getSecret3() {
+            return secret3;
+        }
+
+        public void setSecret3(String secret3) {
+            this.secret3 = secret3;
+        }
+    }
+
+    public static class Level4 extends Level3 {
+
+        private String name4;
+
+        private String secret4;
+
+        @ApiModelProperty
+        public String getName4() {
+            return name4;
+        }
+
+        public void setName4(String name4) {
+            this.name4 = name4;
+        }
+
+        @ApiModelProperty(access = "hidden")
+        public String getSecret4() {
+            return secret4;
+        }
+
+        public void setSecret4(String secret4) {
+            this.secret4 = secret4;
+        }
+    }
+
+    public static class Level5 extends Level4 {
+
+        private String name5;
+
+        private String secret5;
+
+        @ApiModelProperty
+        public String getName5() {
+            return name5;
+        }
+
+        public void setName5(String name5) {
+            this.name5 = name5;
+        }
+
+        @ApiModelProperty(access = "hidden")
+        public String getSecret5() {
+            return secret5;
+        }
+
+        public void setSecret5(String secret5) {
+            this.secret5 = secret5;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.jakubstas.swagger.service;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Iterables;
+import com.google.common.io.Files;
+import com.jakubstas.swagger.benchmarks.Datasets;
+import com.jakubstas.swagger.model.User;
+import com.jakubstas.swagger.rest.io.NdjsonReader;
+import com.jakubstas.swagger.rest.io.NdjsonStreamingOutput;
+import com.jakubstas.swagger.service.journal.Journal;
+import com.jakubstas.swagger.service.journal.JournalRecord;
+import com.jakubstas.swagger.service.journal.JournalRecord.Operation;
+import com.jakubstas.swagger.service.journal.RecordHandler;
+import com.jakubstas.swagger.service.journal.SnapshotSource;
+
+/**
+ * Startup of the user store, materializing users from the journal snapshot compared to rebuilding them from an NDJSON export of the same users.
+ * Each invocation is a cold start of its own, so the benchmark runs single shot and single threaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class RecoveryBenchmark {
+
+    private static final String JOURNAL_NAME = "users";
+
+    @Param({ "10000", "100000", "1000000" })
+    private int size;
+
+    private final UserCodec codec = new UserCodec();
+
+    private File directory;
+
+    private File journalDirectory;
+
+    private File export;
+
+    private Set<String> journalFiles;
+
+    private Journal journal;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDir();
+        journalDirectory = new File(directory, "journal");
+        export = new File(directory, "users.ndjson");
+
+        final List<User> users = Datasets.users(size);
+        final Journal journal = new Journal(JOURNAL_NAME, journalDirectory);
+
+        try {
+            journal.open();
+            journal.snapshot(new SnapshotSource() {
+
+                @Override
+                public Iterable<JournalRecord> getState() {
+                    return Iterables.transform(users, new Function<User, JournalRecord>() {
+
+                        @Override
+                        public JournalRecord apply(final User user) {
+                            return new JournalRecord(Operation.CREATE, user.getUserName(), codec.encode(user));
+                        }
+                    });
+                }
+            });
+        } finally {
+            journal.close();
+        }
+
+        try (OutputStream output = new FileOutputStream(export)) {
+            new NdjsonStreamingOutput<User>(users).write(output);
+        }
+
+        journalFiles = new HashSet<String>(Arrays.asList(journalDirectory.list()));
+    }
+
+    /**
+     * Closes the journal recovered by the invocation, which waits for its writer, and removes the empty segment every opening of the journal
+     * starts, so all invocations recover the same files.
+     */
+    @TearDown(Level.Invocation)
+    public void closeJournal() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+
+        for (final File file : journalDirectory.listFiles()) {
+            if (!journalFiles.contains(file.getName())) {
+                file.delete();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Map<String, User> materializeSnapshot() throws IOException {
+        final Map<String, User> users = new ConcurrentHashMap<String, User>();
+
+        journal = new Journal(JOURNAL_NAME, journalDirectory);
+        journal.open();
+        Journal.await(journal.materialize(new RecordHandler() {
+
+            @Override
+            public void apply(final JournalRecord record) throws IOException {
+                users.put(record.getKey(), codec.decode(record.getData()));
+            }
+        }));
+
+        return users;
+    }
+
+    @Benchmark
+    public Map<String, User> readExport() throws IOException {
+        final Map<String, User> users = new ConcurrentHashMap<String, User>();
+
+        try (InputStream input = new FileInputStream(export)) {
+            final NdjsonReader<User> reader = new NdjsonReader<User>(input, User.class, 64 * 1024);
+
+            while (reader.next()) {
+                final User user = reader.getValue();
+                users.put(user.getUserName(), user);
+            }
+        }
+
+        return users;
+    }
+}
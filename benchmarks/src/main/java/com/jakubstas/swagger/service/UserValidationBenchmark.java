@@ -0,0 +1,75 @@
+package com.jakubstas.swagger.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.jakubstas.swagger.benchmarks.Datasets;
+import com.jakubstas.swagger.model.User;
+
+/**
+ * Validation of new users by {@link UserService#createUser(User)}, the username pattern and the email validator, without touching any state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserValidationBenchmark {
+
+    @Param({ "valid", "invalidUserName", "invalidEmail" })
+    private String kind;
+
+    /**
+     * Number of distinct users validated in turn.
+     */
+    @Param({ "1", "1024" })
+    private int size;
+
+    private final UserService userService = new UserService();
+
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        users = Datasets.users(size);
+
+        for (final User user : users) {
+            if (kind.equals("invalidUserName")) {
+                user.setUserName(user.getUserName() + "!");
+            } else if (kind.equals("invalidEmail")) {
+                user.setEmail(user.getEmail().replace('@', '.'));
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean checkNewUser(final Cursor cursor) {
+        try {
+            userService.checkNewUser(users.get(cursor.next(size)));
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Position of a benchmark thread in the dataset.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int position;
+
+        int next(final int size) {
+            position = position + 1 == size ? 0 : position + 1;
+            return position;
+        }
+    }
+}
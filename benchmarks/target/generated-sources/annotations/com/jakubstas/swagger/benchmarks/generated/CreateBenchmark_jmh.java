@@ -0,0 +1,4 @@
+package com.jakubstas.swagger.benchmarks.generated;
+public class CreateBenchmark_jmh extends CreateBenchmark_jmh_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.jakubstas.swagger.benchmarks.generated;
+public class JsonSerializationBenchmark_jmh extends JsonSerializationBenchmark_jmh_B3 {
+}
+
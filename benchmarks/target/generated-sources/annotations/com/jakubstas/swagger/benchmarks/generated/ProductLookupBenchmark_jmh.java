@@ -0,0 +1,4 @@
+package com.jakubstas.swagger.benchmarks.generated;
+public class ProductLookupBenchmark_jmh extends ProductLookupBenchmark_jmh_B3 {
+}
+
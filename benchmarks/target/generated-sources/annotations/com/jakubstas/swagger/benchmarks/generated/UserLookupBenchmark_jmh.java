@@ -0,0 +1,4 @@
+package com.jakubstas.swagger.benchmarks.generated;
+public class UserLookupBenchmark_jmh extends UserLookupBenchmark_jmh_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.jakubstas.swagger.benchmarks.generated;
+public class XmlMarshallingBenchmark_jmh extends XmlMarshallingBenchmark_jmh_B3 {
+}
+
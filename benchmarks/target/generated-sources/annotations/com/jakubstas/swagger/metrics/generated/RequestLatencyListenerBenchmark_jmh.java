@@ -0,0 +1,4 @@
+package com.jakubstas.swagger.metrics.generated;
+public class RequestLatencyListenerBenchmark_jmh extends RequestLatencyListenerBenchmark_jmh_B3 {
+}
+
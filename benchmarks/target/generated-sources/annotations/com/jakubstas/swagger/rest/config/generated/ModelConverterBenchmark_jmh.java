@@ -0,0 +1,4 @@
+package com.jakubstas.swagger.rest.config.generated;
+public class ModelConverterBenchmark_jmh extends ModelConverterBenchmark_jmh_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.jakubstas.swagger.service.generated;
+public class RecoveryBenchmark_jmh extends RecoveryBenchmark_jmh_B3 {
+}
+
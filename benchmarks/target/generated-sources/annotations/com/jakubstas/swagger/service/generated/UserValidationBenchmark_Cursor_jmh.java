@@ -0,0 +1,4 @@
+package com.jakubstas.swagger.service.generated;
+public class UserValidationBenchmark_Cursor_jmh extends UserValidationBenchmark_Cursor_jmh_B3 {
+}
+
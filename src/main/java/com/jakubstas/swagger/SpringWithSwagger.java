@@ -5,6 +5,8 @@ import javax.ws.rs.ApplicationPath;
 import org.glassfish.jersey.media.multipart.MultiPartFeature;
 import org.glassfish.jersey.server.ResourceConfig;
 
+import com.jakubstas.swagger.metrics.RequestLatencyListener;
+
 @ApplicationPath("resources")
 public class SpringWithSwagger extends ResourceConfig {
 
@@ -13,11 +15,14 @@ public class SpringWithSwagger extends ResourceConfig {
         final String jacksonPackage = "org.codehaus.jackson.jaxrs";
 
         final String swaggerJaxrsJsonPackage = "com.wordnik.swagger.jaxrs.json";
-        final String swaggerJaxrsListingPackage = "com.wordnik.swagger.jaxrs.listing";
 
-        packages(swaggerJaxrsJsonPackage, swaggerJaxrsListingPackage, jacksonPackage, myRestPackage);
+        // Swagger documentation is served by ApiDocsEndpoint instead of the listing resource
+        packages(swaggerJaxrsJsonPackage, jacksonPackage, myRestPackage);
 
         // enable multipart
         register(MultiPartFeature.class);
+
+        // record request latencies exposed by MetricsEndpoint
+        register(RequestLatencyListener.class);
     }
 }
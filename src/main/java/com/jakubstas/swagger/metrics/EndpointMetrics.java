@@ -0,0 +1,98 @@
+package com.jakubstas.swagger.metrics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Latency histograms of a single resource method, one set of phase histograms per status code. Histograms of a status code are created by the
+ * first request ending with it. Heap allocation and CPU time of accounted requests are summed regardless of status code.
+ */
+public final class EndpointMetrics {
+
+    /**
+     * Phases of request processing, durations of each are kept in a separate histogram.
+     */
+    public enum Phase {
+        TOTAL, MATCHING, RESOURCE_METHOD, ENTITY_WRITE
+    }
+
+    private static final int MIN_STATUS = 100;
+
+    private static final int MAX_STATUS = 599;
+
+    private final String httpMethod;
+
+    private final String path;
+
+    private final String handler;
+
+    private final AtomicReferenceArray<LatencyHistogram[]> statuses = new AtomicReferenceArray<LatencyHistogram[]>(MAX_STATUS - MIN_STATUS + 1);
+
+    private final UsageCounters resourceMethodUsage = new UsageCounters();
+
+    private final UsageCounters entityWriteUsage = new UsageCounters();
+
+    EndpointMetrics(final String httpMethod, final String path, final String handler) {
+        this.httpMethod = httpMethod;
+        this.path = path;
+        this.handler = handler;
+    }
+
+    public String getHttpMethod() {
+        return httpMethod;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getHandler() {
+        return handler;
+    }
+
+    public UsageCounters getResourceMethodUsage() {
+        return resourceMethodUsage;
+    }
+
+    public UsageCounters getEntityWriteUsage() {
+        return entityWriteUsage;
+    }
+
+    /**
+     * Returns histograms of phases of requests ending with the status code indexed by {@link Phase#ordinal()}. Status codes out of the standard
+     * range are counted as 500.
+     */
+    public LatencyHistogram[] getHistograms(final int status) {
+        final int index = (status < MIN_STATUS || status > MAX_STATUS ? 500 : status) - MIN_STATUS;
+        final LatencyHistogram[] histograms = statuses.get(index);
+
+        if (histograms != null) {
+            return histograms;
+        }
+
+        final LatencyHistogram[] created = new LatencyHistogram[Phase.values().length];
+
+        for (int i = 0; i < created.length; i++) {
+            created[i] = new LatencyHistogram();
+        }
+
+        return statuses.compareAndSet(index, null, created) ? created : statuses.get(index);
+    }
+
+    /**
+     * Calls the visitor with histograms of every status code a request ended with so far.
+     */
+    void forEachStatus(final StatusVisitor visitor) {
+        for (int i = 0; i < statuses.length(); i++) {
+            final LatencyHistogram[] histograms = statuses.get(i);
+
+            if (histograms != null) {
+                visitor.visit(i + MIN_STATUS, histograms);
+            }
+        }
+    }
+
+    interface StatusVisitor {
+
+        void visit(int status, LatencyHistogram[] histograms);
+    }
+}
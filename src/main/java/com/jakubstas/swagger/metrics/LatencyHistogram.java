@@ -0,0 +1,146 @@
+package com.jakubstas.swagger.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations in nanoseconds with log-linear buckets in the manner of HdrHistogram. Every power of two range is split into
+ * {@value #HALF_SUB_BUCKETS} linear buckets, so a recorded value is reported with relative error below 1/{@value #HALF_SUB_BUCKETS}.
+ * <p>
+ * Recording is a few atomic increments without allocation or locking. Durations over {@link #MAX_TRACKABLE_NANOS} are counted in the highest
+ * bucket, their real maximum is kept aside.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+    private static final int MAX_VALUE_BITS = 36;
+
+    /**
+     * Highest duration distinguished by the buckets, a little over a minute.
+     */
+    public static final long MAX_TRACKABLE_NANOS = (1L << MAX_VALUE_BITS) - 1;
+
+    private static final int BUCKETS = getIndex(MAX_TRACKABLE_NANOS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong sum = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+
+        counts.incrementAndGet(getIndex(Math.min(value, MAX_TRACKABLE_NANOS)));
+        sum.addAndGet(value);
+
+        long currentMax = max.get();
+
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Returns a copy of recorded values. Values recorded concurrently with the copy may be missing from some of its statistics.
+     */
+    public Snapshot snapshot() {
+        final long[] copy = new long[BUCKETS];
+        long count = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+
+        return new Snapshot(copy, count, sum.get(), max.get());
+    }
+
+    static int getIndex(final long value) {
+        final int magnitude = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+
+        return magnitude * HALF_SUB_BUCKETS + (int) (value >>> magnitude);
+    }
+
+    /**
+     * Returns the highest value counted in the bucket.
+     */
+    static long getHighestValue(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        final int magnitude = index / HALF_SUB_BUCKETS - 1;
+
+        return ((long) (index % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS + 1) << magnitude) - 1;
+    }
+
+    /**
+     * Immutable copy of a histogram.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+
+        private final long count;
+
+        private final long sum;
+
+        private final long max;
+
+        private Snapshot(final long[] counts, final long count, final long sum, final long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getSum(final TimeUnit unit) {
+            return convert(sum, unit);
+        }
+
+        public double getMean(final TimeUnit unit) {
+            return count == 0 ? 0 : convert(sum, unit) / count;
+        }
+
+        public double getMax(final TimeUnit unit) {
+            return convert(max, unit);
+        }
+
+        /**
+         * Returns the value at given quantile between 0 and 1, reported as the highest value of its bucket but never above the maximum.
+         */
+        public double getValueAt(final double quantile, final TimeUnit unit) {
+            if (count == 0) {
+                return 0;
+            }
+
+            final long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+
+                if (seen >= rank) {
+                    return convert(Math.min(getHighestValue(i), max), unit);
+                }
+            }
+
+            return getMax(unit);
+        }
+
+        private static double convert(final long nanos, final TimeUnit unit) {
+            return (double) nanos / TimeUnit.NANOSECONDS.convert(1, unit);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.jakubstas.swagger.metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
+
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.model.Resource;
+import org.glassfish.jersey.server.model.ResourceMethod;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+import com.jakubstas.swagger.metrics.EndpointMetrics.Phase;
+
+/**
+ * Records latency of every request into {@link RequestMetrics} by the resource method it was matched to and its status code. Besides the whole
+ * processing, matching, invocation of the resource method and writing of the response entity are timed separately. A resource method which
+ * hands the request over to another thread is timed and accounted by that thread, see {@link ResourceMethodExecution}, waiting for the thread
+ * counts into the whole processing only.
+ * <p>
+ * Metrics of a resource method are looked up once and kept by the listener, recording itself does not allocate beyond the per-request listener.
+ * Requests which match no resource method are recorded under method <code>OTHER</code> with an empty path, so clients can not add entries by
+ * sending made-up methods or paths.
+ * <p>
+ * While {@link ResourceAccounting} is enabled, heap allocation and CPU time of the request thread are sampled around the resource method and the
+ * entity write as well. A phase is accounted only if it starts and finishes on the same thread.
+ */
+public class RequestLatencyListener implements ApplicationEventListener {
+
+    private static final String UNMATCHED_METHOD = "OTHER";
+
+    private static final String UNMATCHED_PATH = "";
+
+    @Inject
+    private RequestMetrics requestMetrics;
+
+    @Inject
+    private ResourceAccounting resourceAccounting;
+
+    private final ConcurrentMap<ResourceMethod, EndpointMetrics> endpoints = new ConcurrentHashMap<ResourceMethod, EndpointMetrics>();
+
+    @Override
+    public void onEvent(final ApplicationEvent event) {
+    }
+
+    @Override
+    public RequestEventListener onRequest(final RequestEvent event) {
+        return new LatencyRecorder(System.nanoTime(), resourceAccounting.isEnabled());
+    }
+
+    private EndpointMetrics getEndpoint(final RequestEvent event) {
+        final ResourceMethod method = event.getUriInfo().getMatchedResourceMethod();
+
+        if (method == null) {
+            return requestMetrics.getEndpoint(UNMATCHED_METHOD, UNMATCHED_PATH, null);
+        }
+
+        final EndpointMetrics endpoint = endpoints.get(method);
+
+        if (endpoint != null) {
+            return endpoint;
+        }
+
+        final EndpointMetrics created = requestMetrics.getEndpoint(method.getHttpMethod(), getPath(method), getHandler(method));
+        endpoints.putIfAbsent(method, created);
+
+        return created;
+    }
+
+    private static String getPath(final ResourceMethod method) {
+        final StringBuilder path = new StringBuilder();
+
+        for (Resource resource = method.getParent(); resource != null; resource = resource.getParent()) {
+            if (resource.getPath() != null) {
+                path.insert(0, resource.getPath().startsWith("/") ? resource.getPath() : "/" + resource.getPath());
+            }
+        }
+
+        return path.toString().replace("//", "/");
+    }
+
+    private static String getHandler(final ResourceMethod method) {
+        if (method.getInvocable().getDefinitionMethod() == null) {
+            return null;
+        }
+
+        return method.getInvocable().getHandler().getHandlerClass().getSimpleName() + "." + method.getInvocable().getDefinitionMethod().getName();
+    }
+
+    /**
+     * Timestamps of a single request, taken as its processing passes the phases, and samples of the thread counters if the request is accounted.
+     * <p>
+     * A request handed over to another thread is resumed, filtered and finished by that thread, possibly before the container thread gets to
+     * {@link RequestEvent.Type#RESOURCE_METHOD_FINISHED}. The execution is picked up on the resuming thread and the end of the resource method is
+     * published through a volatile field.
+     */
+    private class LatencyRecorder implements RequestEventListener {
+
+        private final long start;
+
+        private final boolean accounted;
+
+        private long matchingStart;
+
+        private long matched;
+
+        private long methodStart;
+
+        private volatile long methodFinished;
+
+        private long responseFiltered;
+
+        private ThreadSample methodStartSample;
+
+        private ThreadSample methodFinishedSample;
+
+        private ThreadSample responseFilteredSample;
+
+        private ResourceMethodExecution execution;
+
+        LatencyRecorder(final long start, final boolean accounted) {
+            this.start = start;
+            this.accounted = accounted;
+        }
+
+        @Override
+        public void onEvent(final RequestEvent event) {
+            switch (event.getType()) {
+            case MATCHING_START:
+                matchingStart = System.nanoTime();
+                break;
+            case REQUEST_MATCHED:
+                matched = System.nanoTime();
+                break;
+            case RESOURCE_METHOD_START:
+                methodStartSample = sample();
+                methodStart = System.nanoTime();
+                break;
+            case RESOURCE_METHOD_FINISHED:
+                final long finished = System.nanoTime();
+                methodFinishedSample = sample();
+                methodFinished = finished;
+                break;
+            case ON_EXCEPTION:
+                attachExecution(event);
+                break;
+            case RESP_FILTERS_FINISHED:
+                attachExecution(event);
+                responseFilteredSample = sample();
+                responseFiltered = System.nanoTime();
+                break;
+            case FINISHED:
+                record(event, System.nanoTime(), sample());
+                break;
+            default:
+                break;
+            }
+        }
+
+        /**
+         * Picks up execution of a handed over request while its properties are still there, they are gone by the time it finishes.
+         */
+        private void attachExecution(final RequestEvent event) {
+            if (execution == null) {
+                execution = (ResourceMethodExecution) event.getContainerRequest().getProperty(ResourceMethodExecution.PROPERTY);
+            }
+        }
+
+        private ThreadSample sample() {
+            return accounted ? new ThreadSample(resourceAccounting) : null;
+        }
+
+        private void record(final RequestEvent event, final long finished, final ThreadSample finishedSample) {
+            final ContainerResponse response = event.getContainerResponse();
+            final EndpointMetrics endpoint = getEndpoint(event);
+            final LatencyHistogram[] histograms = endpoint.getHistograms(response == null ? 500 : response.getStatus());
+
+            histograms[Phase.TOTAL.ordinal()].record(finished - start);
+
+            if (matchingStart != 0 && matched != 0) {
+                histograms[Phase.MATCHING.ordinal()].record(matched - matchingStart);
+            }
+
+            final long methodEnd = methodFinished;
+
+            if (execution != null) {
+                execution.record(endpoint, histograms[Phase.RESOURCE_METHOD.ordinal()]);
+            } else if (methodStart != 0 && methodEnd != 0) {
+                histograms[Phase.RESOURCE_METHOD.ordinal()].record(methodEnd - methodStart);
+                ThreadSample.record(endpoint.getResourceMethodUsage(), methodStartSample, methodFinishedSample);
+            }
+
+            if (responseFiltered != 0 && event.isResponseWritten()) {
+                histograms[Phase.ENTITY_WRITE.ordinal()].record(finished - responseFiltered);
+                ThreadSample.record(endpoint.getEntityWriteUsage(), responseFilteredSample, finishedSample);
+            }
+        }
+    }
+}
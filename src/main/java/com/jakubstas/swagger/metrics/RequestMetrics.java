@@ -0,0 +1,160 @@
+package com.jakubstas.swagger.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.ComparisonChain;
+import com.jakubstas.swagger.metrics.EndpointMetrics.Phase;
+import com.jakubstas.swagger.model.EndpointLatency;
+import com.jakubstas.swagger.model.EndpointResourceUsage;
+import com.jakubstas.swagger.model.MetricsReport;
+import com.jakubstas.swagger.model.ResourceUsage;
+import com.jakubstas.swagger.model.LatencySummary;
+
+/**
+ * Registry of request latencies and resource usage of all resource methods, recorded by {@link RequestLatencyListener}.
+ */
+@Component
+public class RequestMetrics {
+
+    @Inject
+    private ResourceAccounting resourceAccounting;
+
+    private final ConcurrentMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<String, EndpointMetrics>();
+
+    /**
+     * Returns metrics of the resource method, creating them on the first call. Callers are expected to keep the returned metrics instead of looking
+     * them up for every request.
+     */
+    public EndpointMetrics getEndpoint(final String httpMethod, final String path, final String handler) {
+        final String key = httpMethod + ' ' + path;
+        final EndpointMetrics endpoint = endpoints.get(key);
+
+        if (endpoint != null) {
+            return endpoint;
+        }
+
+        final EndpointMetrics created = new EndpointMetrics(httpMethod, path, handler);
+        final EndpointMetrics existing = endpoints.putIfAbsent(key, created);
+
+        return existing != null ? existing : created;
+    }
+
+    /**
+     * Returns latencies of all resource methods and status codes ordered by path, HTTP method and status code, followed by resource usage of the
+     * resource methods.
+     */
+    public MetricsReport getReport() {
+        final List<EndpointLatency> latencies = new ArrayList<EndpointLatency>();
+        final List<EndpointResourceUsage> usages = new ArrayList<EndpointResourceUsage>();
+
+        for (final EndpointMetrics endpoint : endpoints.values()) {
+            if (endpoint.getResourceMethodUsage().getCount() > 0) {
+                final EndpointResourceUsage usage = new EndpointResourceUsage();
+                usage.setHttpMethod(endpoint.getHttpMethod());
+                usage.setPath(endpoint.getPath());
+                usage.setHandler(endpoint.getHandler());
+                usage.setResourceMethod(summarize(endpoint.getResourceMethodUsage()));
+                usage.setEntityWrite(summarize(endpoint.getEntityWriteUsage()));
+
+                usages.add(usage);
+            }
+
+            endpoint.forEachStatus(new EndpointMetrics.StatusVisitor() {
+
+                @Override
+                public void visit(final int status, final LatencyHistogram[] histograms) {
+                    final EndpointLatency latency = new EndpointLatency();
+                    latency.setHttpMethod(endpoint.getHttpMethod());
+                    latency.setPath(endpoint.getPath());
+                    latency.setHandler(endpoint.getHandler());
+                    latency.setStatus(status);
+                    latency.setTotal(summarize(histograms[Phase.TOTAL.ordinal()]));
+                    latency.setMatching(summarize(histograms[Phase.MATCHING.ordinal()]));
+                    latency.setResourceMethod(summarize(histograms[Phase.RESOURCE_METHOD.ordinal()]));
+                    latency.setEntityWrite(summarize(histograms[Phase.ENTITY_WRITE.ordinal()]));
+
+                    latencies.add(latency);
+                }
+            });
+        }
+
+        Collections.sort(latencies, new Comparator<EndpointLatency>() {
+
+            @Override
+            public int compare(final EndpointLatency first, final EndpointLatency second) {
+                return ComparisonChain.start().compare(first.getPath(), second.getPath()).compare(first.getHttpMethod(), second.getHttpMethod())
+                        .compare(first.getStatus(), second.getStatus()).result();
+            }
+        });
+
+        Collections.sort(usages, new Comparator<EndpointResourceUsage>() {
+
+            @Override
+            public int compare(final EndpointResourceUsage first, final EndpointResourceUsage second) {
+                return ComparisonChain.start().compare(first.getPath(), second.getPath()).compare(first.getHttpMethod(), second.getHttpMethod()).result();
+            }
+        });
+
+        final MetricsReport report = new MetricsReport();
+        report.setEndpoints(latencies);
+        report.setAccounting(resourceAccounting.isEnabled());
+        report.setResourceUsage(usages);
+
+        return report;
+    }
+
+    /**
+     * Returns summary of the histogram, <code>null</code> if it is empty.
+     */
+    private static LatencySummary summarize(final LatencyHistogram histogram) {
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        if (snapshot.getCount() == 0) {
+            return null;
+        }
+
+        final LatencySummary summary = new LatencySummary();
+        summary.setCount(snapshot.getCount());
+        summary.setSum(snapshot.getSum(TimeUnit.MILLISECONDS));
+        summary.setMean(snapshot.getMean(TimeUnit.MILLISECONDS));
+        summary.setP50(snapshot.getValueAt(0.5, TimeUnit.MILLISECONDS));
+        summary.setP90(snapshot.getValueAt(0.9, TimeUnit.MILLISECONDS));
+        summary.setP99(snapshot.getValueAt(0.99, TimeUnit.MILLISECONDS));
+        summary.setP999(snapshot.getValueAt(0.999, TimeUnit.MILLISECONDS));
+        summary.setMax(snapshot.getMax(TimeUnit.MILLISECONDS));
+
+        return summary;
+    }
+
+    /**
+     * Returns summary of the counters, <code>null</code> if nothing was counted.
+     */
+    private static ResourceUsage summarize(final UsageCounters counters) {
+        final long count = counters.getCount();
+
+        if (count == 0) {
+            return null;
+        }
+
+        final double cpuTime = (double) counters.getCpuTime() / TimeUnit.MILLISECONDS.toNanos(1);
+        final ResourceUsage usage = new ResourceUsage();
+        usage.setCount(count);
+        usage.setAllocatedBytes(counters.getAllocatedBytes());
+        usage.setMeanAllocatedBytes(counters.getAllocatedBytes() / count);
+        usage.setMaxAllocatedBytes(counters.getMaxAllocatedBytes());
+        usage.setCpuTime(cpuTime);
+        usage.setMeanCpuTime(cpuTime / count);
+
+        return usage;
+    }
+}
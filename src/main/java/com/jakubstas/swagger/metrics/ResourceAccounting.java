@@ -0,0 +1,79 @@
+package com.jakubstas.swagger.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Switch of the opt-in accounting of heap allocation and CPU time of request threads, and access to the per-thread counters of the JVM. Accounting
+ * costs two native calls per sample, so it is off unless enabled by <code>metrics.accounting</code> or at runtime.
+ */
+@Component
+public class ResourceAccounting {
+
+    @Value("${metrics.accounting}")
+    private boolean initiallyEnabled;
+
+    private final com.sun.management.ThreadMXBean threads = getThreadBean();
+
+    private volatile boolean enabled;
+
+    @PostConstruct
+    public void init() {
+        if (initiallyEnabled && isSupported()) {
+            setEnabled(true);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns whether the JVM measures both allocation and CPU time of threads.
+     */
+    public boolean isSupported() {
+        return threads != null && threads.isThreadAllocatedMemorySupported() && threads.isCurrentThreadCpuTimeSupported();
+    }
+
+    /**
+     * Switches accounting of requests started from now on.
+     *
+     * @throws UnsupportedOperationException if accounting is being enabled and it is not supported by the JVM
+     */
+    public synchronized void setEnabled(final boolean enabled) {
+        if (enabled) {
+            if (!isSupported()) {
+                throw new UnsupportedOperationException("Thread allocation and CPU time accounting is not supported by the JVM.");
+            }
+
+            threads.setThreadAllocatedMemoryEnabled(true);
+            threads.setThreadCpuTimeEnabled(true);
+        }
+
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns number of bytes allocated in heap by the current thread so far.
+     */
+    long getAllocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Returns CPU time used by the current thread so far in nanoseconds.
+     */
+    long getCpuTime() {
+        return threads.getCurrentThreadCpuTime();
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadBean() {
+        final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        return threads instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) threads : null;
+    }
+}
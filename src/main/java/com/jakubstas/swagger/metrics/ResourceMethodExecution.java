@@ -0,0 +1,65 @@
+package com.jakubstas.swagger.metrics;
+
+/**
+ * Execution of a resource method which handed the request over to another thread. The executing thread times the work and, while
+ * {@link ResourceAccounting} is enabled, samples its counters around it. The execution is attached to the request as property {@link #PROPERTY}
+ * and {@link RequestLatencyListener} records it in place of the hand over.
+ */
+public class ResourceMethodExecution {
+
+    /**
+     * Name of the request property holding the execution.
+     */
+    public static final String PROPERTY = ResourceMethodExecution.class.getName();
+
+    private final ResourceAccounting accounting;
+
+    private final boolean accounted;
+
+    private ThreadSample startSample;
+
+    private ThreadSample finishSample;
+
+    private volatile long start;
+
+    private volatile long finish;
+
+    public ResourceMethodExecution(final ResourceAccounting accounting) {
+        this.accounting = accounting;
+        this.accounted = accounting.isEnabled();
+    }
+
+    /**
+     * Marks start of the work on the current thread.
+     */
+    public void start() {
+        if (accounted) {
+            startSample = new ThreadSample(accounting);
+        }
+        start = System.nanoTime();
+    }
+
+    /**
+     * Marks finish of the work on the thread which started it.
+     */
+    public void finish() {
+        final long finished = System.nanoTime();
+
+        if (accounted) {
+            finishSample = new ThreadSample(accounting);
+        }
+        finish = finished;
+    }
+
+    /**
+     * Records the execution into the resource method phase of the endpoint, unless the work never ran or did not finish yet.
+     */
+    void record(final EndpointMetrics endpoint, final LatencyHistogram histogram) {
+        final long finished = finish;
+
+        if (finished != 0) {
+            histogram.record(finished - start);
+            ThreadSample.record(endpoint.getResourceMethodUsage(), startSample, finishSample);
+        }
+    }
+}
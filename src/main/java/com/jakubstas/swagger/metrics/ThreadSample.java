@@ -0,0 +1,25 @@
+package com.jakubstas.swagger.metrics;
+
+/**
+ * Counters of the current thread at a point of request processing.
+ */
+class ThreadSample {
+
+    private final Thread thread;
+
+    private final long allocatedBytes;
+
+    private final long cpuTime;
+
+    ThreadSample(final ResourceAccounting accounting) {
+        this.thread = Thread.currentThread();
+        this.allocatedBytes = accounting.getAllocatedBytes();
+        this.cpuTime = accounting.getCpuTime();
+    }
+
+    static void record(final UsageCounters counters, final ThreadSample start, final ThreadSample finish) {
+        if (start != null && finish != null && start.thread == finish.thread) {
+            counters.record(finish.allocatedBytes - start.allocatedBytes, finish.cpuTime - start.cpuTime);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.jakubstas.swagger.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Heap allocation and CPU time summed over the accounted requests of a resource method in a single processing phase.
+ */
+public final class UsageCounters {
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong allocatedBytes = new AtomicLong();
+
+    private final AtomicLong maxAllocatedBytes = new AtomicLong();
+
+    private final AtomicLong cpuTime = new AtomicLong();
+
+    public void record(final long allocated, final long cpuNanos) {
+        count.incrementAndGet();
+        allocatedBytes.addAndGet(allocated);
+        cpuTime.addAndGet(cpuNanos);
+
+        long currentMax = maxAllocatedBytes.get();
+
+        while (allocated > currentMax && !maxAllocatedBytes.compareAndSet(currentMax, allocated)) {
+            currentMax = maxAllocatedBytes.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    public long getMaxAllocatedBytes() {
+        return maxAllocatedBytes.get();
+    }
+
+    /**
+     * Returns CPU time in nanoseconds.
+     */
+    public long getCpuTime() {
+        return cpuTime.get();
+    }
+}
@@ -0,0 +1,30 @@
+package com.jakubstas.swagger.model;
+
+/**
+ * Reference to avatar image kept in the avatar store. The image itself is never held by the model.
+ */
+public class Avatar {
+
+    private final String hash;
+
+    private final long size;
+
+    public Avatar(final String hash, final long size) {
+        this.hash = hash;
+        this.size = size;
+    }
+
+    /**
+     * Hex encoded SHA-256 hash of the image, which identifies the image in the store.
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * Size of the image in bytes.
+     */
+    public long getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,57 @@
+package com.jakubstas.swagger.model;
+
+import com.wordnik.swagger.annotations.ApiModel;
+import com.wordnik.swagger.annotations.ApiModelProperty;
+
+@ApiModel
+public class AvatarReport {
+
+    private long references;
+
+    private long images;
+
+    private long referencedBytes;
+
+    private long storedBytes;
+
+    @ApiModelProperty(position = 1, value = "number of users with an avatar")
+    public long getReferences() {
+        return references;
+    }
+
+    public void setReferences(long references) {
+        this.references = references;
+    }
+
+    @ApiModelProperty(position = 2, value = "number of distinct avatar images stored")
+    public long getImages() {
+        return images;
+    }
+
+    public void setImages(long images) {
+        this.images = images;
+    }
+
+    @ApiModelProperty(position = 3, value = "total size of avatars of all users in bytes")
+    public long getReferencedBytes() {
+        return referencedBytes;
+    }
+
+    public void setReferencedBytes(long referencedBytes) {
+        this.referencedBytes = referencedBytes;
+    }
+
+    @ApiModelProperty(position = 4, value = "total size of stored avatar images in bytes")
+    public long getStoredBytes() {
+        return storedBytes;
+    }
+
+    public void setStoredBytes(long storedBytes) {
+        this.storedBytes = storedBytes;
+    }
+
+    @ApiModelProperty(position = 5, value = "referenced bytes per stored byte")
+    public double getDedupRatio() {
+        return storedBytes == 0 ? 1.0 : (double) referencedBytes / storedBytes;
+    }
+}
@@ -0,0 +1,99 @@
+package com.jakubstas.swagger.model;
+
+import com.wordnik.swagger.annotations.ApiModel;
+import com.wordnik.swagger.annotations.ApiModelProperty;
+
+/**
+ * Latencies of requests handled by a single resource method which ended with the same status code, split into processing phases.
+ */
+@ApiModel
+public class EndpointLatency {
+
+    private String httpMethod;
+
+    private String path;
+
+    private String handler;
+
+    private int status;
+
+    private LatencySummary total;
+
+    private LatencySummary matching;
+
+    private LatencySummary resourceMethod;
+
+    private LatencySummary entityWrite;
+
+    @ApiModelProperty(required = true, position = 1)
+    public String getHttpMethod() {
+        return httpMethod;
+    }
+
+    public void setHttpMethod(String httpMethod) {
+        this.httpMethod = httpMethod;
+    }
+
+    @ApiModelProperty(required = true, position = 2, value = "path template of the resource method, empty for requests not matched to any")
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    @ApiModelProperty(position = 3, value = "class and name of the resource method")
+    public String getHandler() {
+        return handler;
+    }
+
+    public void setHandler(String handler) {
+        this.handler = handler;
+    }
+
+    @ApiModelProperty(required = true, position = 4, value = "status code of the responses")
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    @ApiModelProperty(required = true, position = 5, value = "whole processing of the request")
+    public LatencySummary getTotal() {
+        return total;
+    }
+
+    public void setTotal(LatencySummary total) {
+        this.total = total;
+    }
+
+    @ApiModelProperty(position = 6, value = "matching of the request to the resource method")
+    public LatencySummary getMatching() {
+        return matching;
+    }
+
+    public void setMatching(LatencySummary matching) {
+        this.matching = matching;
+    }
+
+    @ApiModelProperty(position = 7, value = "invocation of the resource method")
+    public LatencySummary getResourceMethod() {
+        return resourceMethod;
+    }
+
+    public void setResourceMethod(LatencySummary resourceMethod) {
+        this.resourceMethod = resourceMethod;
+    }
+
+    @ApiModelProperty(position = 8, value = "writing of the response entity, including streamed entities")
+    public LatencySummary getEntityWrite() {
+        return entityWrite;
+    }
+
+    public void setEntityWrite(LatencySummary entityWrite) {
+        this.entityWrite = entityWrite;
+    }
+}
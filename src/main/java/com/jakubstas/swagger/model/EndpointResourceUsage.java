@@ -0,0 +1,66 @@
+package com.jakubstas.swagger.model;
+
+import com.wordnik.swagger.annotations.ApiModel;
+import com.wordnik.swagger.annotations.ApiModelProperty;
+
+/**
+ * Resource usage of requests handled by a single resource method, split into invocation of the method and writing of the response entity.
+ */
+@ApiModel
+public class EndpointResourceUsage {
+
+    private String httpMethod;
+
+    private String path;
+
+    private String handler;
+
+    private ResourceUsage resourceMethod;
+
+    private ResourceUsage entityWrite;
+
+    @ApiModelProperty(required = true, position = 1)
+    public String getHttpMethod() {
+        return httpMethod;
+    }
+
+    public void setHttpMethod(String httpMethod) {
+        this.httpMethod = httpMethod;
+    }
+
+    @ApiModelProperty(required = true, position = 2, value = "path template of the resource method")
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    @ApiModelProperty(position = 3, value = "class and name of the resource method")
+    public String getHandler() {
+        return handler;
+    }
+
+    public void setHandler(String handler) {
+        this.handler = handler;
+    }
+
+    @ApiModelProperty(position = 4, value = "invocation of the resource method")
+    public ResourceUsage getResourceMethod() {
+        return resourceMethod;
+    }
+
+    public void setResourceMethod(ResourceUsage resourceMethod) {
+        this.resourceMethod = resourceMethod;
+    }
+
+    @ApiModelProperty(position = 5, value = "writing of the response entity, including streamed entities")
+    public ResourceUsage getEntityWrite() {
+        return entityWrite;
+    }
+
+    public void setEntityWrite(ResourceUsage entityWrite) {
+        this.entityWrite = entityWrite;
+    }
+}
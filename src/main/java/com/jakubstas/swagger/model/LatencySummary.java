@@ -0,0 +1,99 @@
+package com.jakubstas.swagger.model;
+
+import com.wordnik.swagger.annotations.ApiModel;
+import com.wordnik.swagger.annotations.ApiModelProperty;
+
+/**
+ * Distribution of durations of a request phase in milliseconds.
+ */
+@ApiModel
+public class LatencySummary {
+
+    private long count;
+
+    private double sum;
+
+    private double mean;
+
+    private double p50;
+
+    private double p90;
+
+    private double p99;
+
+    private double p999;
+
+    private double max;
+
+    @ApiModelProperty(required = true, position = 1, value = "number of recorded durations")
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    @ApiModelProperty(position = 2, value = "sum of recorded durations")
+    public double getSum() {
+        return sum;
+    }
+
+    public void setSum(double sum) {
+        this.sum = sum;
+    }
+
+    @ApiModelProperty(position = 3)
+    public double getMean() {
+        return mean;
+    }
+
+    public void setMean(double mean) {
+        this.mean = mean;
+    }
+
+    @ApiModelProperty(position = 4, value = "median")
+    public double getP50() {
+        return p50;
+    }
+
+    public void setP50(double p50) {
+        this.p50 = p50;
+    }
+
+    @ApiModelProperty(position = 5, value = "90th percentile")
+    public double getP90() {
+        return p90;
+    }
+
+    public void setP90(double p90) {
+        this.p90 = p90;
+    }
+
+    @ApiModelProperty(position = 6, value = "99th percentile")
+    public double getP99() {
+        return p99;
+    }
+
+    public void setP99(double p99) {
+        this.p99 = p99;
+    }
+
+    @ApiModelProperty(position = 7, value = "99.9th percentile")
+    public double getP999() {
+        return p999;
+    }
+
+    public void setP999(double p999) {
+        this.p999 = p999;
+    }
+
+    @ApiModelProperty(position = 8)
+    public double getMax() {
+        return max;
+    }
+
+    public void setMax(double max) {
+        this.max = max;
+    }
+}
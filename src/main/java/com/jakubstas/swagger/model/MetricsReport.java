@@ -0,0 +1,48 @@
+package com.jakubstas.swagger.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.wordnik.swagger.annotations.ApiModel;
+import com.wordnik.swagger.annotations.ApiModelProperty;
+
+/**
+ * Latencies of all requests handled since the application started in milliseconds, and resource usage of requests handled while accounting was
+ * enabled.
+ */
+@ApiModel
+public class MetricsReport {
+
+    private List<EndpointLatency> endpoints = new ArrayList<EndpointLatency>();
+
+    private boolean accounting;
+
+    private List<EndpointResourceUsage> resourceUsage = new ArrayList<EndpointResourceUsage>();
+
+    @ApiModelProperty(required = true, position = 1)
+    public List<EndpointLatency> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(List<EndpointLatency> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    @ApiModelProperty(position = 2, value = "whether allocation and CPU time of requests is being accounted")
+    public boolean isAccounting() {
+        return accounting;
+    }
+
+    public void setAccounting(boolean accounting) {
+        this.accounting = accounting;
+    }
+
+    @ApiModelProperty(position = 3, value = "resource usage of endpoints with at least one accounted request")
+    public List<EndpointResourceUsage> getResourceUsage() {
+        return resourceUsage;
+    }
+
+    public void setResourceUsage(List<EndpointResourceUsage> resourceUsage) {
+        this.resourceUsage = resourceUsage;
+    }
+}
@@ -1,5 +1,7 @@
 package com.jakubstas.swagger.model;
 
+import java.util.Date;
+
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -8,6 +10,10 @@ import javax.xml.bind.annotation.XmlRootElement;
 import com.wordnik.swagger.annotations.ApiModel;
 import com.wordnik.swagger.annotations.ApiModelProperty;
 
+/**
+ * Product in the catalog. Instances returned by {@link com.jakubstas.swagger.service.ProductService} are immutable snapshots of a product version
+ * and must not be modified.
+ */
 @ApiModel
 @XmlRootElement(name = "product", namespace = "com.jakubstas.swagger")
 @XmlAccessorType(XmlAccessType.NONE)
@@ -19,6 +25,10 @@ public class Product {
 
     private String description;
 
+    private long version;
+
+    private Date lastUpdated;
+
     private final String oneToBeHidden = "hiddenOne";
 
     @ApiModelProperty(required = true)
@@ -51,6 +61,27 @@ public class Product {
         this.description = description;
     }
 
+    /**
+     * Version of the product assigned by the catalog, unique across all products.
+     */
+    @ApiModelProperty(access = "hidden")
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    @ApiModelProperty(access = "hidden")
+    public Date getLastUpdated() {
+        return lastUpdated;
+    }
+
+    public void setLastUpdated(Date lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+
     @ApiModelProperty(access = "hidden")
     public String getOneToBeHidden() {
         return oneToBeHidden;
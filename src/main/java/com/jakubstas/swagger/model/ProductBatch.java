@@ -0,0 +1,46 @@
+package com.jakubstas.swagger.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import com.wordnik.swagger.annotations.ApiModel;
+import com.wordnik.swagger.annotations.ApiModelProperty;
+
+/**
+ * Changes of the catalog applied in one request, in their order.
+ */
+@ApiModel
+@XmlRootElement(name = "productBatch", namespace = "com.jakubstas.swagger")
+@XmlAccessorType(XmlAccessType.NONE)
+public class ProductBatch {
+
+    private boolean atomic;
+
+    private List<ProductOperation> operations = new ArrayList<>();
+
+    @ApiModelProperty(position = 1, value = "applies either all operations or none of them")
+    @XmlAttribute(name = "atomic")
+    public boolean isAtomic() {
+        return atomic;
+    }
+
+    public void setAtomic(boolean atomic) {
+        this.atomic = atomic;
+    }
+
+    @ApiModelProperty(required = true, position = 2)
+    @XmlElement(name = "operation", required = true)
+    public List<ProductOperation> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(List<ProductOperation> operations) {
+        this.operations = operations;
+    }
+}
@@ -0,0 +1,54 @@
+package com.jakubstas.swagger.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import com.wordnik.swagger.annotations.ApiModel;
+import com.wordnik.swagger.annotations.ApiModelProperty;
+
+/**
+ * Outcomes of operations of a {@link ProductBatch}, in the order of the operations.
+ */
+@ApiModel
+@XmlRootElement(name = "productBatchResult", namespace = "com.jakubstas.swagger")
+@XmlAccessorType(XmlAccessType.NONE)
+public class ProductBatchResult {
+
+    private boolean applied;
+
+    private List<ProductOperationResult> results = new ArrayList<>();
+
+    public ProductBatchResult() {
+    }
+
+    public ProductBatchResult(final boolean applied, final List<ProductOperationResult> results) {
+        this.applied = applied;
+        this.results = results;
+    }
+
+    @ApiModelProperty(required = true, position = 1, value = "whether all operations were applied")
+    @XmlAttribute(name = "applied", required = true)
+    public boolean isApplied() {
+        return applied;
+    }
+
+    public void setApplied(boolean applied) {
+        this.applied = applied;
+    }
+
+    @ApiModelProperty(required = true, position = 2)
+    @XmlElement(name = "result", required = true)
+    public List<ProductOperationResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<ProductOperationResult> results) {
+        this.results = results;
+    }
+}
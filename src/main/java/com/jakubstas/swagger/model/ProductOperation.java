@@ -0,0 +1,69 @@
+package com.jakubstas.swagger.model;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+
+import com.wordnik.swagger.annotations.ApiModel;
+import com.wordnik.swagger.annotations.ApiModelProperty;
+
+/**
+ * Single change of the catalog within a {@link ProductBatch}.
+ */
+@ApiModel
+@XmlAccessorType(XmlAccessType.NONE)
+public class ProductOperation {
+
+    public enum Action {
+        CREATE, UPDATE, DELETE
+    }
+
+    private Action action;
+
+    private String code;
+
+    private Long version;
+
+    private Product product;
+
+    @ApiModelProperty(required = true, position = 1, allowableValues = "CREATE,UPDATE,DELETE")
+    @XmlAttribute(name = "action", required = true)
+    public Action getAction() {
+        return action;
+    }
+
+    public void setAction(Action action) {
+        this.action = action;
+    }
+
+    @ApiModelProperty(position = 2, value = "code of the product to delete, taken from the product if missing")
+    @XmlAttribute(name = "code")
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    @ApiModelProperty(position = 3, value = "version the product to update or delete must still be in, any version if missing")
+    @XmlAttribute(name = "version")
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    @ApiModelProperty(position = 4, value = "product to create or the new state of the product to update")
+    @XmlElement(name = "product")
+    public Product getProduct() {
+        return product;
+    }
+
+    public void setProduct(Product product) {
+        this.product = product;
+    }
+}
@@ -0,0 +1,93 @@
+package com.jakubstas.swagger.model;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+
+import com.wordnik.swagger.annotations.ApiModel;
+import com.wordnik.swagger.annotations.ApiModelProperty;
+
+/**
+ * Outcome of a single {@link ProductOperation} of a batch.
+ */
+@ApiModel
+@XmlAccessorType(XmlAccessType.NONE)
+public class ProductOperationResult {
+
+    public enum Status {
+        CREATED, UPDATED, DELETED, INVALID, ALREADY_EXISTS, NOT_FOUND, VERSION_MISMATCH, NOT_APPLIED
+    }
+
+    private int index;
+
+    private String code;
+
+    private Status status;
+
+    private Long version;
+
+    private String message;
+
+    public ProductOperationResult() {
+    }
+
+    public ProductOperationResult(final int index, final String code, final Status status, final Long version, final String message) {
+        this.index = index;
+        this.code = code;
+        this.status = status;
+        this.version = version;
+        this.message = message;
+    }
+
+    @ApiModelProperty(required = true, position = 1, value = "position of the operation in the batch starting at 0")
+    @XmlAttribute(name = "index", required = true)
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    @ApiModelProperty(position = 2)
+    @XmlAttribute(name = "code")
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    @ApiModelProperty(required = true, position = 3,
+            allowableValues = "CREATED,UPDATED,DELETED,INVALID,ALREADY_EXISTS,NOT_FOUND,VERSION_MISMATCH,NOT_APPLIED")
+    @XmlAttribute(name = "status", required = true)
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    @ApiModelProperty(position = 4, value = "version of the product after the operation")
+    @XmlAttribute(name = "version")
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    @ApiModelProperty(position = 5, value = "reason the operation was not applied")
+    @XmlElement(name = "message")
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,77 @@
+package com.jakubstas.swagger.model;
+
+import com.wordnik.swagger.annotations.ApiModel;
+import com.wordnik.swagger.annotations.ApiModelProperty;
+
+/**
+ * Heap allocation and CPU time of request threads in a processing phase, summed over accounted requests.
+ */
+@ApiModel
+public class ResourceUsage {
+
+    private long count;
+
+    private long allocatedBytes;
+
+    private long meanAllocatedBytes;
+
+    private long maxAllocatedBytes;
+
+    private double cpuTime;
+
+    private double meanCpuTime;
+
+    @ApiModelProperty(required = true, position = 1, value = "number of accounted requests")
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    @ApiModelProperty(position = 2, value = "bytes allocated in heap by all accounted requests")
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public void setAllocatedBytes(long allocatedBytes) {
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    @ApiModelProperty(position = 3, value = "bytes allocated in heap per request")
+    public long getMeanAllocatedBytes() {
+        return meanAllocatedBytes;
+    }
+
+    public void setMeanAllocatedBytes(long meanAllocatedBytes) {
+        this.meanAllocatedBytes = meanAllocatedBytes;
+    }
+
+    @ApiModelProperty(position = 4, value = "most bytes allocated in heap by a single request")
+    public long getMaxAllocatedBytes() {
+        return maxAllocatedBytes;
+    }
+
+    public void setMaxAllocatedBytes(long maxAllocatedBytes) {
+        this.maxAllocatedBytes = maxAllocatedBytes;
+    }
+
+    @ApiModelProperty(position = 5, value = "CPU time of all accounted requests in milliseconds")
+    public double getCpuTime() {
+        return cpuTime;
+    }
+
+    public void setCpuTime(double cpuTime) {
+        this.cpuTime = cpuTime;
+    }
+
+    @ApiModelProperty(position = 6, value = "CPU time per request in milliseconds")
+    public double getMeanCpuTime() {
+        return meanCpuTime;
+    }
+
+    public void setMeanCpuTime(double meanCpuTime) {
+        this.meanCpuTime = meanCpuTime;
+    }
+}
@@ -6,6 +6,10 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.wordnik.swagger.annotations.ApiModel;
 import com.wordnik.swagger.annotations.ApiModelProperty;
 
+/**
+ * User registered within application. Instances returned by {@link com.jakubstas.swagger.service.UserService} are snapshots of the user shared
+ * with concurrent readers and must not be modified.
+ */
 @ApiModel
 public class User {
 
@@ -17,7 +21,7 @@ public class User {
 
     private String email;
 
-    private byte[] avatar;
+    private Avatar avatar;
 
     private Date lastUpdated;
 
@@ -59,12 +63,15 @@ public class User {
         this.email = email;
     }
 
+    /**
+     * Returns reference to the avatar image in the avatar store.
+     */
     @JsonIgnore
-    public byte[] getAvatar() {
+    public Avatar getAvatar() {
         return avatar;
     }
 
-    public void setAvatar(byte[] avatar) {
+    public void setAvatar(Avatar avatar) {
         this.avatar = avatar;
     }
 
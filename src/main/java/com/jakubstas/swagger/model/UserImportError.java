@@ -0,0 +1,53 @@
+package com.jakubstas.swagger.model;
+
+import com.wordnik.swagger.annotations.ApiModel;
+import com.wordnik.swagger.annotations.ApiModelProperty;
+
+/**
+ * Reason a single line of a user import was not imported.
+ */
+@ApiModel
+public class UserImportError {
+
+    private long line;
+
+    private String userName;
+
+    private String message;
+
+    public UserImportError() {
+    }
+
+    public UserImportError(final long line, final String userName, final String message) {
+        this.line = line;
+        this.userName = userName;
+        this.message = message;
+    }
+
+    @ApiModelProperty(required = true, position = 1, value = "number of the line starting at 1")
+    public long getLine() {
+        return line;
+    }
+
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    @ApiModelProperty(position = 2, value = "username on the line if it could be read")
+    public String getUserName() {
+        return userName;
+    }
+
+    public void setUserName(String userName) {
+        this.userName = userName;
+    }
+
+    @ApiModelProperty(required = true, position = 3)
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
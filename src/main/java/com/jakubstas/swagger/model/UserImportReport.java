@@ -0,0 +1,70 @@
+package com.jakubstas.swagger.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.wordnik.swagger.annotations.ApiModel;
+import com.wordnik.swagger.annotations.ApiModelProperty;
+
+/**
+ * Outcome of a user import. Only a limited number of errors is listed, all of them are counted. An import which stopped before the end of the body
+ * tells why and which line it got to, lines after it were neither imported nor counted.
+ */
+@ApiModel
+public class UserImportReport {
+
+    private long imported;
+
+    private long failed;
+
+    private List<UserImportError> errors = new ArrayList<UserImportError>();
+
+    private long lastLine;
+
+    private String error;
+
+    @ApiModelProperty(required = true, position = 1, value = "number of created users")
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    @ApiModelProperty(required = true, position = 2, value = "number of lines which were not imported")
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    @ApiModelProperty(position = 3, value = "errors of the first lines which were not imported, in the order of lines")
+    public List<UserImportError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<UserImportError> errors) {
+        this.errors = errors;
+    }
+
+    @ApiModelProperty(required = true, position = 4, value = "number of the last line which was imported or failed")
+    public long getLastLine() {
+        return lastLine;
+    }
+
+    public void setLastLine(long lastLine) {
+        this.lastLine = lastLine;
+    }
+
+    @ApiModelProperty(position = 5, value = "reason the import stopped before the end of the body")
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
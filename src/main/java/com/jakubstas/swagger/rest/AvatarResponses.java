@@ -0,0 +1,104 @@
+package com.jakubstas.swagger.rest;
+
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.Response.Status;
+
+import com.google.common.net.HttpHeaders;
+import com.jakubstas.swagger.model.Avatar;
+import com.jakubstas.swagger.rest.io.FileChannelStreamingOutput;
+import com.jakubstas.swagger.service.UserService;
+import com.jakubstas.swagger.service.avatar.AvatarContent;
+
+/**
+ * Builds responses serving opened avatar images, either whole, as a single byte range or downscaled. The content is closed once the response is
+ * written.
+ */
+final class AvatarResponses {
+
+    // representation of an URL addressing the avatar of a user changes with every upload, so caches have to revalidate
+    static final String MUTABLE_CACHE_CONTROL = "no-cache";
+
+    static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private static final int THUMBNAIL_RETRY_AFTER = 1;
+
+    private final Request request;
+
+    private final UserService userService;
+
+    AvatarResponses(final Request request, final UserService userService) {
+        this.request = request;
+        this.userService = userService;
+    }
+
+    Response build(final AvatarContent content, final String cacheControl, final String range, final String ifRange, final Integer size) {
+        final Avatar avatar = content.getAvatar();
+        final EntityTag eTag = size == null ? EntityTags.forAvatar(avatar) : EntityTags.forAvatarThumbnail(avatar, size);
+        final ResponseBuilder notModified = request.evaluatePreconditions(eTag);
+
+        if (notModified != null) {
+            closeQuietly(content);
+            return notModified.tag(eTag).header(HttpHeaders.CACHE_CONTROL, cacheControl).build();
+        }
+
+        if (size != null) {
+            return buildThumbnail(content, size, eTag, cacheControl);
+        }
+
+        final ByteRange byteRange = ifRange == null || EntityTags.matches(ifRange, eTag) ? ByteRange.parse(range, avatar.getSize()) : null;
+
+        if (byteRange != null && !byteRange.isSatisfiable()) {
+            closeQuietly(content);
+            return Response.status(Status.REQUESTED_RANGE_NOT_SATISFIABLE).header(HttpHeaders.CONTENT_RANGE, ByteRange.unsatisfiedContentRange(avatar.getSize()))
+                    .build();
+        }
+
+        final ResponseBuilder response;
+        final long position;
+        final long length;
+
+        if (byteRange == null) {
+            response = Response.status(Status.OK);
+            position = 0;
+            length = avatar.getSize();
+        } else {
+            response = Response.status(Status.PARTIAL_CONTENT).header(HttpHeaders.CONTENT_RANGE, byteRange.toContentRange(avatar.getSize()));
+            position = byteRange.getFirst();
+            length = byteRange.getLength();
+        }
+
+        return response.entity(new FileChannelStreamingOutput(content.getChannel(), position, length)).tag(eTag).header(HttpHeaders.CONTENT_LENGTH, length)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes").header(HttpHeaders.CACHE_CONTROL, cacheControl).build();
+    }
+
+    private Response buildThumbnail(final AvatarContent content, final int size, final EntityTag eTag, final String cacheControl) {
+        try {
+            final byte[] thumbnail = userService.getAvatarThumbnail(content, size);
+
+            return Response.status(Status.OK).entity(thumbnail).tag(eTag).header(HttpHeaders.CACHE_CONTROL, cacheControl).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Status.NOT_ACCEPTABLE).entity(e.getMessage()).build();
+        } catch (RejectedExecutionException e) {
+            return Response.status(Status.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, THUMBNAIL_RETRY_AFTER).entity("Too many avatars are being resized.")
+                    .build();
+        } catch (IOException e) {
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity("Internal server error.").build();
+        } finally {
+            closeQuietly(content);
+        }
+    }
+
+    private void closeQuietly(final AvatarContent content) {
+        try {
+            content.close();
+        } catch (IOException e) {
+            // nothing was read
+        }
+    }
+}
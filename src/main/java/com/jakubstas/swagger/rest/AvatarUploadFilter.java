@@ -0,0 +1,111 @@
+package com.jakubstas.swagger.rest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.inject.Inject;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.Provider;
+
+import com.jakubstas.swagger.service.avatar.AvatarStore;
+
+/**
+ * Rejects avatar uploads declaring a larger body than the avatar store accepts before the body is read. Body of other uploads is counted while
+ * it is read, so an upload without declared length fails as soon as it exceeds the limit, before a multipart body is spooled as a whole.
+ */
+@Provider
+@AvatarUpload
+public class AvatarUploadFilter implements ContainerRequestFilter {
+
+    // allowance for multipart boundaries and part headers
+    private static final long MULTIPART_OVERHEAD = 16 * 1024;
+
+    @Inject
+    private AvatarStore avatarStore;
+
+    @Override
+    public void filter(final ContainerRequestContext requestContext) throws IOException {
+        final long limit = avatarStore.getMaxSize() + MULTIPART_OVERHEAD;
+
+        if (requestContext.getLength() > limit) {
+            requestContext.abortWith(tooLarge(avatarStore.getMaxSize()));
+            return;
+        }
+
+        requestContext.setEntityStream(new LimitedInputStream(requestContext.getEntityStream(), limit, avatarStore.getMaxSize()));
+    }
+
+    static String getTooLargeMessage(final long maxSize) {
+        return "Avatar exceeds maximum size of " + maxSize + " bytes.";
+    }
+
+    private static Response tooLarge(final long maxSize) {
+        return Response.status(Status.REQUEST_ENTITY_TOO_LARGE).entity(getTooLargeMessage(maxSize)).build();
+    }
+
+    /**
+     * Body stream which fails with <code>413 Request Entity Too Large</code> once more than the limit is read from it.
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+
+        private final long maxSize;
+
+        private long count;
+
+        LimitedInputStream(final InputStream in, final long limit, final long maxSize) {
+            super(in);
+            this.limit = limit;
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+
+            if (b != -1) {
+                count(1);
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int read = super.read(b, off, len);
+
+            if (read > 0) {
+                count(read);
+            }
+
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final long skipped = super.skip(n);
+            count(skipped);
+
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void count(final long read) {
+            count += read;
+
+            if (count > limit) {
+                throw new WebApplicationException(tooLarge(maxSize));
+            }
+        }
+    }
+}
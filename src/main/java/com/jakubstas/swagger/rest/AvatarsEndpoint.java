@@ -0,0 +1,77 @@
+package com.jakubstas.swagger.rest;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import com.google.common.net.HttpHeaders;
+import com.jakubstas.swagger.model.AvatarReport;
+import com.jakubstas.swagger.service.UserService;
+import com.jakubstas.swagger.service.avatar.AvatarContent;
+import com.wordnik.swagger.annotations.Api;
+import com.wordnik.swagger.annotations.ApiOperation;
+import com.wordnik.swagger.annotations.ApiParam;
+import com.wordnik.swagger.annotations.ApiResponse;
+import com.wordnik.swagger.annotations.ApiResponses;
+
+/**
+ * REST endpoint for content addressed avatar images.
+ */
+@Api(value = "avatars", description = "Endpoint for avatar images")
+@Path("/avatars")
+public class AvatarsEndpoint {
+
+    @Inject
+    private UserService userService;
+
+    @Context
+    private Request request;
+
+    @GET
+    @Path("/report")
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation(value = "Returns avatar deduplication report", notes = "Shows how much space is saved by storing identical avatars only once", response = AvatarReport.class)
+    @ApiResponses(value = { @ApiResponse(code = 200, message = "Successful retrieval of the report"), @ApiResponse(code = 500, message = "Internal server error") })
+    public Response getReport() {
+        return Response.status(Status.OK).entity(userService.getAvatarReport()).build();
+    }
+
+    @GET
+    @Path("/{hash}")
+    @Produces("image/png")
+    @ApiOperation(value = "Returns avatar image", notes = "Provides means to download avatar image by its content hash. Representations never change and may be cached forever. Supports single byte ranges.")
+    @ApiResponses(value = { @ApiResponse(code = 200, message = "Successful retrieval of avatar image"),
+            @ApiResponse(code = 206, message = "Successful retrieval of requested range of avatar image"),
+            @ApiResponse(code = 304, message = "Avatar was not modified since the entity tag in If-None-Match header was issued"),
+            @ApiResponse(code = 404, message = "Avatar with given hash does not exist"), @ApiResponse(code = 406, message = "Requested size is not supported"),
+            @ApiResponse(code = 416, message = "Requested range is outside of the avatar"), @ApiResponse(code = 500, message = "Internal server error"),
+            @ApiResponse(code = 503, message = "Too many avatars are being resized") })
+    public Response getAvatar(@ApiParam(name = "hash", value = "SHA-256 hash of the image", required = true) @PathParam("hash") String hash,
+            @ApiParam("single byte range to download") @HeaderParam(HttpHeaders.RANGE) String range,
+            @ApiParam("entity tag the range is requested for") @HeaderParam(HttpHeaders.IF_RANGE) String ifRange,
+            @ApiParam("edge of the square the avatar is downscaled to fit in, ranges are not supported for downscaled avatars") @QueryParam("size") Integer size) {
+        final AvatarContent content;
+
+        try {
+            content = userService.openAvatarImage(hash);
+        } catch (NoSuchFileException e) {
+            return Response.status(Status.NOT_FOUND).entity("Avatar with specified hash does not exist.").build();
+        } catch (IOException e) {
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity("Internal server error.").build();
+        }
+
+        return new AvatarResponses(request, userService).build(content, AvatarResponses.IMMUTABLE_CACHE_CONTROL, range, ifRange, size);
+    }
+}
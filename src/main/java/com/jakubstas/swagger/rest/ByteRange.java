@@ -0,0 +1,77 @@
+package com.jakubstas.swagger.rest;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Single byte range requested by the <code>Range</code> header.
+ */
+final class ByteRange {
+
+    private static final Pattern RANGE = Pattern.compile("\\s*bytes\\s*=\\s*(\\d*)\\s*-\\s*(\\d*)\\s*");
+
+    private final long first;
+
+    private final long last;
+
+    private ByteRange(final long first, final long last) {
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * Returns range of content of given size requested by the header, or <code>null</code> if the whole content is to be sent. Malformed headers
+     * and requests for multiple ranges are ignored.
+     */
+    static ByteRange parse(final String range, final long size) {
+        if (range == null) {
+            return null;
+        }
+
+        final Matcher matcher = RANGE.matcher(range);
+
+        if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+            return null;
+        }
+
+        try {
+            if (matcher.group(1).isEmpty()) {
+                // suffix range of the last n bytes
+                final long suffixLength = Long.parseLong(matcher.group(2));
+
+                return suffixLength == 0 ? new ByteRange(size, size - 1) : new ByteRange(Math.max(0, size - suffixLength), size - 1);
+            }
+
+            final long first = Long.parseLong(matcher.group(1));
+            final long last = matcher.group(2).isEmpty() ? size - 1 : Math.min(Long.parseLong(matcher.group(2)), size - 1);
+
+            if (last < first && first < size) {
+                return null;
+            }
+
+            return new ByteRange(first, last);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    boolean isSatisfiable() {
+        return first <= last;
+    }
+
+    long getFirst() {
+        return first;
+    }
+
+    long getLength() {
+        return last - first + 1;
+    }
+
+    String toContentRange(final long size) {
+        return "bytes " + first + "-" + last + "/" + size;
+    }
+
+    static String unsatisfiedContentRange(final long size) {
+        return "bytes */" + size;
+    }
+}
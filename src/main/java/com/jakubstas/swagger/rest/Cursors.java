@@ -0,0 +1,34 @@
+package com.jakubstas.swagger.rest;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.BaseEncoding;
+
+/**
+ * Encoding of opaque paging cursors handed out in <code>next</code> links.
+ */
+final class Cursors {
+
+    private static final BaseEncoding ENCODING = BaseEncoding.base64Url().omitPadding();
+
+    private Cursors() {
+    }
+
+    static String encode(final String key) {
+        return ENCODING.encode(key.getBytes(Charsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor was not issued by this application
+     */
+    static String decode(final String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return new String(ENCODING.decode(cursor), Charsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid paging cursor.", e);
+        }
+    }
+}
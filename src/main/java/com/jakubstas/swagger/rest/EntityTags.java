@@ -0,0 +1,101 @@
+package com.jakubstas.swagger.rest;
+
+import java.security.SecureRandom;
+
+import javax.ws.rs.core.EntityTag;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.jakubstas.swagger.model.Avatar;
+import com.jakubstas.swagger.model.Product;
+import com.jakubstas.swagger.model.User;
+
+/**
+ * Strong entity tags of resources computed without serializing their representations.
+ */
+final class EntityTags {
+
+    /**
+     * Random id of the running application. Revisions of listings restart with the application, the epoch keeps tags issued before a restart from
+     * matching listings of the same revision afterwards.
+     */
+    private static final String EPOCH = Long.toString(new SecureRandom().nextLong() & Long.MAX_VALUE, 36);
+
+    private EntityTags() {
+    }
+
+    static EntityTag forProduct(final Product product) {
+        return new EntityTag("p" + Long.toString(product.getVersion()));
+    }
+
+    /**
+     * Returns product version required by <code>If-Match</code> header value, <code>null</code> if any version is acceptable. Tags not issued for
+     * a product never match and result in version <code>-1</code>.
+     */
+    static Long parseProductVersion(final String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        try {
+            final EntityTag eTag = EntityTag.valueOf(ifMatch.trim());
+
+            if (!eTag.isWeak() && eTag.getValue().startsWith("p")) {
+                return Long.valueOf(eTag.getValue().substring(1));
+            }
+        } catch (IllegalArgumentException e) {
+            // malformed tag can not match
+        }
+
+        return -1L;
+    }
+
+    static EntityTag forUser(final User user) {
+        final Hasher hasher = Hashing.murmur3_128().newHasher();
+
+        putString(hasher, user.getUserName());
+        putString(hasher, user.getFirstName());
+        putString(hasher, user.getSurname());
+        putString(hasher, user.getEmail());
+        hasher.putLong(user.getLastUpdated() == null ? 0 : user.getLastUpdated().getTime());
+
+        return new EntityTag("u" + hasher.hash().toString());
+    }
+
+    static EntityTag forAvatar(final Avatar avatar) {
+        return new EntityTag("a" + avatar.getHash());
+    }
+
+    static EntityTag forAvatarThumbnail(final Avatar avatar, final int size) {
+        return new EntityTag("a" + avatar.getHash() + "-" + Integer.toString(size));
+    }
+
+    /**
+     * Returns whether the header value (e.g. of <code>If-Range</code>) is the given tag using the strong comparison.
+     */
+    static boolean matches(final String header, final EntityTag eTag) {
+        try {
+            final EntityTag headerTag = EntityTag.valueOf(header.trim());
+
+            return !headerTag.isWeak() && !eTag.isWeak() && headerTag.getValue().equals(eTag.getValue());
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns tag of a listing in given representation variant derived from the revision of listed entities and the epoch of the application.
+     */
+    static EntityTag forRevision(final long revision, final String variant) {
+        return new EntityTag(variant + "-" + EPOCH + "-r" + Long.toString(revision));
+    }
+
+    private static void putString(final Hasher hasher, final String value) {
+        if (value == null) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(value.length()).putString(value, Charsets.UTF_8);
+        }
+    }
+}
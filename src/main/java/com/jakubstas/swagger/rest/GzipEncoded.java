@@ -0,0 +1,17 @@
+package com.jakubstas.swagger.rest;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import javax.ws.rs.NameBinding;
+
+/**
+ * Marks resource methods exchanging bodies which may be compressed by gzip, see {@link GzipEncodingInterceptor}.
+ */
+@NameBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@interface GzipEncoded {
+}
@@ -0,0 +1,69 @@
+package com.jakubstas.swagger.rest;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.ReaderInterceptor;
+import javax.ws.rs.ext.ReaderInterceptorContext;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import com.jakubstas.swagger.rest.io.GzipCoding;
+
+/**
+ * Decompresses request bodies declared as gzip encoded and compresses response bodies for clients accepting gzip. Both directions are streamed,
+ * bodies are never held in memory as a whole.
+ */
+@Provider
+@GzipEncoded
+public class GzipEncodingInterceptor implements ReaderInterceptor, WriterInterceptor {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    @Context
+    private HttpHeaders requestHeaders;
+
+    @Override
+    public Object aroundReadFrom(final ReaderInterceptorContext context) throws IOException, WebApplicationException {
+        if (GzipCoding.isGzip(context.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))) {
+            context.getHeaders().remove(HttpHeaders.CONTENT_ENCODING);
+
+            try {
+                context.setInputStream(new GZIPInputStream(context.getInputStream(), BUFFER_SIZE));
+            } catch (ZipException | EOFException e) {
+                throw new WebApplicationException(Response.status(Status.BAD_REQUEST).entity("Body is not a valid gzip stream.").build());
+            }
+        }
+
+        return context.proceed();
+    }
+
+    @Override
+    public void aroundWriteTo(final WriterInterceptorContext context) throws IOException, WebApplicationException {
+        context.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (!GzipCoding.isAccepted(requestHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING))) {
+            context.proceed();
+            return;
+        }
+
+        context.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, GzipCoding.GZIP);
+        context.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+
+        final GZIPOutputStream output = new GZIPOutputStream(context.getOutputStream(), BUFFER_SIZE);
+        context.setOutputStream(output);
+        context.proceed();
+
+        // writes the trailer, the underlying stream is closed by the container
+        output.finish();
+    }
+}
@@ -0,0 +1,96 @@
+package com.jakubstas.swagger.rest;
+
+import javax.inject.Inject;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import com.jakubstas.swagger.metrics.RequestMetrics;
+import com.jakubstas.swagger.metrics.ResourceAccounting;
+import com.jakubstas.swagger.model.MetricsReport;
+import com.jakubstas.swagger.rest.io.PrometheusTextOutput;
+import com.wordnik.swagger.annotations.Api;
+import com.wordnik.swagger.annotations.ApiOperation;
+import com.wordnik.swagger.annotations.ApiParam;
+import com.wordnik.swagger.annotations.ApiResponse;
+import com.wordnik.swagger.annotations.ApiResponses;
+
+/**
+ * REST endpoint exposing latency histograms and resource usage of requests handled by the application.
+ */
+@Api(value = "metrics", description = "Endpoint for request metrics")
+@Path("/metrics")
+public class MetricsEndpoint {
+
+    @Inject
+    private RequestMetrics requestMetrics;
+
+    @Inject
+    private ResourceAccounting resourceAccounting;
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation(
+            value = "Returns request latencies",
+            notes = "Returns latency percentiles in milliseconds of requests handled since the application started, per resource method and status code, split into matching, resource method invocation and entity write phases. Heap allocation and CPU time per resource method are listed for requests handled while accounting was enabled.",
+            response = MetricsReport.class)
+    @ApiResponses(value = { @ApiResponse(code = 200, message = "Successful retrieval of request latencies", response = MetricsReport.class),
+            @ApiResponse(code = 500, message = "Internal server error") })
+    public Response getMetrics() {
+        return Response.ok(requestMetrics.getReport(), MediaType.APPLICATION_JSON_TYPE).cacheControl(getNoCache()).build();
+    }
+
+    @GET
+    @Produces(PrometheusTextOutput.MEDIA_TYPE + ";qs=0.5")
+    @ApiOperation(value = "Returns request latencies for Prometheus", notes = "Returns the same latencies in seconds and resource usage in the Prometheus text exposition format.")
+    @ApiResponses(value = { @ApiResponse(code = 200, message = "Successful retrieval of request latencies"), @ApiResponse(code = 500, message = "Internal server error") })
+    public Response getPrometheusMetrics() {
+        return Response.ok(new PrometheusTextOutput(requestMetrics.getReport()), PrometheusTextOutput.MEDIA_TYPE).cacheControl(getNoCache()).build();
+    }
+
+    @GET
+    @Path("/accounting")
+    @Produces(MediaType.TEXT_PLAIN)
+    @ApiOperation(value = "Returns whether resource usage is accounted", notes = "Returns true if heap allocation and CPU time of requests is being accounted, false otherwise.")
+    @ApiResponses(value = { @ApiResponse(code = 200, message = "Successful retrieval of the accounting switch"), @ApiResponse(code = 500, message = "Internal server error") })
+    public Response getAccounting() {
+        return Response.ok(Boolean.toString(resourceAccounting.isEnabled()), MediaType.TEXT_PLAIN_TYPE).cacheControl(getNoCache()).build();
+    }
+
+    @PUT
+    @Path("/accounting")
+    @Consumes(MediaType.TEXT_PLAIN)
+    @ApiOperation(
+            value = "Switches accounting of resource usage",
+            notes = "Enables or disables sampling of heap allocation and CPU time of request threads around resource methods and entity writes. The switch applies to requests started after it and is not persisted across restarts.")
+    @ApiResponses(value = { @ApiResponse(code = 204, message = "Accounting was switched"), @ApiResponse(code = 400, message = "Body is neither true nor false"),
+            @ApiResponse(code = 501, message = "Accounting is not supported by the JVM"), @ApiResponse(code = 500, message = "Internal server error") })
+    public Response setAccounting(@ApiParam(name = "enabled", value = "true or false", required = true) String enabled) {
+        final String value = enabled == null ? "" : enabled.trim();
+
+        if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+            return Response.status(Status.BAD_REQUEST).entity("Invalid switch! Body must be either true or false.").build();
+        }
+
+        try {
+            resourceAccounting.setEnabled(Boolean.parseBoolean(value));
+        } catch (UnsupportedOperationException e) {
+            return Response.status(Status.NOT_IMPLEMENTED).entity(e.getMessage()).build();
+        }
+
+        return Response.noContent().build();
+    }
+
+    private static CacheControl getNoCache() {
+        final CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoCache(true);
+
+        return cacheControl;
+    }
+}
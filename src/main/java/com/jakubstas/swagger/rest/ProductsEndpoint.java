@@ -1,21 +1,33 @@
 package com.jakubstas.swagger.rest;
 
+import java.io.IOException;
 import java.net.URI;
+import java.util.Date;
+import java.util.concurrent.Callable;
 
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.OPTIONS;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.Link;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
@@ -23,11 +35,17 @@ import javax.ws.rs.core.UriInfo;
 import org.springframework.web.bind.annotation.RequestMethod;
 
 import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
 import com.google.common.net.HttpHeaders;
 import com.jakubstas.swagger.model.Product;
+import com.jakubstas.swagger.model.ProductBatch;
+import com.jakubstas.swagger.model.ProductBatchResult;
 import com.jakubstas.swagger.model.ProductList;
+import com.jakubstas.swagger.rest.io.StreamingProductList;
 import com.jakubstas.swagger.service.EntityAlreadyExistsException;
 import com.jakubstas.swagger.service.EntityNotFoundException;
+import com.jakubstas.swagger.service.EntityVersionMismatchException;
+import com.jakubstas.swagger.service.Page;
 import com.jakubstas.swagger.service.ProductService;
 import com.wordnik.swagger.annotations.Api;
 import com.wordnik.swagger.annotations.ApiOperation;
@@ -42,9 +60,18 @@ public class ProductsEndpoint {
     @Inject
     private ProductService productService;
 
+    @Inject
+    private RequestExecutors executors;
+
     @Context
     private UriInfo uriInfo;
 
+    @Context
+    private Request request;
+
+    @Context
+    private ContainerRequestContext requestContext;
+
     @OPTIONS
     @ApiOperation(
             value = "Returns resource options",
@@ -59,10 +86,47 @@ public class ProductsEndpoint {
 
     @GET
     @Produces(MediaType.APPLICATION_XML)
-    @ApiOperation(value = "Returns all products", notes = "Returns a complete list of products from catalog.")
-    @ApiResponses(value = { @ApiResponse(code = 200, message = "Successful retrieval of all products"), @ApiResponse(code = 500, message = "Internal server error") })
-    public Response getProducts() {
-        return Response.ok(new ProductList(productService.getAll())).build();
+    @ApiOperation(
+            value = "Returns all products",
+            notes = "Returns a page of products from catalog ordered by product code. Following page is linked in Link header with relation 'next'. Complete catalog following the cursor is streamed in the same format without the size attribute when stream=true.",
+            response = ProductList.class)
+    @ApiResponses(value = { @ApiResponse(code = 200, message = "Successful retrieval of all products"), @ApiResponse(code = 304, message = "Catalog was not modified since the last retrieval"),
+            @ApiResponse(code = 406, message = "Malformed paging parameters"), @ApiResponse(code = 500, message = "Internal server error"),
+            @ApiResponse(code = 503, message = "Server is busy or the request timed out in the queue") })
+    public void getProducts(@ApiParam(access = "hidden") @Suspended final AsyncResponse asyncResponse,
+            @ApiParam(value = "Maximum number of products on a page", allowableValues = "range[1,1000]") @QueryParam("limit") @DefaultValue("100") final int limit,
+            @ApiParam(value = "Opaque cursor taken from the 'next' link of previous page") @QueryParam("cursor") final String cursor,
+            @ApiParam(value = "Streams complete catalog following the cursor instead of a single page") @QueryParam("stream") @DefaultValue("false") final boolean stream) {
+        executors.execute(Workload.BULK, requestContext, asyncResponse, new Callable<Response>() {
+
+            @Override
+            public Response call() {
+                return getProducts(limit, cursor, stream);
+            }
+        });
+    }
+
+    private Response getProducts(final int limit, final String cursor, final boolean stream) {
+        try {
+            final String afterCode = Cursors.decode(cursor);
+            final EntityTag eTag = EntityTags.forRevision(productService.getRevision(), stream ? "products-stream" : "products");
+            final Date lastModified = productService.getLastModified();
+            final ResponseBuilder notModified = request.evaluatePreconditions(lastModified, eTag);
+
+            if (notModified != null) {
+                return notModified.build();
+            }
+
+            if (stream) {
+                return Response.ok(new StreamingProductList(productService.getAll(afterCode))).tag(eTag).lastModified(lastModified).build();
+            }
+
+            final Page<Product> page = productService.getPage(afterCode, limit);
+
+            return Response.ok(new ProductList(page.getItems())).tag(eTag).lastModified(lastModified).links(getPageLinks(page, limit)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Status.NOT_ACCEPTABLE).entity(e.getMessage()).build();
+        }
     }
 
     @POST
@@ -70,16 +134,119 @@ public class ProductsEndpoint {
     @Produces(MediaType.APPLICATION_XML)
     @ApiOperation(value = "Creates a product", notes = "Creates a product and puts it in the catalog.")
     @ApiResponses(value = { @ApiResponse(code = 201, message = "Successful catalogization of new product"), @ApiResponse(code = 406, message = "Malformed definition of new product"),
-            @ApiResponse(code = 409, message = "Product with specified code already exists"), @ApiResponse(code = 500, message = "Internal server error") })
-    public Response createProduct(@ApiParam(name = "product", required = true) Product product) {
+            @ApiResponse(code = 409, message = "Product with specified code already exists"), @ApiResponse(code = 500, message = "Internal server error"),
+            @ApiResponse(code = 503, message = "Server is busy or the request timed out in the queue") })
+    public void createProduct(@ApiParam(access = "hidden") @Suspended final AsyncResponse asyncResponse,
+            @ApiParam(name = "product", required = true) final Product product) {
+        executors.execute(Workload.LOOKUP, requestContext, asyncResponse, new Callable<Response>() {
+
+            @Override
+            public Response call() {
+                return createProduct(product);
+            }
+        });
+    }
+
+    private Response createProduct(final Product product) {
         try {
             final Product newProduct = productService.createProduct(product);
 
-            return Response.status(Status.CREATED).entity(newProduct).location(getLocation(newProduct)).links(getProductLinks(newProduct.getCode())).build();
+            return Response.status(Status.CREATED).entity(newProduct).tag(EntityTags.forProduct(newProduct)).location(getLocation(newProduct)).links(getProductLinks(newProduct.getCode())).build();
         } catch (EntityAlreadyExistsException e) {
             return Response.status(Status.CONFLICT).entity("Specified productCode is already taken.").build();
         } catch (IllegalArgumentException e) {
             return Response.status(Status.NOT_ACCEPTABLE).entity(e.getMessage()).build();
+        } catch (IOException e) {
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity("Internal server error.").build();
+        }
+    }
+
+    /**
+     * Applies a batch of catalog changes and reports outcome of every operation.
+     */
+    @POST
+    @Path("/batch")
+    @Consumes({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+    @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON + ";qs=0.5" })
+    @ApiOperation(
+            value = "Applies a batch of changes",
+            notes = "Creates, updates and deletes products in the order of operations in the batch and reports outcome of each of them. Atomic batch is applied only if all of its operations succeed.",
+            response = ProductBatchResult.class)
+    @ApiResponses(value = { @ApiResponse(code = 200, message = "Batch was processed, outcomes of single operations are reported"),
+            @ApiResponse(code = 406, message = "Malformed batch"), @ApiResponse(code = 409, message = "Atomic batch was not applied because some operations failed"),
+            @ApiResponse(code = 500, message = "Internal server error"),
+            @ApiResponse(code = 503, message = "Server is busy or the request timed out in the queue") })
+    public void applyBatch(@ApiParam(access = "hidden") @Suspended final AsyncResponse asyncResponse,
+            @ApiParam(name = "batch", required = true) final ProductBatch batch) {
+        executors.execute(Workload.BULK, requestContext, asyncResponse, new Callable<Response>() {
+
+            @Override
+            public Response call() {
+                return applyBatch(batch);
+            }
+        });
+    }
+
+    private Response applyBatch(final ProductBatch batch) {
+        try {
+            Preconditions.checkArgument(batch != null, "Invalid batch! Batch contains no operations.");
+
+            final ProductBatchResult result = productService.applyBatch(batch.getOperations(), batch.isAtomic());
+            final Status status = result.isApplied() || !batch.isAtomic() ? Status.OK : Status.CONFLICT;
+
+            return Response.status(status).entity(result).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Status.NOT_ACCEPTABLE).entity(e.getMessage()).build();
+        } catch (IOException e) {
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity("Internal server error.").build();
+        }
+    }
+
+    /**
+     * Searches the catalog for products containing words of the query. Link to the following page of results is provided in <code>Link</code>
+     * header with relation <code>next</code>.
+     */
+    @GET
+    @Path("/search")
+    @Produces(MediaType.APPLICATION_XML)
+    @ApiOperation(
+            value = "Searches products",
+            notes = "Returns a page of products containing any word of the query in their name or description, best matches first. Words in the name weigh more than words in the description. Following page is linked in Link header with relation 'next'.",
+            response = ProductList.class)
+    @ApiResponses(value = { @ApiResponse(code = 200, message = "Successful search of products"), @ApiResponse(code = 304, message = "Catalog was not modified since the last retrieval"),
+            @ApiResponse(code = 406, message = "Malformed query or paging parameters"), @ApiResponse(code = 500, message = "Internal server error"),
+            @ApiResponse(code = 503, message = "Server is busy or the request timed out in the queue") })
+    public void searchProducts(@ApiParam(access = "hidden") @Suspended final AsyncResponse asyncResponse,
+            @ApiParam(value = "Words to search for", required = true) @QueryParam("q") final String query,
+            @ApiParam(value = "Maximum number of products on a page", allowableValues = "range[1,1000]") @QueryParam("limit") @DefaultValue("20") final int limit,
+            @ApiParam(value = "Opaque cursor taken from the 'next' link of previous page") @QueryParam("cursor") final String cursor) {
+        executors.execute(Workload.LOOKUP, requestContext, asyncResponse, new Callable<Response>() {
+
+            @Override
+            public Response call() {
+                return searchProducts(query, limit, cursor);
+            }
+        });
+    }
+
+    private Response searchProducts(final String query, final int limit, final String cursor) {
+        try {
+            final int offset = parsePosition(Cursors.decode(cursor));
+            final EntityTag eTag = EntityTags.forRevision(productService.getRevision(), "products-search");
+            final Date lastModified = productService.getLastModified();
+            final ResponseBuilder notModified = request.evaluatePreconditions(lastModified, eTag);
+
+            if (notModified != null) {
+                return notModified.build();
+            }
+
+            final Page<Product> page = productService.search(query, offset, limit);
+            final Link[] links = page.hasNext() ? new Link[] { Link.fromUri("products/search?q={q}&limit={limit}&cursor={cursor}").rel("next")
+                    .type(MediaType.APPLICATION_XML).build(query, limit, Cursors.encode(page.getLastKey())) } : new Link[0];
+
+            return Response.ok(new ProductList(page.getItems())).tag(eTag).lastModified(lastModified).links(links).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Status.NOT_ACCEPTABLE).entity(e.getMessage()).build();
         }
     }
 
@@ -100,15 +267,34 @@ public class ProductsEndpoint {
     @Path("/{productCode}")
     @Produces(MediaType.APPLICATION_XML)
     @ApiOperation(value = "Returns product details", notes = "This method provides detailed product description.")
-    @ApiResponses(value = { @ApiResponse(code = 200, message = "Successful retrieval of product details"), @ApiResponse(code = 404, message = "Product with given code does not exists"),
-            @ApiResponse(code = 500, message = "Internal server error") })
-    public Response getProduct(@ApiParam("product identifier") @PathParam("productCode") String productCode) {
+    @ApiResponses(value = { @ApiResponse(code = 200, message = "Successful retrieval of product details"), @ApiResponse(code = 304, message = "Product was not modified since the last retrieval"),
+            @ApiResponse(code = 404, message = "Product with given code does not exists"), @ApiResponse(code = 500, message = "Internal server error"),
+            @ApiResponse(code = 503, message = "Server is busy or the request timed out in the queue") })
+    public void getProduct(@ApiParam(access = "hidden") @Suspended final AsyncResponse asyncResponse,
+            @ApiParam("product identifier") @PathParam("productCode") final String productCode) {
+        executors.execute(Workload.LOOKUP, requestContext, asyncResponse, new Callable<Response>() {
+
+            @Override
+            public Response call() {
+                return getProduct(productCode);
+            }
+        });
+    }
+
+    private Response getProduct(final String productCode) {
         final Product product = productService.findByCode(productCode);
 
         if (product == null) {
             return Response.status(Status.NOT_FOUND).entity("Product with given code does not exists").links(Link.fromUri("products").rel("create").type(MediaType.APPLICATION_XML).build(productCode)).build();
         } else {
-            return Response.status(Status.OK).entity(product).links(getProductLinks(productCode)).build();
+            final EntityTag eTag = EntityTags.forProduct(product);
+            final ResponseBuilder notModified = request.evaluatePreconditions(product.getLastUpdated(), eTag);
+
+            if (notModified != null) {
+                return notModified.build();
+            }
+
+            return Response.status(Status.OK).entity(product).tag(eTag).lastModified(product.getLastUpdated()).links(getProductLinks(productCode)).build();
         }
     }
 
@@ -116,35 +302,95 @@ public class ProductsEndpoint {
     @Path("/{productCode}")
     @Consumes(MediaType.APPLICATION_XML)
     @Produces(MediaType.APPLICATION_XML)
-    @ApiOperation(value = "Updates product details", notes = "Updates a product from the catalog.")
+    @ApiOperation(value = "Updates product details", notes = "Updates a product from the catalog. Update is applied only if the product still matches the entity tag in If-Match header, a missing product matches no entity tag.")
     @ApiResponses(value = { @ApiResponse(code = 200, message = "Successful update of product details"), @ApiResponse(code = 404, message = "Product with given code does not exists"),
-            @ApiResponse(code = 500, message = "Internal server error") })
-    public Response updateProduct(@ApiParam("product identifier") @PathParam("productCode") String productCode, @ApiParam(name = "product", required = true) Product product) {
+            @ApiResponse(code = 412, message = "Product was modified since the entity tag in If-Match header was issued or it does not exist"), @ApiResponse(code = 500, message = "Internal server error"),
+            @ApiResponse(code = 503, message = "Server is busy or the request timed out in the queue") })
+    public void updateProduct(@ApiParam(access = "hidden") @Suspended final AsyncResponse asyncResponse,
+            @ApiParam("product identifier") @PathParam("productCode") final String productCode,
+            @ApiParam(name = "product", required = true) final Product product,
+            @ApiParam("entity tag of the product version being updated") @HeaderParam(HttpHeaders.IF_MATCH) final String ifMatch) {
+        executors.execute(Workload.LOOKUP, requestContext, asyncResponse, new Callable<Response>() {
+
+            @Override
+            public Response call() {
+                return updateProduct(productCode, product, ifMatch);
+            }
+        });
+    }
+
+    private Response updateProduct(final String productCode, final Product product, final String ifMatch) {
         try {
-            final Product updatedProduct = productService.updateProduct(productCode, product);
+            final Product updatedProduct = productService.updateProduct(productCode, product, EntityTags.parseProductVersion(ifMatch));
 
-            return Response.status(Status.OK).entity(updatedProduct).links(getProductLinks(productCode)).build();
+            return Response.status(Status.OK).entity(updatedProduct).tag(EntityTags.forProduct(updatedProduct)).lastModified(updatedProduct.getLastUpdated())
+                    .links(getProductLinks(productCode)).build();
         } catch (EntityNotFoundException e) {
+            // If-Match, even "*", can not match a missing product
+            if (ifMatch != null) {
+                return preconditionFailed(productCode);
+            }
+
             return Response.status(Status.NOT_FOUND).entity("Product with given code does not exists").links(Link.fromUri("products").rel("create").type(MediaType.APPLICATION_XML).build()).build();
+        } catch (EntityVersionMismatchException e) {
+            return preconditionFailed(productCode);
         } catch (IllegalArgumentException e) {
             return Response.status(Status.NOT_ACCEPTABLE).entity(e.getMessage()).build();
+        } catch (IOException e) {
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity("Internal server error.").build();
         }
     }
 
     @DELETE
     @Path("/{productCode}")
     @Produces(MediaType.APPLICATION_XML)
-    @ApiOperation(value = "Deletes a product", notes = "Deletes a product and removes it from the catalog.")
+    @ApiOperation(value = "Deletes a product", notes = "Deletes a product and removes it from the catalog. Product is deleted only if it still matches the entity tag in If-Match header, a missing product matches no entity tag.")
     @ApiResponses(value = { @ApiResponse(code = 200, message = "Successful removal of product details"), @ApiResponse(code = 404, message = "Product with given code does not exists"),
-            @ApiResponse(code = 500, message = "Internal server error") })
-    public Response deleteProduct(@ApiParam("product identifier") @PathParam("productCode") String productCode) {
+            @ApiResponse(code = 412, message = "Product was modified since the entity tag in If-Match header was issued or it does not exist"), @ApiResponse(code = 500, message = "Internal server error"),
+            @ApiResponse(code = 503, message = "Server is busy or the request timed out in the queue") })
+    public void deleteProduct(@ApiParam(access = "hidden") @Suspended final AsyncResponse asyncResponse,
+            @ApiParam("product identifier") @PathParam("productCode") final String productCode,
+            @ApiParam("entity tag of the product version being deleted") @HeaderParam(HttpHeaders.IF_MATCH) final String ifMatch) {
+        executors.execute(Workload.LOOKUP, requestContext, asyncResponse, new Callable<Response>() {
+
+            @Override
+            public Response call() {
+                return deleteProduct(productCode, ifMatch);
+            }
+        });
+    }
+
+    private Response deleteProduct(final String productCode, final String ifMatch) {
         try {
-            final Product deletedProduct = productService.deleteProduct(productCode);
+            final Product deletedProduct = productService.deleteProduct(productCode, EntityTags.parseProductVersion(ifMatch));
 
             return Response.status(Status.OK).entity(deletedProduct).build();
         } catch (EntityNotFoundException e) {
+            // If-Match, even "*", can not match a missing product
+            if (ifMatch != null) {
+                return preconditionFailed(productCode);
+            }
+
             return Response.status(Status.NOT_FOUND).entity("Product with given code does not exists").links(Link.fromUri("products").rel("create").type(MediaType.APPLICATION_XML).build()).build();
+        } catch (EntityVersionMismatchException e) {
+            return preconditionFailed(productCode);
+        } catch (IOException e) {
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity("Internal server error.").build();
+        }
+    }
+
+    /**
+     * Tags the response with the current version of the product, so the client can retry against it without fetching the product first.
+     */
+    private Response preconditionFailed(final String productCode) {
+        final Product current = productService.findByCode(productCode);
+
+        if (current == null) {
+            return Response.status(Status.PRECONDITION_FAILED).entity("Product with given code does not exists").build();
         }
+
+        return Response.status(Status.PRECONDITION_FAILED).entity("Product was modified by another request").tag(EntityTags.forProduct(current))
+                .lastModified(current.getLastUpdated()).build();
     }
 
     private Link[] getProductLinks(final String productCode) {
@@ -156,6 +402,26 @@ public class ProductsEndpoint {
         return links;
     }
 
+    private Link[] getPageLinks(final Page<Product> page, final int limit) {
+        if (!page.hasNext()) {
+            return new Link[0];
+        }
+
+        return new Link[] { Link.fromUri("products?limit={limit}&cursor={cursor}").rel("next").type(MediaType.APPLICATION_XML).build(limit, Cursors.encode(page.getLastKey())) };
+    }
+
+    private int parsePosition(final String position) {
+        if (position == null) {
+            return 0;
+        }
+
+        try {
+            return Integer.parseInt(position);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid paging cursor.", e);
+        }
+    }
+
     private URI getLocation(final Product product) {
         return UriBuilder.fromUri("products/{productCode}").build(product.getCode());
     }
@@ -0,0 +1,195 @@
+package com.jakubstas.swagger.rest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.base.Preconditions;
+import com.google.common.net.HttpHeaders;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jakubstas.swagger.metrics.ResourceAccounting;
+import com.jakubstas.swagger.metrics.ResourceMethodExecution;
+
+/**
+ * Executes suspended requests by a bounded executor of their {@link Workload}, so slow requests of one kind do not hold container threads nor
+ * delay requests of the other kinds. A request which does not fit into the queue of its executor is rejected right away and a request which waits
+ * in the queue longer than the timeout is dropped from it, both answered with <code>503 Service Unavailable</code> and <code>Retry-After</code>.
+ * A request which already started is never answered by timeout, it may have changed state a retry would change again, so it is answered once
+ * it finishes.
+ * <p>
+ * Threads, queue size and timeout in milliseconds of each executor are configured in <code>executors.properties</code>. Unless
+ * <code>executors.async</code> is enabled, requests are executed on the container thread as they arrive.
+ * <p>
+ * The executing thread times and accounts the task as the {@link ResourceMethodExecution} of the request, the resource method itself returns
+ * right after the hand over.
+ */
+@Component
+public class RequestExecutors {
+
+    @Inject
+    private ResourceAccounting resourceAccounting;
+
+    @Value("${executors.async}")
+    private boolean async;
+
+    @Value("${executors.retryAfter}")
+    private int retryAfter;
+
+    @Value("${executors.lookup.threads}")
+    private int lookupThreads;
+
+    @Value("${executors.lookup.queueSize}")
+    private int lookupQueueSize;
+
+    @Value("${executors.lookup.timeout}")
+    private long lookupTimeout;
+
+    @Value("${executors.bulk.threads}")
+    private int bulkThreads;
+
+    @Value("${executors.bulk.queueSize}")
+    private int bulkQueueSize;
+
+    @Value("${executors.bulk.timeout}")
+    private long bulkTimeout;
+
+    @Value("${executors.avatar.threads}")
+    private int avatarThreads;
+
+    @Value("${executors.avatar.queueSize}")
+    private int avatarQueueSize;
+
+    @Value("${executors.avatar.timeout}")
+    private long avatarTimeout;
+
+    private final Map<Workload, ThreadPoolExecutor> executors = new EnumMap<Workload, ThreadPoolExecutor>(Workload.class);
+
+    private final Map<Workload, Long> timeouts = new EnumMap<Workload, Long>(Workload.class);
+
+    private final Logger log = LoggerFactory.getLogger(RequestExecutors.class);
+
+    @PostConstruct
+    public void init() {
+        if (async) {
+            createExecutor(Workload.LOOKUP, lookupThreads, lookupQueueSize, lookupTimeout);
+            createExecutor(Workload.BULK, bulkThreads, bulkQueueSize, bulkTimeout);
+            createExecutor(Workload.AVATAR, avatarThreads, avatarQueueSize, avatarTimeout);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        for (final ThreadPoolExecutor executor : executors.values()) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Resumes the suspended request with the response of the task once the executor of the workload gets to it. A task which throws an exception
+     * resumes the request with the exception.
+     */
+    public void execute(final Workload workload, final ContainerRequestContext requestContext, final AsyncResponse asyncResponse,
+            final Callable<Response> task) {
+        final ResourceMethodExecution metrics = new ResourceMethodExecution(resourceAccounting);
+        requestContext.setProperty(ResourceMethodExecution.PROPERTY, metrics);
+
+        final FutureTask<Void> execution = new FutureTask<Void>(new Runnable() {
+
+            @Override
+            public void run() {
+                resume(asyncResponse, task, metrics);
+            }
+        }, null);
+
+        if (!async) {
+            execution.run();
+            return;
+        }
+
+        final long timeout = timeouts.get(workload);
+
+        asyncResponse.setTimeoutHandler(new TimeoutHandler() {
+
+            @Override
+            public void handleTimeout(final AsyncResponse asyncResponse) {
+                // only a request which never started can be retried safely
+                if (execution.cancel(false)) {
+                    asyncResponse.resume(serviceUnavailable("Request timed out in the queue, retry later."));
+                    return;
+                }
+
+                try {
+                    asyncResponse.setTimeout(timeout, TimeUnit.MILLISECONDS);
+                } catch (IllegalStateException e) {
+                    // resumed by the task meanwhile
+                }
+            }
+        });
+        asyncResponse.setTimeout(timeout, TimeUnit.MILLISECONDS);
+
+        try {
+            executors.get(workload).execute(execution);
+        } catch (RejectedExecutionException e) {
+            asyncResponse.resume(serviceUnavailable("Server is busy, retry later."));
+        }
+    }
+
+    private void createExecutor(final Workload workload, final int threads, final int queueSize, final long timeout) {
+        final String name = workload.name().toLowerCase();
+
+        Preconditions.checkArgument(threads > 0 && queueSize > 0, "Executor of " + name + " requests needs at least one thread and one queued request");
+        Preconditions.checkArgument(timeout > 0, "Timeout of " + name + " requests must be positive");
+
+        executors.put(workload, new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queueSize),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("request-" + name + "-%d").build()));
+        timeouts.put(workload, timeout);
+    }
+
+    private void resume(final AsyncResponse asyncResponse, final Callable<Response> task, final ResourceMethodExecution metrics) {
+        final Response response;
+
+        metrics.start();
+        try {
+            response = task.call();
+        } catch (Exception e) {
+            metrics.finish();
+            asyncResponse.resume(e);
+            return;
+        }
+        metrics.finish();
+
+        // the response is not written if the request is gone already, release what its entity holds
+        if (!asyncResponse.resume(response) && response.getEntity() instanceof Closeable) {
+            try {
+                ((Closeable) response.getEntity()).close();
+            } catch (IOException e) {
+                log.warn("Could not close entity of an abandoned response", e);
+            }
+        }
+    }
+
+    private Response serviceUnavailable(final String message) {
+        return Response.status(Status.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, retryAfter).entity(message).build();
+    }
+}
@@ -1,22 +1,39 @@
 package com.jakubstas.swagger.rest;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.zip.ZipException;
 
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.OPTIONS;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.Link;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
@@ -25,12 +42,24 @@ import org.glassfish.jersey.media.multipart.FormDataParam;
 import org.springframework.web.bind.annotation.RequestMethod;
 
 import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
 import com.google.common.net.HttpHeaders;
 import com.jakubstas.swagger.model.User;
+import com.jakubstas.swagger.model.UserImportError;
+import com.jakubstas.swagger.model.UserImportReport;
 import com.jakubstas.swagger.model.UserList;
+import com.jakubstas.swagger.rest.io.MediaTypes;
+import com.jakubstas.swagger.rest.io.NdjsonReader;
+import com.jakubstas.swagger.rest.io.NdjsonStreamingOutput;
+import com.jakubstas.swagger.rest.io.UserListStreamingOutput;
+import com.jakubstas.swagger.service.AvatarTooLargeException;
+import com.jakubstas.swagger.service.EmailAlreadyRegisteredException;
 import com.jakubstas.swagger.service.EntityAlreadyExistsException;
 import com.jakubstas.swagger.service.EntityNotFoundException;
+import com.jakubstas.swagger.service.Page;
+import com.jakubstas.swagger.service.UnsupportedAvatarFormatException;
 import com.jakubstas.swagger.service.UserService;
+import com.jakubstas.swagger.service.avatar.AvatarContent;
 import com.wordnik.swagger.annotations.Api;
 import com.wordnik.swagger.annotations.ApiImplicitParam;
 import com.wordnik.swagger.annotations.ApiImplicitParams;
@@ -46,12 +75,27 @@ import com.wordnik.swagger.annotations.ApiResponses;
 @Path("/users")
 public class UsersEndpoint {
 
+    private static final int IMPORT_BATCH_SIZE = 1000;
+
+    private static final int MAX_IMPORT_LINE_LENGTH = 64 * 1024;
+
+    private static final int MAX_REPORTED_IMPORT_ERRORS = 1000;
+
     @Inject
     private UserService userService;
 
+    @Inject
+    private RequestExecutors executors;
+
     @Context
     private UriInfo uriInfo;
 
+    @Context
+    private Request request;
+
+    @Context
+    private ContainerRequestContext requestContext;
+
     @OPTIONS
     @ApiOperation(
             value = "Returns resource options",
@@ -65,16 +109,126 @@ public class UsersEndpoint {
     }
 
     /**
-     * Returns a complete list of users registered within application.
+     * Returns a page of users registered within application. Link to the following page is provided in <code>Link</code> header with relation
+     * <code>next</code>. Complete listing is streamed without paging if requested. Users can be looked up by email address or by a prefix of their
+     * names instead.
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    @ApiOperation(value = "Returns all users", notes = "Returns a complete list of users registered within application.", response = UserList.class)
-    @ApiResponses(value = { @ApiResponse(code = 200, message = "Successful retrieval of all users", response = UserList.class), @ApiResponse(code = 500, message = "Internal server error") })
-    public Response getUsers() {
-        final UserList users = new UserList(userService.getAll());
+    @ApiOperation(
+            value = "Returns all users",
+            notes = "Returns a page of users registered within application ordered by username. Following page is linked in Link header with relation 'next'. Complete listing is streamed in the same format when stream=true. When email is given, only the user registered with the address is returned. When namePrefix is given, users whose first name or surname starts with the prefix are returned in pages ordered by the matching name.",
+            response = UserList.class)
+    @ApiResponses(value = { @ApiResponse(code = 200, message = "Successful retrieval of all users", response = UserList.class),
+            @ApiResponse(code = 304, message = "Users were not modified since the last retrieval"), @ApiResponse(code = 406, message = "Malformed paging parameters"),
+            @ApiResponse(code = 500, message = "Internal server error"),
+            @ApiResponse(code = 503, message = "Server is busy or the request timed out in the queue") })
+    public void getUsers(@ApiParam(access = "hidden") @Suspended final AsyncResponse asyncResponse,
+            @ApiParam(value = "Maximum number of users on a page", allowableValues = "range[1,1000]") @QueryParam("limit") @DefaultValue("100") final int limit,
+            @ApiParam(value = "Opaque cursor taken from the 'next' link of previous page") @QueryParam("cursor") final String cursor,
+            @ApiParam(value = "Streams all users following the cursor instead of a single page") @QueryParam("stream") @DefaultValue("false") final boolean stream,
+            @ApiParam(value = "Email address of the user to look up, compared case insensitively") @QueryParam("email") final String email,
+            @ApiParam(value = "Prefix of first name or surname of users to look up, compared case insensitively") @QueryParam("namePrefix") final String namePrefix) {
+        executors.execute(Workload.BULK, requestContext, asyncResponse, new Callable<Response>() {
+
+            @Override
+            public Response call() {
+                return getUsers(limit, cursor, stream, email, namePrefix);
+            }
+        });
+    }
+
+    private Response getUsers(final int limit, final String cursor, final boolean stream, final String email, final String namePrefix) {
+        try {
+            if (email != null || namePrefix != null) {
+                return findUsers(email, namePrefix, limit, cursor, stream);
+            }
+
+            final String afterUserName = Cursors.decode(cursor);
+            final EntityTag eTag = EntityTags.forRevision(userService.getRevision(), stream ? "users-stream" : "users");
+            final Date lastModified = userService.getLastModified();
+            final ResponseBuilder notModified = request.evaluatePreconditions(lastModified, eTag);
+
+            if (notModified != null) {
+                return notModified.build();
+            }
+
+            if (stream) {
+                return Response.ok(new UserListStreamingOutput(userService.getAll(afterUserName)), MediaType.APPLICATION_JSON_TYPE).tag(eTag).lastModified(lastModified).build();
+            }
+
+            final Page<User> page = userService.getPage(afterUserName, limit);
+            final UserList users = new UserList(page.getItems());
+
+            return Response.ok(users, MediaType.APPLICATION_JSON_TYPE).tag(eTag).lastModified(lastModified).links(getPageLinks(page, limit)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Status.NOT_ACCEPTABLE).entity(e.getMessage()).build();
+        }
+    }
+
+    private Response findUsers(final String email, final String namePrefix, final int limit, final String cursor, final boolean stream) {
+        Preconditions.checkArgument(email == null || namePrefix == null, "Invalid lookup! Users can be looked up either by email or by name prefix.");
+        Preconditions.checkArgument(!stream, "Invalid lookup! Results of a lookup can not be streamed.");
+
+        final EntityTag eTag = EntityTags.forRevision(userService.getRevision(), email != null ? "users-email" : "users-name");
+        final Date lastModified = userService.getLastModified();
+        final ResponseBuilder notModified = request.evaluatePreconditions(lastModified, eTag);
+
+        if (notModified != null) {
+            return notModified.build();
+        }
+
+        if (email != null) {
+            final User user = userService.findByEmail(email);
+            final UserList users = new UserList(user == null ? Collections.<User> emptyList() : Collections.singletonList(user));
+
+            return Response.ok(users, MediaType.APPLICATION_JSON_TYPE).tag(eTag).lastModified(lastModified).build();
+        }
+
+        final Page<User> page = userService.findByNamePrefix(namePrefix, Cursors.decode(cursor), limit);
+        final UserList users = new UserList(page.getItems());
+        final Link[] links = page.hasNext() ? new Link[] { Link.fromUri("users?namePrefix={namePrefix}&limit={limit}&cursor={cursor}").rel("next")
+                .type(MediaType.APPLICATION_JSON).build(namePrefix, limit, Cursors.encode(page.getLastKey())) } : new Link[0];
+
+        return Response.ok(users, MediaType.APPLICATION_JSON_TYPE).tag(eTag).lastModified(lastModified).links(links).build();
+    }
+
+    /**
+     * Streams all users registered within application as newline delimited JSON.
+     */
+    @GET
+    @Produces(MediaTypes.APPLICATION_NDJSON + ";qs=0.5")
+    @ApiOperation(value = "Streams all users", notes = "Streams all users registered within application ordered by username as newline delimited JSON, one user per line.", response = User.class)
+    @ApiResponses(value = { @ApiResponse(code = 200, message = "Successful retrieval of all users", response = User.class),
+            @ApiResponse(code = 304, message = "Users were not modified since the last retrieval"), @ApiResponse(code = 406, message = "Malformed cursor"),
+            @ApiResponse(code = 500, message = "Internal server error"),
+            @ApiResponse(code = 503, message = "Server is busy or the request timed out in the queue") })
+    public void streamUsers(@ApiParam(access = "hidden") @Suspended final AsyncResponse asyncResponse,
+            @ApiParam(value = "Opaque cursor taken from the 'next' link of previous page") @QueryParam("cursor") final String cursor) {
+        executors.execute(Workload.BULK, requestContext, asyncResponse, new Callable<Response>() {
+
+            @Override
+            public Response call() {
+                return streamUsers(cursor);
+            }
+        });
+    }
+
+    private Response streamUsers(final String cursor) {
+        try {
+            final String afterUserName = Cursors.decode(cursor);
+            final EntityTag eTag = EntityTags.forRevision(userService.getRevision(), "users-ndjson");
+            final Date lastModified = userService.getLastModified();
+            final ResponseBuilder notModified = request.evaluatePreconditions(lastModified, eTag);
 
-        return Response.ok(users, MediaType.APPLICATION_JSON_TYPE).build();
+            if (notModified != null) {
+                return notModified.build();
+            }
+
+            return Response.ok(new NdjsonStreamingOutput<User>(userService.getAll(afterUserName)), MediaTypes.APPLICATION_NDJSON_TYPE).tag(eTag).lastModified(lastModified).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Status.NOT_ACCEPTABLE).entity(e.getMessage()).build();
+        }
     }
 
     /**
@@ -85,17 +239,164 @@ public class UsersEndpoint {
     @Produces(MediaType.APPLICATION_JSON)
     @ApiOperation(value = "Creates single user", notes = "Creates and registers user in application.", response = User.class)
     @ApiResponses(value = { @ApiResponse(code = 201, message = "Successful registration of new user", response = User.class), @ApiResponse(code = 406, message = "Malformed definition of new user"),
-            @ApiResponse(code = 409, message = "User with specified username already exists"), @ApiResponse(code = 500, message = "Internal server error") })
-    public Response createUser(@ApiParam(name = "user", required = true) User user) {
+            @ApiResponse(code = 409, message = "User with specified username or email address already exists"), @ApiResponse(code = 500, message = "Internal server error"),
+            @ApiResponse(code = 503, message = "Server is busy or the request timed out in the queue") })
+    public void createUser(@ApiParam(access = "hidden") @Suspended final AsyncResponse asyncResponse,
+            @ApiParam(name = "user", required = true) final User user) {
+        executors.execute(Workload.LOOKUP, requestContext, asyncResponse, new Callable<Response>() {
+
+            @Override
+            public Response call() {
+                return createUser(user);
+            }
+        });
+    }
+
+    private Response createUser(final User user) {
         try {
             final User newUser = userService.createUser(user);
 
             return Response.status(Status.CREATED).entity(newUser).location(getLocation(newUser)).links(getUserLinks(newUser)).build();
         } catch (EntityAlreadyExistsException e) {
             return Response.status(Status.CONFLICT).entity("Specified username is already taken.").build();
+        } catch (EmailAlreadyRegisteredException e) {
+            return Response.status(Status.CONFLICT).entity("Specified email address is already registered.").build();
         } catch (IllegalArgumentException e) {
             return Response.status(Status.NOT_ACCEPTABLE).entity(e.getMessage()).build();
+        } catch (IOException e) {
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity("Internal server error.").build();
+        }
+    }
+
+    /**
+     * Creates users read from newline delimited JSON, one user per line. Body is read incrementally and users are created in batches, a line which
+     * can not be imported does not affect the others. Batches created before the import stopped stay created, the report of the failed import
+     * tells the last line it got to.
+     */
+    @POST
+    @Path("/import")
+    @Consumes(MediaTypes.APPLICATION_NDJSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @GzipEncoded
+    @ApiOperation(
+            value = "Imports users",
+            notes = "Creates users read from newline delimited JSON, one user per line, by the same rules as a single user is created. Lines are imported independently of each other, errors of the first 1000 lines which were not imported are reported. Body may be compressed by gzip. If the body breaks off, users read before are imported. An import which stopped early is not rolled back, its report tells the last line it got to so the rest can be imported again.",
+            response = UserImportReport.class)
+    @ApiResponses(value = { @ApiResponse(code = 200, message = "Import finished, see the report for lines which were not imported", response = UserImportReport.class),
+            @ApiResponse(code = 400, message = "Body is truncated or it is not a valid gzip stream, see the report for the lines imported before", response = UserImportReport.class),
+            @ApiResponse(code = 500, message = "Users could not be stored, see the report for the lines imported before", response = UserImportReport.class),
+            @ApiResponse(code = 503, message = "Server is busy or the request timed out in the queue") })
+    public void importUsers(@ApiParam(access = "hidden") @Suspended final AsyncResponse asyncResponse,
+            @ApiParam(name = "users", required = true) final InputStream usersInputStream) {
+        executors.execute(Workload.BULK, requestContext, asyncResponse, new Callable<Response>() {
+
+            @Override
+            public Response call() {
+                return importUsers(usersInputStream);
+            }
+        });
+    }
+
+    private Response importUsers(final InputStream usersInputStream) {
+        final NdjsonReader<User> reader = new NdjsonReader<User>(usersInputStream, User.class, MAX_IMPORT_LINE_LENGTH);
+        final UserImportReport report = new UserImportReport();
+        final ImportBatch batch = new ImportBatch();
+
+        try {
+            try {
+                while (reader.next()) {
+                    try {
+                        final User user = reader.getValue();
+                        Preconditions.checkArgument(user != null, "Invalid user definition! Line does not contain a user.");
+
+                        batch.add(reader.getLineNumber(), user, null);
+                    } catch (IllegalArgumentException e) {
+                        batch.add(reader.getLineNumber(), null, e.getMessage());
+                    }
+
+                    if (batch.lines.size() == IMPORT_BATCH_SIZE) {
+                        importBatch(batch, report);
+                    }
+                }
+            } catch (ZipException | EOFException e) {
+                // users read before the body broke off are imported
+                importBatch(batch, report);
+                report.setError("Body is truncated or it is not a valid gzip stream.");
+
+                return Response.status(Status.BAD_REQUEST).entity(report).type(MediaType.APPLICATION_JSON_TYPE).build();
+            }
+
+            importBatch(batch, report);
+
+            return Response.ok(report, MediaType.APPLICATION_JSON_TYPE).build();
+        } catch (IOException e) {
+            // the batch which failed is not created, nor any line after it
+            report.setError("Users could not be stored.");
+
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity(report).type(MediaType.APPLICATION_JSON_TYPE).build();
+        }
+    }
+
+    private void importBatch(final ImportBatch batch, final UserImportReport report) throws IOException {
+        final List<User> users = new ArrayList<User>(batch.lines.size());
+
+        for (final User user : batch.users) {
+            if (user != null) {
+                users.add(user);
+            }
+        }
+
+        final Iterator<String> errors = users.isEmpty() ? Collections.<String> emptyIterator() : userService.createUsers(users).iterator();
+
+        // errors are reported in the order of lines
+        for (int i = 0; i < batch.lines.size(); i++) {
+            final User user = batch.users.get(i);
+            final String error = user == null ? batch.errors.get(i) : errors.next();
+
+            if (error == null) {
+                report.setImported(report.getImported() + 1);
+                continue;
+            }
+
+            report.setFailed(report.getFailed() + 1);
+
+            if (report.getErrors().size() < MAX_REPORTED_IMPORT_ERRORS) {
+                report.getErrors().add(new UserImportError(batch.lines.get(i), user == null ? null : user.getUserName(), error));
+            }
+        }
+
+        if (!batch.lines.isEmpty()) {
+            report.setLastLine(batch.lines.get(batch.lines.size() - 1));
         }
+
+        batch.clear();
+    }
+
+    /**
+     * Streams all users registered within application as newline delimited JSON for a later import.
+     */
+    @GET
+    @Path("/export")
+    @Produces(MediaTypes.APPLICATION_NDJSON)
+    @GzipEncoded
+    @ApiOperation(
+            value = "Exports users",
+            notes = "Streams all users registered within application ordered by username as newline delimited JSON, one user per line, in the format accepted by the import. Body is compressed by gzip if the client accepts it.",
+            response = User.class)
+    @ApiResponses(value = { @ApiResponse(code = 200, message = "Successful export of all users", response = User.class), @ApiResponse(code = 500, message = "Internal server error"),
+            @ApiResponse(code = 503, message = "Server is busy or the request timed out in the queue") })
+    public void exportUsers(@ApiParam(access = "hidden") @Suspended final AsyncResponse asyncResponse) {
+        executors.execute(Workload.BULK, requestContext, asyncResponse, new Callable<Response>() {
+
+            @Override
+            public Response call() {
+                return exportUsers();
+            }
+        });
+    }
+
+    private Response exportUsers() {
+        return Response.ok(new NdjsonStreamingOutput<User>(userService.getAll(null)), MediaTypes.APPLICATION_NDJSON_TYPE).build();
     }
 
     @OPTIONS
@@ -116,12 +417,32 @@ public class UsersEndpoint {
     @Produces(MediaType.APPLICATION_JSON)
     @ApiOperation(value = "Returns user details", notes = "Returns a complete list of users details with a date of last modification.", response = User.class)
     @ApiResponses(value = { @ApiResponse(code = 200, message = "Successful retrieval of user detail", response = User.class),
-            @ApiResponse(code = 404, message = "User with given username does not exist"), @ApiResponse(code = 500, message = "Internal server error") })
-    public Response getUser(@ApiParam(name = "userName", value = "Alphanumeric login to application", required = true) @PathParam("userName") String userName) {
+            @ApiResponse(code = 304, message = "User was not modified since the last retrieval"), @ApiResponse(code = 404, message = "User with given username does not exist"),
+            @ApiResponse(code = 500, message = "Internal server error"),
+            @ApiResponse(code = 503, message = "Server is busy or the request timed out in the queue") })
+    public void getUser(@ApiParam(access = "hidden") @Suspended final AsyncResponse asyncResponse,
+            @ApiParam(name = "userName", value = "Alphanumeric login to application", required = true) @PathParam("userName") final String userName) {
+        executors.execute(Workload.LOOKUP, requestContext, asyncResponse, new Callable<Response>() {
+
+            @Override
+            public Response call() {
+                return getUser(userName);
+            }
+        });
+    }
+
+    private Response getUser(final String userName) {
         final User user = userService.findByUserName(userName);
 
         if (user != null) {
-            return Response.status(Status.OK).entity(user).build();
+            final EntityTag eTag = EntityTags.forUser(user);
+            final ResponseBuilder notModified = request.evaluatePreconditions(user.getLastUpdated(), eTag);
+
+            if (notModified != null) {
+                return notModified.build();
+            }
+
+            return Response.status(Status.OK).entity(user).tag(eTag).lastModified(user.getLastUpdated()).build();
         } else {
             return Response.status(Status.NOT_FOUND).entity("User with specified username does not exist.").build();
         }
@@ -146,17 +467,43 @@ public class UsersEndpoint {
     @GET
     @Path("/{userName}/avatar")
     @Produces("image/png")
-    @ApiOperation(value = "Returns users avatar", notes = "Provides means to download avatar based on username")
+    @ApiOperation(value = "Returns users avatar", notes = "Provides means to download avatar based on username. Supports single byte ranges.")
     @ApiResponses(value = { @ApiResponse(code = 200, message = "Successful retrieval of users avatar"),
-            @ApiResponse(code = 404, message = "User with given username does not exist"), @ApiResponse(code = 500, message = "Internal server error") })
-    public Response getUsersAvatar(@ApiParam(name = "userName", value = "Alphanumeric login to application", required = true) @PathParam("userName") String userName) {
-        final User user = userService.findByUserName(userName);
+            @ApiResponse(code = 206, message = "Successful retrieval of requested range of users avatar"),
+            @ApiResponse(code = 304, message = "Avatar was not modified since the entity tag in If-None-Match header was issued"),
+            @ApiResponse(code = 404, message = "User with given username does not exist"),
+            @ApiResponse(code = 406, message = "Requested size is not supported"), @ApiResponse(code = 416, message = "Requested range is outside of the avatar"),
+            @ApiResponse(code = 500, message = "Internal server error"), @ApiResponse(code = 503, message = "Too many avatars are being resized, server is busy or the request timed out") })
+    public void getUsersAvatar(@ApiParam(access = "hidden") @Suspended final AsyncResponse asyncResponse,
+            @ApiParam(name = "userName", value = "Alphanumeric login to application", required = true) @PathParam("userName") final String userName,
+            @ApiParam("single byte range to download") @HeaderParam(HttpHeaders.RANGE) final String range,
+            @ApiParam("entity tag the range is requested for") @HeaderParam(HttpHeaders.IF_RANGE) final String ifRange,
+            @ApiParam("edge of the square the avatar is downscaled to fit in, ranges are not supported for downscaled avatars") @QueryParam("size") final Integer size) {
+        executors.execute(Workload.AVATAR, requestContext, asyncResponse, new Callable<Response>() {
 
-        if (user != null) {
-            return Response.status(Status.OK).entity(user.getAvatar()).build();
-        } else {
+            @Override
+            public Response call() {
+                return getUsersAvatar(userName, range, ifRange, size);
+            }
+        });
+    }
+
+    private Response getUsersAvatar(final String userName, final String range, final String ifRange, final Integer size) {
+        final AvatarContent content;
+
+        try {
+            content = userService.openAvatar(userName);
+        } catch (EntityNotFoundException e) {
             return Response.status(Status.NOT_FOUND).entity("User with specified username does not exist.").build();
+        } catch (IOException e) {
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity("Internal server error.").build();
         }
+
+        if (content == null) {
+            return Response.status(Status.OK).build();
+        }
+
+        return new AvatarResponses(request, userService).build(content, AvatarResponses.MUTABLE_CACHE_CONTROL, range, ifRange, size);
     }
 
     /**
@@ -165,21 +512,44 @@ public class UsersEndpoint {
     @PUT
     @Path("/{userName}/avatar")
     @Consumes(MediaType.MULTIPART_FORM_DATA)
+    @AvatarUpload
     @ApiImplicitParams(@ApiImplicitParam(dataType = "file", name = "avatar", paramType = "body"))
     @ApiOperation(value = "Updates users avatar", notes = "Provides means to upload new versions of avatar based on username")
     @ApiResponses(value = { @ApiResponse(code = 200, message = "Successful retrieval of users avatar"),
-            @ApiResponse(code = 404, message = "User with given username does not exist"), @ApiResponse(code = 500, message = "Internal server error") })
-    public Response updateUsersAvatar(@ApiParam(name = "userName", value = "Alphanumeric login to application", required = true) @PathParam("userName") String userName,
-            @ApiParam(access = "hidden") @FormDataParam("avatar") InputStream avatarInputStream) {
-        try {
-            final User user = userService.updateAvatar(userName, avatarInputStream);
+            @ApiResponse(code = 404, message = "User with given username does not exist"), @ApiResponse(code = 413, message = "Avatar is too large"),
+            @ApiResponse(code = 415, message = "Avatar is not a PNG image"), @ApiResponse(code = 500, message = "Internal server error"),
+            @ApiResponse(code = 503, message = "Server is busy or the request timed out in the queue") })
+    public void updateUsersAvatar(@ApiParam(access = "hidden") @Suspended final AsyncResponse asyncResponse,
+            @ApiParam(name = "userName", value = "Alphanumeric login to application", required = true) @PathParam("userName") final String userName,
+            @ApiParam(access = "hidden") @FormDataParam("avatar") final InputStream avatarInputStream) {
+        executors.execute(Workload.AVATAR, requestContext, asyncResponse, new Callable<Response>() {
 
-            return Response.status(Status.OK).location(getAvatarLocation(user)).build();
-        } catch (EntityNotFoundException e) {
-            return Response.status(Status.NOT_FOUND).entity("User with specified username does not exist.").build();
-        } catch (IOException e) {
-            return Response.status(Status.INTERNAL_SERVER_ERROR).entity("Internal server error.").build();
-        }
+            @Override
+            public Response call() {
+                return updateAvatar(userName, avatarInputStream);
+            }
+        });
+    }
+
+    @PUT
+    @Path("/{userName}/avatar")
+    @Consumes("image/png")
+    @AvatarUpload
+    @ApiOperation(value = "Updates users avatar", notes = "Provides means to upload new versions of avatar based on username as a plain PNG body, which is streamed without multipart buffering")
+    @ApiResponses(value = { @ApiResponse(code = 200, message = "Successful retrieval of users avatar"),
+            @ApiResponse(code = 404, message = "User with given username does not exist"), @ApiResponse(code = 413, message = "Avatar is too large"),
+            @ApiResponse(code = 415, message = "Avatar is not a PNG image"), @ApiResponse(code = 500, message = "Internal server error"),
+            @ApiResponse(code = 503, message = "Server is busy or the request timed out in the queue") })
+    public void updateUsersAvatarImage(@ApiParam(access = "hidden") @Suspended final AsyncResponse asyncResponse,
+            @ApiParam(name = "userName", value = "Alphanumeric login to application", required = true) @PathParam("userName") final String userName,
+            @ApiParam(name = "avatar", required = true) final InputStream avatarInputStream) {
+        executors.execute(Workload.AVATAR, requestContext, asyncResponse, new Callable<Response>() {
+
+            @Override
+            public Response call() {
+                return updateAvatar(userName, avatarInputStream);
+            }
+        });
     }
 
     private Link[] getUserLinks(final User user) {
@@ -191,11 +561,62 @@ public class UsersEndpoint {
         return links;
     }
 
+    private Link[] getPageLinks(final Page<User> page, final int limit) {
+        if (!page.hasNext()) {
+            return new Link[0];
+        }
+
+        return new Link[] { Link.fromUri("users?limit={limit}&cursor={cursor}").rel("next").type(MediaType.APPLICATION_JSON).build(limit, Cursors.encode(page.getLastKey())) };
+    }
+
     private URI getLocation(final User user) {
         return UriBuilder.fromUri("users/{userName}").build(user.getUserName());
     }
 
+    private Response updateAvatar(final String userName, final InputStream avatarInputStream) {
+        try {
+            final User user = userService.updateAvatar(userName, avatarInputStream);
+
+            return Response.status(Status.OK).location(getAvatarLocation(user)).build();
+        } catch (EntityNotFoundException e) {
+            return Response.status(Status.NOT_FOUND).entity("User with specified username does not exist.").build();
+        } catch (AvatarTooLargeException e) {
+            return Response.status(Status.REQUEST_ENTITY_TOO_LARGE).entity(AvatarUploadFilter.getTooLargeMessage(userService.getMaxAvatarSize())).build();
+        } catch (UnsupportedAvatarFormatException e) {
+            return Response.status(Status.UNSUPPORTED_MEDIA_TYPE).entity("Avatar must be a PNG image.").build();
+        } catch (IOException e) {
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity("Internal server error.").build();
+        }
+    }
+
+    /**
+     * Returns content addressed URL of the current avatar image, representations of such URL never change.
+     */
     private URI getAvatarLocation(final User user) {
-        return UriBuilder.fromUri("users/{userName}/avatar").build(user.getUserName());
+        return UriBuilder.fromUri("avatars/{hash}").build(user.getAvatar().getHash());
+    }
+
+    /**
+     * Lines of an import read since the last batch was created, either with the user or with the reason it could not be read.
+     */
+    private static class ImportBatch {
+
+        private final List<Long> lines = new ArrayList<Long>(IMPORT_BATCH_SIZE);
+
+        private final List<User> users = new ArrayList<User>(IMPORT_BATCH_SIZE);
+
+        private final List<String> errors = new ArrayList<String>(IMPORT_BATCH_SIZE);
+
+        void add(final long line, final User user, final String error) {
+            lines.add(line);
+            users.add(user);
+            errors.add(error);
+        }
+
+        void clear() {
+            lines.clear();
+            users.clear();
+            errors.clear();
+        }
     }
 }
@@ -0,0 +1,22 @@
+package com.jakubstas.swagger.rest;
+
+/**
+ * Classes of requests executed by separate executors of {@link RequestExecutors}.
+ */
+public enum Workload {
+
+    /**
+     * Reads and changes of a single entity, expected to take a few milliseconds.
+     */
+    LOOKUP,
+
+    /**
+     * Listings, searches, imports and batches, which may read or write the whole store.
+     */
+    BULK,
+
+    /**
+     * Uploads, downloads and resizing of avatars.
+     */
+    AVATAR
+}
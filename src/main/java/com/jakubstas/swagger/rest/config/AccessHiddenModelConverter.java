@@ -4,6 +4,10 @@ import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.xml.bind.annotation.XmlElement;
 
@@ -14,32 +18,77 @@ import org.springframework.util.StringUtils;
 import scala.Option;
 import scala.collection.immutable.Map;
 
+import com.google.common.collect.ImmutableSet;
 import com.wordnik.swagger.annotations.ApiModelProperty;
 import com.wordnik.swagger.converter.SwaggerSchemaConverter;
 import com.wordnik.swagger.model.Model;
 
 /**
  * API model schema filter to enable hiding of API model attributes.
+ * <p>
+ * Names of hidden properties are collected from the class hierarchy once per model class and reused by every following read of the model.
  */
 public class AccessHiddenModelConverter extends SwaggerSchemaConverter {
 
     private final Logger log = LoggerFactory.getLogger(AccessHiddenModelConverter.class);
 
+    private final ConcurrentMap<Class<?>, Set<String>> hiddenProperties = new ConcurrentHashMap<Class<?>, Set<String>>();
+
     @Override
     public Option<Model> read(final Class<?> modelClass, final Map<String, String> typeMap) {
         final Option<Model> modelOption = super.read(modelClass, typeMap);
 
+        if (modelOption.isDefined()) {
+            for (final String propertyName : getHiddenProperties(modelClass)) {
+                modelOption.get().properties().remove(propertyName);
+                log.debug("Successfully hidden API model property '" + propertyName + "'");
+            }
+        }
+
+        return modelOption;
+    }
+
+    private Set<String> getHiddenProperties(final Class<?> modelClass) {
+        Set<String> propertyNames = hiddenProperties.get(modelClass);
+
+        if (propertyNames == null) {
+            // concurrent first reads compute the same set, any of them can be kept
+            propertyNames = findHiddenProperties(modelClass);
+            hiddenProperties.putIfAbsent(modelClass, propertyNames);
+        }
+
+        return propertyNames;
+    }
+
+    private Set<String> findHiddenProperties(final Class<?> modelClass) {
+        final ImmutableSet.Builder<String> propertyNames = ImmutableSet.builder();
+
         Class<?> currentClass = modelClass;
 
         while (currentClass.getSuperclass() != null) {
-            for (final Method method : modelClass.getDeclaredMethods()) {
+            java.util.Map<String, String> classMemberNames = null;
+
+            for (final Method method : currentClass.getDeclaredMethods()) {
                 if (method.isAnnotationPresent(ApiModelProperty.class) && isAccessHidden(method)) {
-                    hideModelProperty(currentClass, method, modelOption);
+                    final String propertyName;
+
+                    if (method.isAnnotationPresent(XmlElement.class) && !method.getAnnotation(XmlElement.class).name().isEmpty()) {
+                        propertyName = method.getAnnotation(XmlElement.class).name();
+                    } else {
+                        if (classMemberNames == null) {
+                            classMemberNames = getClassMemberNames(currentClass);
+                        }
+                        propertyName = classMemberNames.get(method.getName());
+                    }
+
+                    if (StringUtils.hasText(propertyName)) {
+                        propertyNames.add(propertyName);
+                    }
                 }
             }
             currentClass = currentClass.getSuperclass();
         }
-        return modelOption;
+        return propertyNames.build();
     }
 
     private boolean isAccessHidden(final Method method) {
@@ -50,32 +99,22 @@ public class AccessHiddenModelConverter extends SwaggerSchemaConverter {
         return false;
     }
 
-    private void hideModelProperty(final Class<?> currentClass, final Method method, final Option<Model> modelOption) {
-        final String propertyName;
-
-        if (method.isAnnotationPresent(XmlElement.class) && !method.getAnnotation(XmlElement.class).name().isEmpty()) {
-            propertyName = method.getAnnotation(XmlElement.class).name();
-        } else {
-            propertyName = getClassMemberName(currentClass, method);
-        }
-
-        if (StringUtils.hasText(propertyName)) {
-            modelOption.get().properties().remove(propertyName);
-            log.debug("Successfully hidden API model property '" + propertyName + "'");
-        }
-    }
+    /**
+     * Returns names of bean properties of the class by names of their read methods.
+     */
+    private java.util.Map<String, String> getClassMemberNames(final Class<?> currentClass) {
+        final java.util.Map<String, String> classMemberNames = new HashMap<String, String>();
 
-    private String getClassMemberName(final Class<?> currentClass, final Method method) {
         try {
             for (PropertyDescriptor propertyDescriptor : Introspector.getBeanInfo(currentClass).getPropertyDescriptors()) {
-                if (propertyDescriptor.getReadMethod().getName().equals(method.getName())) {
-                    return propertyDescriptor.getName();
+                if (propertyDescriptor.getReadMethod() != null) {
+                    classMemberNames.put(propertyDescriptor.getReadMethod().getName(), propertyDescriptor.getName());
                 }
             }
         } catch (IntrospectionException e) {
             log.error("Unable to retrieve field name", e);
         }
 
-        return null;
+        return classMemberNames;
     }
 }
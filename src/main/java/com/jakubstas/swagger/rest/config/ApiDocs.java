@@ -0,0 +1,176 @@
+package com.jakubstas.swagger.rest.config;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.servlet.ServletConfig;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.UriInfo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import scala.collection.JavaConversions;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.CharMatcher;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Resources;
+import com.wordnik.swagger.core.util.JsonSerializer;
+import com.wordnik.swagger.jaxrs.listing.ApiListingResource;
+import com.wordnik.swagger.jaxrs.listing.ApiListingResourceJSON;
+import com.wordnik.swagger.model.ApiListingReference;
+import com.wordnik.swagger.model.ResourceListing;
+
+/**
+ * Swagger documentation of the API rendered once and kept serialized.
+ * <p>
+ * Documents are either generated at build time by {@link ApiDocsGenerator} and loaded from the classpath at startup, or produced by the Swagger
+ * listing resource on the first request. In the latter case they pass through the configured scanner, reader, model converters and
+ * specification filter the same way they did when the resource served them directly. None of these depends on the request, every later request
+ * is served from the rendered documents.
+ */
+@Component
+public class ApiDocs {
+
+    /**
+     * Route of the resource listing, API declarations are routed by their resource path without the leading slash.
+     */
+    public static final String RESOURCE_LISTING = "";
+
+    /**
+     * Classpath location of generated documents. The resource listing is stored as <code>api-docs.json</code>, declarations as
+     * <code>api-docs/{route}.json</code>.
+     */
+    static final String GENERATED_LOCATION = "swagger/";
+
+    private static final Logger log = LoggerFactory.getLogger(ApiDocs.class);
+
+    @Inject
+    private SwaggerConfiguration swaggerConfiguration;
+
+    private volatile Map<String, ApiDocument> documents;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (swaggerConfiguration.isStaticDocs()) {
+            documents = load();
+            log.info("Loaded " + documents.size() + " generated Swagger documents");
+        }
+    }
+
+    /**
+     * Returns the document of the route, <code>null</code> if there is no such document. Unless the documents were generated, context of the first
+     * request is used to render all of them.
+     */
+    public ApiDocument get(final String route, final Application application, final ServletConfig servletConfig, final HttpHeaders headers,
+            final UriInfo uriInfo) {
+        Map<String, ApiDocument> rendered = documents;
+
+        if (rendered == null) {
+            rendered = render(application, servletConfig, headers, uriInfo);
+        }
+
+        return rendered.get(normalize(route));
+    }
+
+    private synchronized Map<String, ApiDocument> render(final Application application, final ServletConfig servletConfig, final HttpHeaders headers,
+            final UriInfo uriInfo) {
+        if (documents != null) {
+            return documents;
+        }
+
+        final Map<String, String> json = renderJson(application, servletConfig, headers, uriInfo);
+
+        if (json.isEmpty()) {
+            // nothing is cached, the next request tries again
+            return ImmutableMap.of();
+        }
+
+        final ImmutableMap.Builder<String, ApiDocument> rendered = ImmutableMap.builder();
+
+        for (final Entry<String, String> document : json.entrySet()) {
+            rendered.put(document.getKey(), ApiDocument.of(document.getValue()));
+        }
+
+        documents = rendered.build();
+        log.info("Rendered " + documents.size() + " Swagger documents");
+
+        return documents;
+    }
+
+    private static Map<String, ApiDocument> load() throws IOException {
+        final ImmutableMap.Builder<String, ApiDocument> loaded = ImmutableMap.builder();
+        final byte[] listing = Resources.toByteArray(getGeneratedResource(RESOURCE_LISTING));
+
+        loaded.put(RESOURCE_LISTING, ApiDocument.of(listing));
+
+        for (final JsonNode api : new ObjectMapper().readTree(listing).path("apis")) {
+            final String route = normalize(api.path("path").asText());
+            loaded.put(route, ApiDocument.of(Resources.toByteArray(getGeneratedResource(route))));
+        }
+
+        return loaded.build();
+    }
+
+    private static URL getGeneratedResource(final String route) throws IOException {
+        final URL resource = ApiDocs.class.getClassLoader().getResource(GENERATED_LOCATION + getGeneratedFileName(route));
+
+        if (resource == null) {
+            throw new IOException("Generated Swagger document " + getGeneratedFileName(route) + " is missing, build the application with Maven");
+        }
+
+        return resource;
+    }
+
+    /**
+     * Returns path of the document relative to the location of generated documents.
+     */
+    static String getGeneratedFileName(final String route) {
+        return route.equals(RESOURCE_LISTING) ? "api-docs.json" : "api-docs/" + route + ".json";
+    }
+
+    /**
+     * Renders the resource listing and all API declarations by the Swagger listing resource configured by {@link SwaggerConfiguration}. Returns no
+     * documents if the listing is not available.
+     */
+    static Map<String, String> renderJson(final Application application, final ServletConfig servletConfig, final HttpHeaders headers,
+            final UriInfo uriInfo) {
+        final ApiListingResource listingResource = new ApiListingResourceJSON();
+        final Map<String, String> rendered = new LinkedHashMap<String, String>();
+        final Response listingResponse = listingResource.resourceListing(application, servletConfig, headers, uriInfo);
+
+        if (listingResponse.getStatus() != Status.OK.getStatusCode()) {
+            log.warn("Swagger resource listing is not available, status " + listingResponse.getStatus());
+            return rendered;
+        }
+
+        final ResourceListing listing = (ResourceListing) listingResponse.getEntity();
+        rendered.put(RESOURCE_LISTING, JsonSerializer.asJson(listing));
+
+        for (final ApiListingReference reference : JavaConversions.seqAsJavaList(listing.apis())) {
+            final String route = normalize(reference.path());
+            final Response declarationResponse = listingResource.apiDeclaration(route, application, servletConfig, headers, uriInfo);
+
+            if (declarationResponse.getStatus() == Status.OK.getStatusCode()) {
+                rendered.put(route, JsonSerializer.asJson(declarationResponse.getEntity()));
+            }
+        }
+
+        return rendered;
+    }
+
+    private static String normalize(final String route) {
+        return CharMatcher.is('/').trimFrom(route);
+    }
+}
@@ -0,0 +1,87 @@
+package com.jakubstas.swagger.rest.config;
+
+import javax.inject.Inject;
+import javax.servlet.ServletConfig;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.UriInfo;
+
+import com.jakubstas.swagger.rest.io.GzipCoding;
+
+/**
+ * REST endpoint serving Swagger documentation of the API in place of the Swagger listing resource. Documents are rendered once and compressed
+ * representations are served to clients accepting gzip.
+ */
+@Path("/api-docs")
+public class ApiDocsEndpoint {
+
+    private static final String JSON_UTF8 = MediaType.APPLICATION_JSON + "; charset=utf-8";
+
+    @Inject
+    private ApiDocs apiDocs;
+
+    @Context
+    private Application application;
+
+    @Context
+    private ServletConfig servletConfig;
+
+    @Context
+    private HttpHeaders headers;
+
+    @Context
+    private UriInfo uriInfo;
+
+    @Context
+    private Request request;
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getResourceListing(@HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+        return serve(ApiDocs.RESOURCE_LISTING, acceptEncoding);
+    }
+
+    @GET
+    @Path("/{route: .+}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getApiDeclaration(@PathParam("route") String route, @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+        return serve(route, acceptEncoding);
+    }
+
+    private Response serve(final String route, final String acceptEncoding) {
+        final ApiDocument document = apiDocs.get(route, application, servletConfig, headers, uriInfo);
+
+        if (document == null) {
+            return Response.status(Status.NOT_FOUND).build();
+        }
+
+        final boolean gzipped = GzipCoding.isAccepted(acceptEncoding);
+        final EntityTag eTag = document.getETag(gzipped);
+        final ResponseBuilder notModified = request.evaluatePreconditions(eTag);
+        final ResponseBuilder response;
+
+        if (notModified != null) {
+            response = notModified;
+        } else {
+            response = Response.ok(document.getContent(gzipped), JSON_UTF8);
+
+            if (gzipped) {
+                response.header(HttpHeaders.CONTENT_ENCODING, GzipCoding.GZIP);
+            }
+        }
+
+        return response.tag(eTag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+    }
+}
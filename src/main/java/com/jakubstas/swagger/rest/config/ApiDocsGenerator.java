@@ -0,0 +1,94 @@
+package com.jakubstas.swagger.rest.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriInfo;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+
+/**
+ * Generates Swagger documents of the API at build time, so the application does not have to scan its resources when it is running. Documents
+ * are rendered with the configuration from <code>swagger.properties</code> the same way they would be rendered at runtime and written to the
+ * location {@link ApiDocs} loads them from.
+ * <p>
+ * The only argument is the directory of compiled classes.
+ */
+public final class ApiDocsGenerator {
+
+    private ApiDocsGenerator() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        Preconditions.checkArgument(args.length == 1, "Usage: ApiDocsGenerator <classes directory>");
+
+        final Properties properties = new Properties();
+
+        try (InputStream input = Resources.getResource("swagger.properties").openStream()) {
+            properties.load(input);
+        }
+
+        final SwaggerConfiguration configuration = new SwaggerConfiguration();
+        configuration.setResourcePackage(properties.getProperty("swagger.resourcePackage"));
+        configuration.setBasePath(properties.getProperty("swagger.basePath"));
+        configuration.setApiVersion(properties.getProperty("swagger.apiVersion"));
+        configuration.setStaticDocs(false);
+        configuration.init();
+
+        // the listing resource reads request parameters, headers and cookies only to pass them to the specification filter
+        final Map<String, String> documents = ApiDocs.renderJson(null, null, emptyContext(HttpHeaders.class), emptyContext(UriInfo.class));
+
+        if (documents.isEmpty()) {
+            throw new IllegalStateException("No Swagger documents were rendered from package " + configuration.getResourcePackage());
+        }
+
+        final File outputDirectory = new File(args[0], ApiDocs.GENERATED_LOCATION);
+
+        for (final Entry<String, String> document : documents.entrySet()) {
+            final File file = new File(outputDirectory, ApiDocs.getGeneratedFileName(document.getKey()));
+
+            Files.createParentDirs(file);
+            Files.write(document.getValue(), file, Charsets.UTF_8);
+        }
+
+        System.out.println("Generated " + documents.size() + " Swagger documents into " + outputDirectory);
+    }
+
+    /**
+     * Returns request context of given type without any parameters, headers or cookies.
+     */
+    private static <T> T emptyContext(final Class<T> contextType) {
+        return contextType.cast(Proxy.newProxyInstance(contextType.getClassLoader(), new Class<?>[] { contextType }, new InvocationHandler() {
+
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                final Class<?> returnType = method.getReturnType();
+
+                if (returnType == MultivaluedMap.class) {
+                    return new MultivaluedHashMap<String, String>();
+                } else if (returnType == Map.class) {
+                    return Collections.emptyMap();
+                } else if (returnType == List.class) {
+                    return Collections.emptyList();
+                }
+
+                return null;
+            }
+        }));
+    }
+}
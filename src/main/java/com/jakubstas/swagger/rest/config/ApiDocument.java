@@ -0,0 +1,62 @@
+package com.jakubstas.swagger.rest.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+import javax.ws.rs.core.EntityTag;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+
+/**
+ * Serialized Swagger document held both as is and compressed by gzip. Each of the two representations has its own strong entity tag derived
+ * from the content.
+ */
+public final class ApiDocument {
+
+    private final byte[] content;
+
+    private final byte[] gzippedContent;
+
+    private final EntityTag eTag;
+
+    private final EntityTag gzippedETag;
+
+    private ApiDocument(final byte[] content, final byte[] gzippedContent) {
+        final String hash = Hashing.murmur3_128().hashBytes(content).toString();
+
+        this.content = content;
+        this.gzippedContent = gzippedContent;
+        this.eTag = new EntityTag("d" + hash);
+        this.gzippedETag = new EntityTag("d" + hash + "-gzip");
+    }
+
+    public static ApiDocument of(final String json) {
+        return of(json.getBytes(Charsets.UTF_8));
+    }
+
+    public static ApiDocument of(final byte[] content) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(content.length / 4 + 64);
+
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            // writing into memory does not fail
+            throw new IllegalStateException(e);
+        }
+
+        return new ApiDocument(content, output.toByteArray());
+    }
+
+    /**
+     * Returns the document, the array must not be modified.
+     */
+    public byte[] getContent(final boolean gzipped) {
+        return gzipped ? gzippedContent : content;
+    }
+
+    public EntityTag getETag(final boolean gzipped) {
+        return gzipped ? gzippedETag : eTag;
+    }
+}
@@ -29,8 +29,16 @@ public class SwaggerConfiguration {
     @Value("${swagger.apiVersion}")
     private String apiVersion;
 
+    @Value("${swagger.staticDocs}")
+    private boolean staticDocs;
+
     @PostConstruct
     public void init() {
+        if (staticDocs) {
+            // documents generated at build time are served by ApiDocs, nothing is scanned at runtime
+            return;
+        }
+
         final ReflectiveJaxrsScanner scanner = new ReflectiveJaxrsScanner();
         scanner.setResourcePackage(resourcePackage);
 
@@ -67,4 +75,12 @@ public class SwaggerConfiguration {
     public void setApiVersion(String apiVersion) {
         this.apiVersion = apiVersion;
     }
+
+    public boolean isStaticDocs() {
+        return staticDocs;
+    }
+
+    public void setStaticDocs(boolean staticDocs) {
+        this.staticDocs = staticDocs;
+    }
 }
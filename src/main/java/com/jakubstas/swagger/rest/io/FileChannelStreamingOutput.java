@@ -0,0 +1,53 @@
+package com.jakubstas.swagger.rest.io;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Writes a region of a file using {@link FileChannel#transferTo(long, long, WritableByteChannel)}, so the content is never read into the heap as a
+ * whole. The channel is closed once the region is written, or by {@link #close()} if the output is never written.
+ */
+public class FileChannelStreamingOutput implements StreamingOutput, Closeable {
+
+    private final FileChannel channel;
+
+    private final long position;
+
+    private final long count;
+
+    public FileChannelStreamingOutput(final FileChannel channel, final long position, final long count) {
+        this.channel = channel;
+        this.position = position;
+        this.count = count;
+    }
+
+    @Override
+    public void write(final OutputStream output) throws IOException {
+        try (FileChannel source = channel) {
+            final WritableByteChannel target = Channels.newChannel(output);
+            long transferred = 0;
+
+            while (transferred < count) {
+                final long written = source.transferTo(position + transferred, count - transferred, target);
+
+                if (written <= 0) {
+                    throw new EOFException("File is shorter than expected");
+                }
+
+                transferred += written;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
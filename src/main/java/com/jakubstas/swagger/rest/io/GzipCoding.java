@@ -0,0 +1,47 @@
+package com.jakubstas.swagger.rest.io;
+
+import com.google.common.base.Splitter;
+
+/**
+ * Parsing of the gzip content coding in <code>Accept-Encoding</code> and <code>Content-Encoding</code> headers.
+ */
+public final class GzipCoding {
+
+    public static final String GZIP = "gzip";
+
+    private GzipCoding() {
+    }
+
+    /**
+     * Returns whether the <code>Accept-Encoding</code> header value allows gzip, ignoring preferences other than refusal by zero quality.
+     */
+    public static boolean isAccepted(final String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        for (final String coding : Splitter.on(',').trimResults().omitEmptyStrings().split(acceptEncoding)) {
+            final Iterable<String> parts = Splitter.on(';').trimResults().split(coding);
+            final String name = parts.iterator().next();
+
+            if (isGzip(name)) {
+                for (final String parameter : parts) {
+                    if (parameter.replace(" ", "").matches("[qQ]=0(\\.0*)?")) {
+                        return false;
+                    }
+                }
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns whether the <code>Content-Encoding</code> header value is gzip.
+     */
+    public static boolean isGzip(final String contentEncoding) {
+        return contentEncoding != null && (contentEncoding.trim().equalsIgnoreCase(GZIP) || contentEncoding.trim().equalsIgnoreCase("x-gzip"));
+    }
+}
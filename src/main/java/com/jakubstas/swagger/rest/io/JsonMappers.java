@@ -0,0 +1,36 @@
+package com.jakubstas.swagger.rest.io;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Jackson configuration shared by hand written JSON serialization. Mapper is configured the same way as the one used by Swagger's
+ * {@link com.wordnik.swagger.jaxrs.json.JacksonJsonProvider} so that streamed entities look exactly like the ones written by JAX-RS.
+ */
+public final class JsonMappers {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static {
+        MAPPER.setSerializationInclusion(JsonInclude.Include.NON_DEFAULT);
+        MAPPER.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        MAPPER.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    private JsonMappers() {
+    }
+
+    public static ObjectMapper getMapper() {
+        return MAPPER;
+    }
+
+    /**
+     * Returns a writer suitable for writing many values into a single generator without flushing the underlying stream after each of them.
+     */
+    public static ObjectWriter getStreamingWriter() {
+        return MAPPER.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+}
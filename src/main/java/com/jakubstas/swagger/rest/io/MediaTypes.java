@@ -0,0 +1,19 @@
+package com.jakubstas.swagger.rest.io;
+
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Media types not covered by {@link MediaType}.
+ */
+public final class MediaTypes {
+
+    /**
+     * Newline delimited JSON - one JSON document per line.
+     */
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    public static final MediaType APPLICATION_NDJSON_TYPE = new MediaType("application", "x-ndjson");
+
+    private MediaTypes() {
+    }
+}
@@ -0,0 +1,160 @@
+package com.jakubstas.swagger.rest.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Reads newline delimited JSON one line at a time, so a malformed line is reported on its own and does not prevent reading the following ones.
+ * Only the current line is held in memory, lines longer than the limit are skipped and reported as invalid. Blank lines are skipped.
+ */
+public class NdjsonReader<T> {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final InputStream input;
+
+    private final ObjectReader reader;
+
+    private final int maxLineLength;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private int position;
+
+    private int limit;
+
+    private byte[] line = new byte[256];
+
+    private int length;
+
+    private boolean tooLong;
+
+    private long lineNumber;
+
+    public NdjsonReader(final InputStream input, final Class<T> type, final int maxLineLength) {
+        this.input = input;
+        this.reader = JsonMappers.getMapper().reader(type);
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * Advances to the next line which is not blank.
+     *
+     * @return <code>false</code> at the end of input
+     */
+    public boolean next() throws IOException {
+        while (readLine()) {
+            if (tooLong || !isBlank()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns number of the current line starting at 1.
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns value of the current line.
+     *
+     * @throws IllegalArgumentException if the line is too long or it is not a valid JSON representation of the value
+     */
+    public T getValue() {
+        if (tooLong) {
+            throw new IllegalArgumentException("Line exceeds maximum length of " + maxLineLength + " bytes.");
+        }
+
+        try {
+            return reader.readValue(line, 0, length);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON! " + e.getOriginalMessage());
+        } catch (IOException e) {
+            // reading from memory does not fail otherwise
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean readLine() throws IOException {
+        length = 0;
+        tooLong = false;
+
+        boolean read = false;
+
+        while (true) {
+            if (position == limit) {
+                limit = input.read(buffer);
+                position = 0;
+
+                if (limit <= 0) {
+                    limit = 0;
+
+                    if (read) {
+                        lineNumber++;
+                    }
+                    return read;
+                }
+            }
+
+            read = true;
+
+            final int start = position;
+
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+
+            append(start, position);
+
+            if (position < limit) {
+                // line feed
+                position++;
+                lineNumber++;
+
+                if (length > 0 && line[length - 1] == '\r') {
+                    length--;
+                }
+                return true;
+            }
+        }
+    }
+
+    private void append(final int start, final int end) {
+        final int count = end - start;
+
+        if (tooLong || count == 0) {
+            return;
+        }
+
+        if (length + count > maxLineLength) {
+            tooLong = true;
+            length = 0;
+            return;
+        }
+
+        if (length + count > line.length) {
+            line = Arrays.copyOf(line, Math.min(maxLineLength, Math.max(line.length * 2, length + count)));
+        }
+
+        System.arraycopy(buffer, start, line, length, count);
+        length += count;
+    }
+
+    private boolean isBlank() {
+        for (int i = 0; i < length; i++) {
+            if (line[i] != ' ' && line[i] != '\t' && line[i] != '\r') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,44 @@
+package com.jakubstas.swagger.rest.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Writes entities as newline delimited JSON directly from the iterator, one entity per line.
+ */
+public class NdjsonStreamingOutput<T> implements StreamingOutput {
+
+    private final Iterable<T> entities;
+
+    public NdjsonStreamingOutput(final Iterable<T> entities) {
+        this.entities = entities;
+    }
+
+    @Override
+    public void write(final OutputStream output) throws IOException {
+        final ObjectWriter writer = JsonMappers.getStreamingWriter();
+        final JsonGenerator generator = JsonMappers.getMapper().getFactory().createGenerator(output, JsonEncoding.UTF8);
+
+        // root values are separated by line feeds instead of spaces
+        generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+
+        boolean empty = true;
+
+        for (final T entity : entities) {
+            writer.writeValue(generator, entity);
+            empty = false;
+        }
+
+        if (!empty) {
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+}
@@ -0,0 +1,152 @@
+package com.jakubstas.swagger.rest.io;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import com.google.common.base.Charsets;
+import com.jakubstas.swagger.model.EndpointLatency;
+import com.jakubstas.swagger.model.EndpointResourceUsage;
+import com.jakubstas.swagger.model.LatencySummary;
+import com.jakubstas.swagger.model.MetricsReport;
+import com.jakubstas.swagger.model.ResourceUsage;
+
+/**
+ * Writes request latencies in the Prometheus text exposition format as a single summary family labelled by resource method, status code and
+ * processing phase. Durations are converted to seconds. Resource usage of accounted requests follows as counters labelled by resource method and
+ * phase.
+ */
+public class PrometheusTextOutput implements StreamingOutput {
+
+    /**
+     * Version 0.0.4 of the text exposition format.
+     */
+    public static final String MEDIA_TYPE = "text/plain; version=0.0.4";
+
+    private static final String NAME = "http_server_request_duration_seconds";
+
+    private static final String ALLOCATED_NAME = "http_server_request_allocated_bytes_total";
+
+    private static final String CPU_NAME = "http_server_request_cpu_seconds_total";
+
+    private static final String ACCOUNTED_NAME = "http_server_request_accounted_total";
+
+    private static final double MILLIS_PER_SECOND = 1000.0;
+
+    private final MetricsReport report;
+
+    public PrometheusTextOutput(final MetricsReport report) {
+        this.report = report;
+    }
+
+    @Override
+    public void write(final OutputStream output) throws IOException {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(output, Charsets.UTF_8));
+
+        writer.write("# HELP " + NAME + " Latency of HTTP requests by resource method, status code and processing phase.\n");
+        writer.write("# TYPE " + NAME + " summary\n");
+
+        for (final EndpointLatency latency : report.getEndpoints()) {
+            writeSummary(writer, latency, "total", latency.getTotal());
+            writeSummary(writer, latency, "matching", latency.getMatching());
+            writeSummary(writer, latency, "resource_method", latency.getResourceMethod());
+            writeSummary(writer, latency, "entity_write", latency.getEntityWrite());
+        }
+
+        if (!report.getResourceUsage().isEmpty()) {
+            writer.write("# HELP " + ACCOUNTED_NAME + " Number of requests whose resource usage was accounted.\n");
+            writer.write("# TYPE " + ACCOUNTED_NAME + " counter\n");
+
+            for (final EndpointResourceUsage usage : report.getResourceUsage()) {
+                writeCounter(writer, ACCOUNTED_NAME, usage, "resource_method", usage.getResourceMethod(), CounterValue.COUNT);
+                writeCounter(writer, ACCOUNTED_NAME, usage, "entity_write", usage.getEntityWrite(), CounterValue.COUNT);
+            }
+
+            writer.write("# HELP " + ALLOCATED_NAME + " Bytes allocated in heap by accounted requests.\n");
+            writer.write("# TYPE " + ALLOCATED_NAME + " counter\n");
+
+            for (final EndpointResourceUsage usage : report.getResourceUsage()) {
+                writeCounter(writer, ALLOCATED_NAME, usage, "resource_method", usage.getResourceMethod(), CounterValue.ALLOCATED_BYTES);
+                writeCounter(writer, ALLOCATED_NAME, usage, "entity_write", usage.getEntityWrite(), CounterValue.ALLOCATED_BYTES);
+            }
+
+            writer.write("# HELP " + CPU_NAME + " CPU time used by accounted requests.\n");
+            writer.write("# TYPE " + CPU_NAME + " counter\n");
+
+            for (final EndpointResourceUsage usage : report.getResourceUsage()) {
+                writeCounter(writer, CPU_NAME, usage, "resource_method", usage.getResourceMethod(), CounterValue.CPU_TIME);
+                writeCounter(writer, CPU_NAME, usage, "entity_write", usage.getEntityWrite(), CounterValue.CPU_TIME);
+            }
+        }
+
+        writer.flush();
+    }
+
+    private static void writeSummary(final Writer writer, final EndpointLatency latency, final String phase, final LatencySummary summary)
+            throws IOException {
+        if (summary == null) {
+            return;
+        }
+
+        final String labels = "method=\"" + escape(latency.getHttpMethod()) + "\",path=\"" + escape(latency.getPath()) + "\",handler=\""
+                + escape(latency.getHandler()) + "\",status=\"" + latency.getStatus() + "\",phase=\"" + phase + "\"";
+
+        writeSample(writer, NAME, labels + ",quantile=\"0.5\"", summary.getP50() / MILLIS_PER_SECOND);
+        writeSample(writer, NAME, labels + ",quantile=\"0.9\"", summary.getP90() / MILLIS_PER_SECOND);
+        writeSample(writer, NAME, labels + ",quantile=\"0.99\"", summary.getP99() / MILLIS_PER_SECOND);
+        writeSample(writer, NAME, labels + ",quantile=\"0.999\"", summary.getP999() / MILLIS_PER_SECOND);
+        writeSample(writer, NAME + "_sum", labels, summary.getSum() / MILLIS_PER_SECOND);
+        writeSample(writer, NAME + "_count", labels, summary.getCount());
+    }
+
+    private static void writeCounter(final Writer writer, final String name, final EndpointResourceUsage usage, final String phase,
+            final ResourceUsage phaseUsage, final CounterValue value) throws IOException {
+        if (phaseUsage == null) {
+            return;
+        }
+
+        final String labels = "method=\"" + escape(usage.getHttpMethod()) + "\",path=\"" + escape(usage.getPath()) + "\",handler=\""
+                + escape(usage.getHandler()) + "\",phase=\"" + phase + "\"";
+
+        switch (value) {
+        case COUNT:
+            writeSample(writer, name, labels, phaseUsage.getCount());
+            break;
+        case ALLOCATED_BYTES:
+            writeSample(writer, name, labels, phaseUsage.getAllocatedBytes());
+            break;
+        case CPU_TIME:
+            writeSample(writer, name, labels, phaseUsage.getCpuTime() / MILLIS_PER_SECOND);
+            break;
+        }
+    }
+
+    private static void writeSample(final Writer writer, final String name, final String labels, final double value) throws IOException {
+        writeSample(writer, name, labels, Double.toString(value));
+    }
+
+    private static void writeSample(final Writer writer, final String name, final String labels, final long value) throws IOException {
+        writeSample(writer, name, labels, Long.toString(value));
+    }
+
+    private static void writeSample(final Writer writer, final String name, final String labels, final String value) throws IOException {
+        writer.write(name);
+        writer.write('{');
+        writer.write(labels);
+        writer.write("} ");
+        writer.write(value);
+        writer.write('\n');
+    }
+
+    private static String escape(final String value) {
+        return value == null ? "" : value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private enum CounterValue {
+        COUNT, ALLOCATED_BYTES, CPU_TIME
+    }
+}
@@ -0,0 +1,22 @@
+package com.jakubstas.swagger.rest.io;
+
+import com.jakubstas.swagger.model.Product;
+import com.jakubstas.swagger.model.ProductList;
+
+/**
+ * Product listing written by {@link StreamingProductListWriter} in the same format as {@link ProductList} without materializing the products.
+ * The <code>size</code> attribute is left out, counting a live view upfront would cost a pass over it and could disagree with the products
+ * written.
+ */
+public class StreamingProductList {
+
+    private final Iterable<Product> products;
+
+    public StreamingProductList(final Iterable<Product> products) {
+        this.products = products;
+    }
+
+    public Iterable<Product> getProducts() {
+        return products;
+    }
+}
@@ -0,0 +1,82 @@
+package com.jakubstas.swagger.rest.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.jakubstas.swagger.model.Product;
+import com.jakubstas.swagger.model.ProductList;
+
+/**
+ * Writes {@link StreamingProductList} with StAX, marshalling one product at a time. Produced document is compatible with the JAXB representation
+ * of {@link ProductList}, except that it has no <code>size</code> attribute.
+ */
+@Provider
+@Produces(MediaType.APPLICATION_XML)
+public class StreamingProductListWriter implements MessageBodyWriter<StreamingProductList> {
+
+    private static final String NAMESPACE = "com.jakubstas.swagger";
+
+    private static final String PREFIX = "ns1";
+
+    private static final QName PRODUCT = new QName("product");
+
+    private final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+
+    private final JAXBContext context;
+
+    public StreamingProductListWriter() throws JAXBException {
+        context = JAXBContext.newInstance(Product.class);
+    }
+
+    @Override
+    public boolean isWriteable(final Class<?> type, final Type genericType, final Annotation[] annotations, final MediaType mediaType) {
+        return StreamingProductList.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(final StreamingProductList productList, final Class<?> type, final Type genericType, final Annotation[] annotations, final MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(final StreamingProductList productList, final Class<?> type, final Type genericType, final Annotation[] annotations, final MediaType mediaType,
+            final MultivaluedMap<String, Object> httpHeaders, final OutputStream entityStream) throws IOException, WebApplicationException {
+        try {
+            final XMLStreamWriter writer = outputFactory.createXMLStreamWriter(entityStream, "UTF-8");
+            final Marshaller marshaller = context.createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeStartElement(PREFIX, "productList", NAMESPACE);
+            writer.writeNamespace(PREFIX, NAMESPACE);
+
+            for (final Product product : productList.getProducts()) {
+                marshaller.marshal(new JAXBElement<Product>(PRODUCT, Product.class, product), writer);
+            }
+
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException | JAXBException e) {
+            throw new IOException("Unable to write product list", e);
+        }
+    }
+}
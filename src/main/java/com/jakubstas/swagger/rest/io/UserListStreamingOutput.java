@@ -0,0 +1,51 @@
+package com.jakubstas.swagger.rest.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.jakubstas.swagger.model.User;
+import com.jakubstas.swagger.model.UserList;
+
+/**
+ * Writes users in the same format as {@link UserList} directly from the iterator without buffering them first. Count of users is computed while
+ * they are written and appended at the end of the document.
+ */
+public class UserListStreamingOutput implements StreamingOutput {
+
+    private final Iterable<User> users;
+
+    public UserListStreamingOutput(final Iterable<User> users) {
+        this.users = users;
+    }
+
+    @Override
+    public void write(final OutputStream output) throws IOException {
+        final ObjectWriter writer = JsonMappers.getStreamingWriter();
+        final JsonGenerator generator = JsonMappers.getMapper().getFactory().createGenerator(output, JsonEncoding.UTF8);
+        final Iterator<User> iterator = users.iterator();
+
+        generator.writeStartObject();
+
+        // empty list and zero count are default values omitted by the mapper
+        if (iterator.hasNext()) {
+            int count = 0;
+
+            generator.writeArrayFieldStart("users");
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                count++;
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("count", count);
+        }
+
+        generator.writeEndObject();
+        generator.flush();
+    }
+}
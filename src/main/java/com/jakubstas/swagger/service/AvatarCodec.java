@@ -0,0 +1,29 @@
+package com.jakubstas.swagger.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.jakubstas.swagger.model.Avatar;
+import com.jakubstas.swagger.service.journal.BinaryCodec;
+
+/**
+ * Binary layout of an avatar reference in the journal.
+ */
+class AvatarCodec extends BinaryCodec<Avatar> {
+
+    AvatarCodec() {
+        super(Avatar.class);
+    }
+
+    @Override
+    protected void write(final Avatar avatar, final DataOutput output) throws IOException {
+        writeString(output, avatar.getHash());
+        output.writeLong(avatar.getSize());
+    }
+
+    @Override
+    protected Avatar read(final DataInput input) throws IOException {
+        return new Avatar(readString(input), input.readLong());
+    }
+}
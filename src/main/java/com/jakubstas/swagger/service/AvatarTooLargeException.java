@@ -0,0 +1,6 @@
+package com.jakubstas.swagger.service;
+
+public class AvatarTooLargeException extends Exception {
+    private static final long serialVersionUID = 6114523869740519842L;
+
+}
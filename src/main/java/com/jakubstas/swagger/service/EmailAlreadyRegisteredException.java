@@ -0,0 +1,6 @@
+package com.jakubstas.swagger.service;
+
+public class EmailAlreadyRegisteredException extends Exception {
+    private static final long serialVersionUID = -6153082749527396470L;
+
+}
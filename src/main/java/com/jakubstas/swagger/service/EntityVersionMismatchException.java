@@ -0,0 +1,6 @@
+package com.jakubstas.swagger.service;
+
+public class EntityVersionMismatchException extends Exception {
+    private static final long serialVersionUID = -2195468204837362761L;
+
+}
@@ -0,0 +1,34 @@
+package com.jakubstas.swagger.service;
+
+import java.util.List;
+
+/**
+ * A single page of entities in stable key order.
+ */
+public class Page<T> {
+
+    private final List<T> items;
+
+    private final String lastKey;
+
+    public Page(final List<T> items, final String lastKey) {
+        this.items = items;
+        this.lastKey = lastKey;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Key of the last entity on this page if there are more entities to follow, <code>null</code> otherwise. Pages of ranked results hold the
+     * position the following page starts at instead.
+     */
+    public String getLastKey() {
+        return lastKey;
+    }
+
+    public boolean hasNext() {
+        return lastKey != null;
+    }
+}
@@ -0,0 +1,39 @@
+package com.jakubstas.swagger.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.jakubstas.swagger.model.Product;
+import com.jakubstas.swagger.service.journal.BinaryCodec;
+
+/**
+ * Binary layout of a product in the journal.
+ */
+class ProductCodec extends BinaryCodec<Product> {
+
+    ProductCodec() {
+        super(Product.class);
+    }
+
+    @Override
+    protected void write(final Product product, final DataOutput output) throws IOException {
+        writeString(output, product.getCode());
+        writeString(output, product.getName());
+        writeString(output, product.getDescription());
+        output.writeLong(product.getVersion());
+        writeDate(output, product.getLastUpdated());
+    }
+
+    @Override
+    protected Product read(final DataInput input) throws IOException {
+        final Product product = new Product();
+        product.setCode(readString(input));
+        product.setName(readString(input));
+        product.setDescription(readString(input));
+        product.setVersion(input.readLong());
+        product.setLastUpdated(readDate(input));
+
+        return product;
+    }
+}
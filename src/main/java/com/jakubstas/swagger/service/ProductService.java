@@ -1,83 +1,741 @@
 package com.jakubstas.swagger.service;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Striped;
 import com.jakubstas.swagger.model.Product;
+import com.jakubstas.swagger.model.ProductBatchResult;
+import com.jakubstas.swagger.model.ProductOperation;
+import com.jakubstas.swagger.model.ProductOperationResult;
+import com.jakubstas.swagger.service.journal.Journal;
+import com.jakubstas.swagger.service.journal.JournalConfiguration;
+import com.jakubstas.swagger.service.journal.JournalRecord;
+import com.jakubstas.swagger.service.journal.JournalRecord.Operation;
+import com.jakubstas.swagger.service.journal.RecordHandler;
+import com.jakubstas.swagger.service.journal.SnapshotSource;
+import com.jakubstas.swagger.service.search.InvertedIndex;
+import com.jakubstas.swagger.service.search.SearchHits;
+import com.jakubstas.swagger.service.search.Tokenizer;
 
 @Service
 public class ProductService {
 
-    private final Map<String, Product> products = new ConcurrentHashMap<String, Product>();
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Maximum number of operations in a batch.
+     */
+    public static final int MAX_BATCH_SIZE = 10000;
+
+    /**
+     * Number of best matches of a search query that can be paged through.
+     */
+    public static final int MAX_SEARCH_RESULTS = 10000;
+
+    private final Logger log = LoggerFactory.getLogger(ProductService.class);
+
+    private final ConcurrentNavigableMap<String, Product> products = new ConcurrentSkipListMap<String, Product>();
+
+    private final AtomicLong versions = new AtomicLong();
+
+    private final AtomicLong revision = new AtomicLong();
+
+    private volatile Date lastModified = new Date();
+
+    private final ProductCodec codec = new ProductCodec();
+
+    // words of product names and descriptions, changed together with the map under the lock of the product
+    private final InvertedIndex index = new InvertedIndex();
+
+    // orders changes of a product in the map and in the journal, readers never take it
+    private final Striped<Lock> locks = Striped.lock(64);
+
+    @Inject
+    private JournalConfiguration journalConfiguration;
+
+    private Journal journal;
+
+    // completes once the recovered catalog is fully in the map, until then single products are looked up in the journal
+    private volatile ListenableFuture<Void> recovery;
 
     @PostConstruct
     public void init() throws IOException {
-        final Product product1 = new Product();
-        product1.setCode("prod1");
-        product1.setName("Soap");
-        product1.setDescription("a bar of soap");
+        journal = journalConfiguration.createJournal("products");
+
+        if (journal.open()) {
+            recovery = journal.materialize(new RecordHandler() {
+
+                @Override
+                public void apply(final JournalRecord record) throws IOException {
+                    replay(record);
+                }
+            });
+        } else {
+            recovery = Futures.immediateFuture(null);
+            createDefaultProducts();
+        }
+
+        Futures.addCallback(recovery, new FutureCallback<Void>() {
+
+            @Override
+            public void onSuccess(final Void result) {
+                modified();
+
+                journal.scheduleSnapshots(journalConfiguration.getSnapshotInterval(), TimeUnit.SECONDS, new SnapshotSource() {
+
+                    @Override
+                    public Iterable<JournalRecord> getState() {
+                        return getSnapshot();
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(final Throwable t) {
+                log.error("Unable to recover products", t);
+            }
+        });
+    }
 
-        final Product product2 = new Product();
-        product2.setCode("prod2");
-        product2.setName("Water");
-        product2.setDescription("a bottle of water");
+    @PreDestroy
+    public void destroy() throws IOException {
+        journal.close();
+    }
 
-        products.put(product1.getCode(), product1);
-        products.put(product2.getCode(), product2);
+    private void createDefaultProducts() throws IOException {
+        try {
+            createProduct(snapshot("prod1", "Soap", "a bar of soap"));
+            createProduct(snapshot("prod2", "Water", "a bottle of water"));
+        } catch (EntityAlreadyExistsException e) {
+            throw new IllegalStateException("Unable to create default products", e);
+        }
     }
 
-    public Product createProduct(final Product product) throws EntityAlreadyExistsException {
+    public Product createProduct(final Product product) throws EntityAlreadyExistsException, IOException {
         Preconditions.checkArgument(StringUtils.hasText(product.getCode()), "Invalid product definition! Missing product code.");
         Preconditions.checkArgument(StringUtils.hasText(product.getName()), "Invalid product definition! Missing name.");
         Preconditions.checkArgument(StringUtils.hasText(product.getDescription()), "Invalid product definition! Missing description.");
 
-        if (products.containsKey(product.getCode())) {
-            throw new EntityAlreadyExistsException();
-        }
+        awaitRecovery();
 
-        products.put(product.getCode(), product);
+        final Product newProduct = snapshot(product.getCode(), product.getName(), product.getDescription());
+        final ListenableFuture<Void> commit;
+        final Lock lock = locks.get(newProduct.getCode());
 
-        return product;
+        journal.beginChange();
+        try {
+            lock.lock();
+            try {
+                if (products.putIfAbsent(newProduct.getCode(), newProduct) != null) {
+                    throw new EntityAlreadyExistsException();
+                }
+
+                index(newProduct);
+
+                commit = journal.append(new JournalRecord(Operation.CREATE, newProduct.getCode(), codec.encode(newProduct)));
+            } finally {
+                lock.unlock();
+            }
+
+            modified();
+
+            try {
+                Journal.await(commit);
+            } catch (IOException e) {
+                undo(newProduct.getCode(), newProduct, null);
+                throw e;
+            }
+        } finally {
+            journal.endChange();
+        }
+
+        return newProduct;
     }
 
     public Product findByCode(final String code) {
+        try {
+            final List<JournalRecord> records = journal.lookup(code);
+
+            if (records != null) {
+                return resolve(records);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to recover product " + code, e);
+        }
+
         return products.get(code);
     }
 
-    public Product updateProduct(final String productCode, final Product newProduct) throws EntityNotFoundException {
+    /**
+     * Replaces product with a new snapshot provided it is still in <code>expectedVersion</code>, or in any version if <code>expectedVersion</code>
+     * is <code>null</code>.
+     */
+    public Product updateProduct(final String productCode, final Product newProduct, final Long expectedVersion) throws EntityNotFoundException,
+            EntityVersionMismatchException, IOException {
         Preconditions.checkArgument(StringUtils.hasText(newProduct.getCode()), "Invalid product definition! Missing product code.");
         Preconditions.checkArgument(productCode.equals(newProduct.getCode()), "Product code mismatch.");
         Preconditions.checkArgument(StringUtils.hasText(newProduct.getName()), "Invalid product definition! Missing name.");
         Preconditions.checkArgument(StringUtils.hasText(newProduct.getDescription()), "Invalid product definition! Missing description.");
 
-        if (!products.containsKey(newProduct.getCode())) {
-            throw new EntityNotFoundException();
+        awaitRecovery();
+
+        final ListenableFuture<Void> commit;
+        final Product previousProduct;
+        final Product updatedProduct;
+        final Lock lock = locks.get(productCode);
+
+        journal.beginChange();
+        try {
+            lock.lock();
+            try {
+                previousProduct = products.get(productCode);
+
+                if (previousProduct == null) {
+                    throw new EntityNotFoundException();
+                }
+
+                if (expectedVersion != null && expectedVersion.longValue() != previousProduct.getVersion()) {
+                    throw new EntityVersionMismatchException();
+                }
+
+                // writers of the product hold its lock, so it can not change in between
+                updatedProduct = snapshot(productCode, newProduct.getName(), newProduct.getDescription());
+                products.put(productCode, updatedProduct);
+
+                index(updatedProduct);
+
+                commit = journal.append(new JournalRecord(Operation.UPDATE, productCode, codec.encode(updatedProduct)));
+            } finally {
+                lock.unlock();
+            }
+
+            modified();
+
+            try {
+                Journal.await(commit);
+            } catch (IOException e) {
+                undo(productCode, updatedProduct, previousProduct);
+                throw e;
+            }
+        } finally {
+            journal.endChange();
         }
 
-        final Product product = products.get(newProduct.getCode());
-        product.setName(newProduct.getName());
-        product.setDescription(newProduct.getDescription());
+        return updatedProduct;
+    }
 
-        return product;
+    /**
+     * Removes product provided it is still in <code>expectedVersion</code>, or in any version if <code>expectedVersion</code> is <code>null</code>.
+     */
+    public Product deleteProduct(final String code, final Long expectedVersion) throws EntityNotFoundException, EntityVersionMismatchException, IOException {
+        awaitRecovery();
+
+        final ListenableFuture<Void> commit;
+        final Product deletedProduct;
+        final Lock lock = locks.get(code);
+
+        journal.beginChange();
+        try {
+            lock.lock();
+            try {
+                deletedProduct = products.get(code);
+
+                if (deletedProduct == null) {
+                    throw new EntityNotFoundException();
+                }
+
+                if (expectedVersion != null && expectedVersion.longValue() != deletedProduct.getVersion()) {
+                    throw new EntityVersionMismatchException();
+                }
+
+                products.remove(code);
+
+                index.remove(code);
+
+                commit = journal.append(new JournalRecord(Operation.DELETE, code, codec.encode(deletedProduct)));
+            } finally {
+                lock.unlock();
+            }
+
+            modified();
+
+            try {
+                Journal.await(commit);
+            } catch (IOException e) {
+                undo(code, null, deletedProduct);
+                throw e;
+            }
+        } finally {
+            journal.endChange();
+        }
+
+        return deletedProduct;
     }
 
-    public Product deleteProduct(final String code) throws EntityNotFoundException {
-        if (!products.containsKey(code)) {
-            throw new EntityNotFoundException();
+    /**
+     * Applies the operations in their order. All products concerned are locked for the whole batch, operations are validated upfront, the catalog is
+     * modified once and changes are journaled together. An atomic batch is applied only if all of its operations succeed, its changes are
+     * recovered either all or none after a crash.
+     */
+    public ProductBatchResult applyBatch(final List<ProductOperation> operations, final boolean atomic) throws IOException {
+        Preconditions.checkArgument(operations != null && !operations.isEmpty(), "Invalid batch! Batch contains no operations.");
+        Preconditions.checkArgument(operations.size() <= MAX_BATCH_SIZE, "Invalid batch! Batch can contain at most " + MAX_BATCH_SIZE + " operations.");
+
+        final ProductOperationResult[] results = new ProductOperationResult[operations.size()];
+        final Set<String> codes = new TreeSet<String>();
+        boolean failed = false;
+
+        for (int i = 0; i < operations.size(); i++) {
+            final String message = validate(operations.get(i));
+
+            if (message != null) {
+                results[i] = new ProductOperationResult(i, getCode(operations.get(i)), ProductOperationResult.Status.INVALID, null, message);
+                failed = true;
+            } else {
+                codes.add(getCode(operations.get(i)));
+            }
+        }
+
+        if (failed && atomic) {
+            return rejectBatch(operations, results);
+        }
+
+        awaitRecovery();
+
+        final Iterable<Lock> batchLocks = locks.bulkGet(codes);
+        final List<JournalRecord> records = new ArrayList<JournalRecord>(codes.size());
+        // products as they are after the operations planned so far, null for deleted ones
+        final Map<String, Product> planned = new HashMap<String, Product>();
+        final Map<String, Product> previous = new HashMap<String, Product>();
+        final ListenableFuture<Void> commit;
+
+        journal.beginChange();
+        try {
+            for (final Lock lock : batchLocks) {
+                lock.lock();
+            }
+            try {
+                for (int i = 0; i < operations.size(); i++) {
+                    if (results[i] == null) {
+                        results[i] = plan(i, operations.get(i), planned, records);
+                        failed |= !isApplicable(results[i]);
+                    }
+                }
+
+                if (failed && atomic) {
+                    return rejectBatch(operations, results);
+                }
+
+                for (final Entry<String, Product> change : planned.entrySet()) {
+                    previous.put(change.getKey(), products.get(change.getKey()));
+
+                    if (change.getValue() == null) {
+                        products.remove(change.getKey());
+                        index.remove(change.getKey());
+                    } else {
+                        products.put(change.getKey(), change.getValue());
+                        index(change.getValue());
+                    }
+                }
+
+                if (records.isEmpty()) {
+                    commit = Futures.immediateFuture(null);
+                } else if (atomic) {
+                    commit = journal.appendAtomically(records);
+                } else {
+                    commit = journal.append(records.toArray(new JournalRecord[records.size()]));
+                }
+            } finally {
+                for (final Lock lock : batchLocks) {
+                    lock.unlock();
+                }
+            }
+
+            if (!records.isEmpty()) {
+                modified();
+            }
+
+            try {
+                Journal.await(commit);
+            } catch (IOException e) {
+                undo(planned, previous, batchLocks);
+                throw e;
+            }
+        } finally {
+            journal.endChange();
         }
 
-        return products.remove(code);
+        return new ProductBatchResult(!failed, Arrays.asList(results));
     }
 
     public Collection<Product> getAll() {
+        awaitRecovery();
+
         return products.values();
     }
+
+    /**
+     * Returns a live view of all products ordered by product code, starting right after <code>afterCode</code> (or from the first product if it is
+     * <code>null</code>).
+     */
+    public Collection<Product> getAll(final String afterCode) {
+        awaitRecovery();
+
+        return afterCode == null ? products.values() : products.tailMap(afterCode, false).values();
+    }
+
+    /**
+     * Returns revision of the catalog. Revision changes after every modification of the catalog and is not reused while the service runs, so it has
+     * to be read before the catalog itself. It restarts with the application, tags derived from it need to tell the runs apart.
+     */
+    public long getRevision() {
+        return revision.get();
+    }
+
+    /**
+     * Returns time of the last modification of the catalog.
+     */
+    public Date getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns at most <code>limit</code> products ordered by product code, starting right after <code>afterCode</code> (or from the first product if
+     * it is <code>null</code>).
+     */
+    public Page<Product> getPage(final String afterCode, final int limit) {
+        Preconditions.checkArgument(limit > 0 && limit <= MAX_PAGE_SIZE, "Invalid page size! Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+
+        awaitRecovery();
+
+        final ConcurrentNavigableMap<String, Product> view = afterCode == null ? products : products.tailMap(afterCode, false);
+        final List<Product> items = new ArrayList<Product>(Math.min(limit, 16));
+
+        for (final Product product : view.values()) {
+            items.add(product);
+
+            if (items.size() == limit) {
+                break;
+            }
+        }
+
+        final String lastCode = items.isEmpty() ? null : items.get(items.size() - 1).getCode();
+        final boolean hasMore = lastCode != null && items.size() == limit && products.higherKey(lastCode) != null;
+
+        return new Page<Product>(items, hasMore ? lastCode : null);
+    }
+
+    /**
+     * Returns at most <code>limit</code> products containing any word of the query in their name or description, best matches first, skipping
+     * <code>offset</code> best matches. Words are matched case insensitively, a word in the name weighs twice as much as in the description.
+     */
+    public Page<Product> search(final String query, final int offset, final int limit) {
+        Preconditions.checkArgument(StringUtils.hasText(query), "Invalid search query! Query must not be empty.");
+        Preconditions.checkArgument(limit > 0 && limit <= MAX_PAGE_SIZE, "Invalid page size! Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        Preconditions.checkArgument(offset >= 0 && offset < MAX_SEARCH_RESULTS, "Invalid page position! Only first " + MAX_SEARCH_RESULTS
+                + " results can be retrieved.");
+
+        awaitRecovery();
+
+        final SearchHits hits = index.search(Tokenizer.tokenize(query), offset, Math.min(limit, MAX_SEARCH_RESULTS - offset));
+        final List<Product> items = new ArrayList<Product>(hits.getKeys().size());
+
+        for (final String code : hits.getKeys()) {
+            final Product product = products.get(code);
+
+            // deleted since the search
+            if (product != null) {
+                items.add(product);
+            }
+        }
+
+        final int nextOffset = offset + hits.getKeys().size();
+        final boolean hasMore = nextOffset < Math.min(hits.getTotal(), MAX_SEARCH_RESULTS);
+
+        return new Page<Product>(items, hasMore ? Integer.toString(nextOffset) : null);
+    }
+
+    private String getCode(final ProductOperation operation) {
+        if (operation.getAction() == ProductOperation.Action.DELETE && StringUtils.hasText(operation.getCode())) {
+            return operation.getCode();
+        }
+
+        return operation.getProduct() == null ? operation.getCode() : operation.getProduct().getCode();
+    }
+
+    /**
+     * Returns why the operation is malformed, <code>null</code> if it is not.
+     */
+    private String validate(final ProductOperation operation) {
+        if (operation.getAction() == null) {
+            return "Invalid operation! Missing action.";
+        }
+
+        if (operation.getAction() == ProductOperation.Action.DELETE) {
+            return StringUtils.hasText(getCode(operation)) ? null : "Invalid operation! Missing product code.";
+        }
+
+        final Product product = operation.getProduct();
+
+        if (product == null) {
+            return "Invalid operation! Missing product.";
+        } else if (!StringUtils.hasText(product.getCode())) {
+            return "Invalid product definition! Missing product code.";
+        } else if (operation.getCode() != null && !operation.getCode().equals(product.getCode())) {
+            return "Product code mismatch.";
+        } else if (!StringUtils.hasText(product.getName())) {
+            return "Invalid product definition! Missing name.";
+        } else if (!StringUtils.hasText(product.getDescription())) {
+            return "Invalid product definition! Missing description.";
+        }
+
+        return null;
+    }
+
+    /**
+     * Plans the operation on top of the operations planned before.
+     */
+    private ProductOperationResult plan(final int index, final ProductOperation operation, final Map<String, Product> planned,
+            final List<JournalRecord> records) {
+        final String code = getCode(operation);
+        final Product current = planned.containsKey(code) ? planned.get(code) : products.get(code);
+
+        if (operation.getAction() == ProductOperation.Action.CREATE) {
+            if (current != null) {
+                return new ProductOperationResult(index, code, ProductOperationResult.Status.ALREADY_EXISTS, null, "Specified productCode is already taken.");
+            }
+
+            final Product newProduct = snapshot(code, operation.getProduct().getName(), operation.getProduct().getDescription());
+            planned.put(code, newProduct);
+            records.add(new JournalRecord(Operation.CREATE, code, codec.encode(newProduct)));
+
+            return new ProductOperationResult(index, code, ProductOperationResult.Status.CREATED, newProduct.getVersion(), null);
+        }
+
+        if (current == null) {
+            return new ProductOperationResult(index, code, ProductOperationResult.Status.NOT_FOUND, null, "Product with specified code does not exist.");
+        }
+
+        if (operation.getVersion() != null && operation.getVersion().longValue() != current.getVersion()) {
+            return new ProductOperationResult(index, code, ProductOperationResult.Status.VERSION_MISMATCH, null,
+                    "Product was modified since the specified version.");
+        }
+
+        if (operation.getAction() == ProductOperation.Action.UPDATE) {
+            final Product updatedProduct = snapshot(code, operation.getProduct().getName(), operation.getProduct().getDescription());
+            planned.put(code, updatedProduct);
+            records.add(new JournalRecord(Operation.UPDATE, code, codec.encode(updatedProduct)));
+
+            return new ProductOperationResult(index, code, ProductOperationResult.Status.UPDATED, updatedProduct.getVersion(), null);
+        }
+
+        planned.put(code, null);
+        records.add(new JournalRecord(Operation.DELETE, code, codec.encode(current)));
+
+        return new ProductOperationResult(index, code, ProductOperationResult.Status.DELETED, current.getVersion(), null);
+    }
+
+    private static boolean isApplicable(final ProductOperationResult result) {
+        switch (result.getStatus()) {
+        case CREATED:
+        case UPDATED:
+        case DELETED:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Returns result of an atomic batch that is not applied, operations that could be applied are reported as not applied.
+     */
+    private ProductBatchResult rejectBatch(final List<ProductOperation> operations, final ProductOperationResult[] results) {
+        final List<ProductOperationResult> rejected = new ArrayList<ProductOperationResult>(results.length);
+
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null || isApplicable(results[i])) {
+                rejected.add(new ProductOperationResult(i, getCode(operations.get(i)), ProductOperationResult.Status.NOT_APPLIED, null,
+                        "Batch was not applied because of other operations."));
+            } else {
+                rejected.add(results[i]);
+            }
+        }
+
+        return new ProductBatchResult(false, rejected);
+    }
+
+    private void replay(final JournalRecord record) throws IOException {
+        switch (record.getOperation()) {
+        case CREATE:
+        case UPDATE:
+            final Product product = codec.decode(record.getData());
+            products.put(record.getKey(), product);
+            index(product);
+
+            if (product.getVersion() > versions.get()) {
+                versions.set(product.getVersion());
+            }
+            break;
+        case DELETE:
+            final Product deletedProduct = codec.decode(record.getData());
+            products.remove(record.getKey());
+            index.remove(record.getKey());
+
+            if (deletedProduct.getVersion() > versions.get()) {
+                versions.set(deletedProduct.getVersion());
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Returns product described by recovered records.
+     */
+    private Product resolve(final List<JournalRecord> records) throws IOException {
+        Product product = null;
+
+        for (final JournalRecord record : records) {
+            switch (record.getOperation()) {
+            case CREATE:
+            case UPDATE:
+                product = codec.decode(record.getData());
+                break;
+            case DELETE:
+                product = null;
+                break;
+            default:
+                break;
+            }
+        }
+
+        return product;
+    }
+
+    private void index(final Product product) {
+        final List<String> terms = Tokenizer.tokenize(product.getName());
+
+        // name counts twice
+        terms.addAll(Tokenizer.tokenize(product.getName()));
+        terms.addAll(Tokenizer.tokenize(product.getDescription()));
+
+        index.put(product.getCode(), terms);
+    }
+
+    private void awaitRecovery() {
+        Futures.getUnchecked(recovery);
+    }
+
+    private Iterable<JournalRecord> getSnapshot() {
+        return Iterables.transform(products.values(), new Function<Product, JournalRecord>() {
+
+            @Override
+            public JournalRecord apply(final Product product) {
+                return new JournalRecord(Operation.CREATE, product.getCode(), codec.encode(product));
+            }
+        });
+    }
+
+    /**
+     * Creates a new version of product. Published snapshots are never modified, so readers always see a consistent product.
+     */
+    private Product snapshot(final String code, final String name, final String description) {
+        final Product product = new Product();
+        product.setCode(code);
+        product.setName(name);
+        product.setDescription(description);
+        product.setVersion(versions.incrementAndGet());
+        product.setLastUpdated(new Date());
+
+        return product;
+    }
+
+    /**
+     * Puts back the previous version of the product, or removes the product if there was none, after its change to <code>changed</code> (or its
+     * removal if it is <code>null</code>) could not be made durable. A later change of the product is left in place, its own commit decides about
+     * it.
+     */
+    private void undo(final String code, final Product changed, final Product previous) {
+        final Lock lock = locks.get(code);
+
+        lock.lock();
+        try {
+            restore(code, changed, previous);
+        } finally {
+            lock.unlock();
+        }
+
+        modified();
+    }
+
+    /**
+     * Undoes all changes of a batch which could not be made durable in the same way as {@link #undo(String, Product, Product)}.
+     */
+    private void undo(final Map<String, Product> changed, final Map<String, Product> previous, final Iterable<Lock> batchLocks) {
+        for (final Lock lock : batchLocks) {
+            lock.lock();
+        }
+        try {
+            for (final Entry<String, Product> change : changed.entrySet()) {
+                restore(change.getKey(), change.getValue(), previous.get(change.getKey()));
+            }
+        } finally {
+            for (final Lock lock : batchLocks) {
+                lock.unlock();
+            }
+        }
+
+        modified();
+    }
+
+    // caller holds the lock of the product
+    private void restore(final String code, final Product changed, final Product previous) {
+        if (products.get(code) != changed) {
+            return;
+        }
+
+        if (previous == null) {
+            products.remove(code);
+            index.remove(code);
+        } else {
+            products.put(code, previous);
+            index(previous);
+        }
+    }
+
+    private void modified() {
+        lastModified = new Date();
+        revision.incrementAndGet();
+    }
 }
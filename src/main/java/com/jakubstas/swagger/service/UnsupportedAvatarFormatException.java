@@ -0,0 +1,6 @@
+package com.jakubstas.swagger.service;
+
+public class UnsupportedAvatarFormatException extends Exception {
+    private static final long serialVersionUID = -4570273981355063172L;
+
+}
@@ -0,0 +1,39 @@
+package com.jakubstas.swagger.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.jakubstas.swagger.model.User;
+import com.jakubstas.swagger.service.journal.BinaryCodec;
+
+/**
+ * Binary layout of a user in the journal. Avatar is journaled separately.
+ */
+class UserCodec extends BinaryCodec<User> {
+
+    UserCodec() {
+        super(User.class);
+    }
+
+    @Override
+    protected void write(final User user, final DataOutput output) throws IOException {
+        writeString(output, user.getUserName());
+        writeString(output, user.getFirstName());
+        writeString(output, user.getSurname());
+        writeString(output, user.getEmail());
+        writeDate(output, user.getLastUpdated());
+    }
+
+    @Override
+    protected User read(final DataInput input) throws IOException {
+        final User user = new User();
+        user.setUserName(readString(input));
+        user.setFirstName(readString(input));
+        user.setSurname(readString(input));
+        user.setEmail(readString(input));
+        user.setLastUpdated(readDate(input));
+
+        return user;
+    }
+}
@@ -2,72 +2,684 @@ package com.jakubstas.swagger.service;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 import java.util.regex.Pattern;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.validator.EmailValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Multiset;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Striped;
+import com.jakubstas.swagger.model.Avatar;
+import com.jakubstas.swagger.model.AvatarReport;
 import com.jakubstas.swagger.model.User;
+import com.jakubstas.swagger.service.avatar.AvatarContent;
+import com.jakubstas.swagger.service.avatar.AvatarStore;
+import com.jakubstas.swagger.service.avatar.AvatarThumbnails;
+import com.jakubstas.swagger.service.journal.Journal;
+import com.jakubstas.swagger.service.journal.JournalConfiguration;
+import com.jakubstas.swagger.service.journal.JournalRecord;
+import com.jakubstas.swagger.service.journal.JournalRecord.Operation;
+import com.jakubstas.swagger.service.journal.RecordHandler;
+import com.jakubstas.swagger.service.journal.SnapshotSource;
 
 @Service
 public class UserService {
 
+    private final Logger log = LoggerFactory.getLogger(UserService.class);
+
     private final EmailValidator emailValidator = EmailValidator.getInstance();
 
     private final Pattern userNamePattern = Pattern.compile("[^a-z0-9]");
 
-    private final Map<String, User> users = new ConcurrentHashMap<String, User>();
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    public static final int MAX_BATCH_SIZE = 10000;
+
+    private final ConcurrentNavigableMap<String, User> users = new ConcurrentSkipListMap<String, User>();
+
+    // usernames by normalized email address, an address is claimed here before its user is put into the map
+    private final ConcurrentMap<String, String> emails = new ConcurrentHashMap<String, String>();
+
+    // normalized first names and surnames, each followed by NAME_SEPARATOR and the username
+    private final ConcurrentSkipListSet<String> names = new ConcurrentSkipListSet<String>();
+
+    private static final char NAME_SEPARATOR = '\u0000';
+
+    private final AtomicLong revision = new AtomicLong();
+
+    private volatile Date lastModified = new Date();
 
     private final Resource avatarStan = new ClassPathResource("avatars/1.png");
 
     private final Resource avatarKyle = new ClassPathResource("avatars/2.png");
 
+    private final UserCodec codec = new UserCodec();
+
+    private final AvatarCodec avatarCodec = new AvatarCodec();
+
+    // orders changes of a user in the map and in the journal
+    private final Striped<Lock> locks = Striped.lock(64);
+
+    @Inject
+    private JournalConfiguration journalConfiguration;
+
+    @Inject
+    private AvatarStore avatarStore;
+
+    @Inject
+    private AvatarThumbnails avatarThumbnails;
+
+    private Journal journal;
+
+    // completes once the recovered users are fully in the map, until then single users are looked up in the journal
+    private volatile ListenableFuture<Void> recovery;
+
     @PostConstruct
     public void init() throws IOException {
-        final byte[] avatarStanBytes = Files.readAllBytes(avatarStan.getFile().toPath());
-        final byte[] avatarKyleBytes = Files.readAllBytes(avatarKyle.getFile().toPath());
+        // avatar files stored before recovery and not referenced by the recovered users are leftovers of interrupted uploads
+        final long recoveryStart = System.currentTimeMillis();
+
+        journal = journalConfiguration.createJournal("users");
+
+        if (journal.open()) {
+            final ListenableFuture<Void> materialized = journal.materialize(new RecordHandler() {
+
+                @Override
+                public void apply(final JournalRecord record) throws IOException {
+                    replay(record);
+                }
+            });
+
+            // avatar reference counts are rebuilt before any write is accepted
+            recovery = Futures.transform(materialized, new Function<Void, Void>() {
+
+                @Override
+                public Void apply(final Void result) {
+                    avatarStore.recover(getAvatarReferences(), recoveryStart);
+                    return null;
+                }
+            });
+        } else {
+            recovery = Futures.immediateFuture(null);
+            createDefaultUsers();
+        }
+
+        Futures.addCallback(recovery, new FutureCallback<Void>() {
+
+            @Override
+            public void onSuccess(final Void result) {
+                modified();
+
+                journal.scheduleSnapshots(journalConfiguration.getSnapshotInterval(), TimeUnit.SECONDS, new SnapshotSource() {
 
+                    @Override
+                    public Iterable<JournalRecord> getState() {
+                        return getSnapshot();
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(final Throwable t) {
+                log.error("Unable to recover users", t);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void destroy() throws IOException {
+        journal.close();
+    }
+
+    private void createDefaultUsers() throws IOException {
         final User userStan = new User();
         userStan.setUserName("stan");
         userStan.setFirstName("Stanley");
         userStan.setSurname("Marsh");
         userStan.setEmail("stan@jakubstas.com");
-        userStan.setAvatar(avatarStanBytes);
-        userStan.setLastUpdated(new Date());
 
         final User userKyle = new User();
         userKyle.setUserName("kyle");
         userKyle.setFirstName("Kyle");
         userKyle.setSurname("Broflovski");
         userKyle.setEmail("kyle@jakubstas.com");
-        userKyle.setAvatar(avatarKyleBytes);
-        userKyle.setLastUpdated(new Date());
 
-        users.put(userStan.getUserName(), userStan);
-        users.put(userKyle.getUserName(), userKyle);
+        try (InputStream avatarStanIs = avatarStan.getInputStream(); InputStream avatarKyleIs = avatarKyle.getInputStream()) {
+            createUser(userStan);
+            createUser(userKyle);
+            updateAvatar(userStan.getUserName(), avatarStanIs);
+            updateAvatar(userKyle.getUserName(), avatarKyleIs);
+        } catch (EntityAlreadyExistsException | EmailAlreadyRegisteredException | EntityNotFoundException | AvatarTooLargeException
+                | UnsupportedAvatarFormatException e) {
+            throw new IllegalStateException("Unable to create default users", e);
+        }
     }
 
     public User findByUserName(final String userName) {
+        try {
+            final List<JournalRecord> records = journal.lookup(userName);
+
+            if (records != null) {
+                return resolve(records);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to recover user " + userName, e);
+        }
+
         return users.get(userName);
     }
 
     public Collection<User> getAll() {
+        awaitRecovery();
+
         return users.values();
     }
 
-    public User createUser(final User user) throws EntityAlreadyExistsException {
+    /**
+     * Returns revision of the user registry. Revision changes after every modification of users and is not reused while the service runs, so it has
+     * to be read before the users themselves. It restarts with the application, tags derived from it need to tell the runs apart.
+     */
+    public long getRevision() {
+        return revision.get();
+    }
+
+    /**
+     * Returns time of the last modification of users.
+     */
+    public Date getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns a live view of all users ordered by username, starting right after <code>afterUserName</code> (or from the first user if it is
+     * <code>null</code>).
+     */
+    public Collection<User> getAll(final String afterUserName) {
+        awaitRecovery();
+
+        return afterUserName == null ? users.values() : users.tailMap(afterUserName, false).values();
+    }
+
+    /**
+     * Returns at most <code>limit</code> users ordered by username, starting right after <code>afterUserName</code> (or from the first user if it is
+     * <code>null</code>).
+     */
+    public Page<User> getPage(final String afterUserName, final int limit) {
+        Preconditions.checkArgument(limit > 0 && limit <= MAX_PAGE_SIZE, "Invalid page size! Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+
+        awaitRecovery();
+
+        final ConcurrentNavigableMap<String, User> view = afterUserName == null ? users : users.tailMap(afterUserName, false);
+        final List<User> items = new ArrayList<User>(Math.min(limit, 16));
+
+        for (final User user : view.values()) {
+            items.add(user);
+
+            if (items.size() == limit) {
+                break;
+            }
+        }
+
+        final String lastUserName = items.isEmpty() ? null : items.get(items.size() - 1).getUserName();
+        final boolean hasMore = lastUserName != null && items.size() == limit && users.higherKey(lastUserName) != null;
+
+        return new Page<User>(items, hasMore ? lastUserName : null);
+    }
+
+    /**
+     * Returns user registered with the email address, compared case insensitively.
+     */
+    public User findByEmail(final String email) {
+        Preconditions.checkArgument(StringUtils.hasText(email), "Invalid email address! Email address must not be empty.");
+
+        awaitRecovery();
+
+        final String userName = emails.get(normalize(email));
+        final User user = userName == null ? null : users.get(userName);
+
+        // address may be claimed by a user not registered yet or still held by a previous version of the user
+        return user != null && normalize(email).equals(normalize(user.getEmail())) ? user : null;
+    }
+
+    /**
+     * Returns at most <code>limit</code> users whose first name or surname starts with the prefix, compared case insensitively. Users are ordered by
+     * the matching name, a user matching by both names is listed once under the lower one. Page starts right after the index key
+     * <code>afterKey</code> (or from the first match if it is <code>null</code>).
+     */
+    public Page<User> findByNamePrefix(final String prefix, final String afterKey, final int limit) {
+        Preconditions.checkArgument(StringUtils.hasText(prefix), "Invalid name prefix! Prefix must not be empty.");
+        Preconditions.checkArgument(limit > 0 && limit <= MAX_PAGE_SIZE, "Invalid page size! Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+
+        awaitRecovery();
+
+        final String normalizedPrefix = normalize(prefix);
+        final NavigableSet<String> matches = names.subSet(normalizedPrefix, true, normalizedPrefix + Character.MAX_VALUE, false);
+        final NavigableSet<String> view = afterKey == null ? matches : matches.tailSet(afterKey, false);
+        final List<User> items = new ArrayList<User>(Math.min(limit, 16));
+        String lastKey = null;
+
+        for (final String key : view) {
+            final User user = users.get(key.substring(key.indexOf(NAME_SEPARATOR) + 1));
+
+            if (user == null || !key.equals(getFirstMatchingNameKey(user, normalizedPrefix))) {
+                // stale entry of a user being updated or the other name of a user listed under the lower one
+                continue;
+            }
+
+            items.add(user);
+            lastKey = key;
+
+            if (items.size() == limit) {
+                break;
+            }
+        }
+
+        final boolean hasMore = items.size() == limit && matches.higher(lastKey) != null;
+
+        return new Page<User>(items, hasMore ? lastKey : null);
+    }
+
+    public User createUser(final User newUser) throws EntityAlreadyExistsException, EmailAlreadyRegisteredException, IOException {
+        checkNewUser(newUser);
+
+        awaitRecovery();
+
+        final User user = copy(newUser);
+        user.setUserName(newUser.getUserName().toLowerCase());
+        user.setLastUpdated(new Date());
+
+        final ListenableFuture<Void> commit;
+        final String email = normalize(user.getEmail());
+        final Lock lock = locks.get(user.getUserName());
+
+        journal.beginChange();
+        try {
+            lock.lock();
+            try {
+                if (emails.putIfAbsent(email, user.getUserName()) != null) {
+                    throw new EmailAlreadyRegisteredException();
+                }
+
+                if (users.putIfAbsent(user.getUserName(), user) != null) {
+                    emails.remove(email, user.getUserName());
+                    throw new EntityAlreadyExistsException();
+                }
+
+                indexNames(user);
+
+                commit = journal.append(new JournalRecord(Operation.CREATE, user.getUserName(), codec.encode(user)));
+            } finally {
+                lock.unlock();
+            }
+
+            modified();
+
+            try {
+                Journal.await(commit);
+            } catch (IOException e) {
+                undo(null, user);
+                throw e;
+            }
+        } finally {
+            journal.endChange();
+        }
+
+        return user;
+    }
+
+    /**
+     * Creates users validated by the same rules as {@link #createUser(User)}, each of them independently of the others. Users are locked in bulk and
+     * written to the journal by a single append.
+     *
+     * @return reason each user was not created in the order of given users, <code>null</code> for created users
+     */
+    public List<String> createUsers(final List<User> newUsers) throws IOException {
+        Preconditions.checkArgument(newUsers.size() <= MAX_BATCH_SIZE, "Invalid batch! Batch can contain at most " + MAX_BATCH_SIZE + " users.");
+
+        final String[] errors = new String[newUsers.size()];
+        final User[] copies = new User[newUsers.size()];
+        final Set<String> userNames = new TreeSet<String>();
+
+        for (int i = 0; i < newUsers.size(); i++) {
+            final User newUser = newUsers.get(i);
+
+            try {
+                checkNewUser(newUser);
+
+                final User user = copy(newUser);
+                user.setUserName(newUser.getUserName().toLowerCase());
+                user.setLastUpdated(new Date());
+                copies[i] = user;
+                userNames.add(user.getUserName());
+            } catch (IllegalArgumentException e) {
+                errors[i] = e.getMessage();
+            }
+        }
+
+        awaitRecovery();
+
+        final Iterable<Lock> batchLocks = locks.bulkGet(userNames);
+        final List<User> createdUsers = new ArrayList<User>(userNames.size());
+        final List<JournalRecord> records = new ArrayList<JournalRecord>(userNames.size());
+        final ListenableFuture<Void> commit;
+
+        journal.beginChange();
+        try {
+            for (final Lock lock : batchLocks) {
+                lock.lock();
+            }
+            try {
+                for (int i = 0; i < newUsers.size(); i++) {
+                    if (errors[i] != null) {
+                        continue;
+                    }
+
+                    final User user = copies[i];
+                    final String email = normalize(user.getEmail());
+
+                    if (emails.putIfAbsent(email, user.getUserName()) != null) {
+                        errors[i] = "Specified email address is already registered.";
+                    } else if (users.putIfAbsent(user.getUserName(), user) != null) {
+                        emails.remove(email, user.getUserName());
+                        errors[i] = "Specified username is already taken.";
+                    } else {
+                        indexNames(user);
+                        createdUsers.add(user);
+                        records.add(new JournalRecord(Operation.CREATE, user.getUserName(), codec.encode(user)));
+                    }
+                }
+
+                commit = records.isEmpty() ? Futures.<Void> immediateFuture(null) : journal.append(records.toArray(new JournalRecord[records.size()]));
+            } finally {
+                for (final Lock lock : batchLocks) {
+                    lock.unlock();
+                }
+            }
+
+            if (!records.isEmpty()) {
+                modified();
+            }
+
+            try {
+                Journal.await(commit);
+            } catch (IOException e) {
+                for (final User user : createdUsers) {
+                    undo(null, user);
+                }
+                throw e;
+            }
+        } finally {
+            journal.endChange();
+        }
+
+        return Arrays.asList(errors);
+    }
+
+    public User updateUser(final String userName, final String firstName, final String surname, final String email) throws EntityNotFoundException,
+            EmailAlreadyRegisteredException, IOException {
+        Preconditions.checkArgument(!StringUtils.hasText(email) || emailValidator.isValid(email), "Invalid user definition! Invalid format of email address.");
+
+        awaitRecovery();
+
+        final ListenableFuture<Void> commit;
+        final User previous;
+        final User user;
+        final Lock lock = locks.get(userName);
+
+        journal.beginChange();
+        try {
+            lock.lock();
+            try {
+                previous = users.get(userName);
+
+                if (previous == null) {
+                    throw new EntityNotFoundException();
+                }
+
+                final String previousEmail = normalize(previous.getEmail());
+                final boolean emailChanged = StringUtils.hasText(email) && !normalize(email).equals(previousEmail);
+
+                if (emailChanged) {
+                    // the address may still be claimed by the user itself if a change of it was not durable yet
+                    final String claimant = emails.putIfAbsent(normalize(email), userName);
+
+                    if (claimant != null && !claimant.equals(userName)) {
+                        throw new EmailAlreadyRegisteredException();
+                    }
+                }
+
+                // readers see either the previous or the updated user, never a user in between
+                user = copy(previous);
+
+                if (StringUtils.hasText(firstName)) {
+                    user.setFirstName(firstName);
+                }
+
+                if (StringUtils.hasText(surname)) {
+                    user.setSurname(surname);
+                }
+
+                if (emailChanged) {
+                    user.setEmail(email);
+                }
+
+                user.setLastUpdated(new Date());
+
+                // new names are indexed before the user is replaced, previous email address and names are released once the change is durable
+                indexNames(user);
+                users.put(userName, user);
+
+                commit = journal.append(new JournalRecord(Operation.UPDATE, userName, codec.encode(user)));
+            } finally {
+                lock.unlock();
+            }
+
+            modified();
+
+            try {
+                Journal.await(commit);
+            } catch (IOException e) {
+                undo(previous, user);
+                throw e;
+            }
+        } finally {
+            journal.endChange();
+        }
+
+        lock.lock();
+        try {
+            releaseClaims(previous);
+        } finally {
+            lock.unlock();
+        }
+
+        return user;
+    }
+
+    /**
+     * Stores the new avatar image and replaces the reference held by the user. The previous image is released once the change is durable, users
+     * uploading the same image share it.
+     */
+    public User updateAvatar(final String userName, final InputStream avatarIs) throws EntityNotFoundException, AvatarTooLargeException,
+            UnsupportedAvatarFormatException, IOException {
+        awaitRecovery();
+
+        final Avatar avatar = avatarStore.store(avatarIs);
+        final ListenableFuture<Void> commit;
+        final Avatar previousAvatar;
+        final User previous;
+        final User user;
+        final Lock lock = locks.get(userName);
+
+        journal.beginChange();
+        try {
+            lock.lock();
+            try {
+                previous = users.get(userName);
+
+                if (previous == null) {
+                    avatarStore.release(avatar);
+                    throw new EntityNotFoundException();
+                }
+
+                previousAvatar = previous.getAvatar();
+                user = copy(previous);
+                user.setAvatar(avatar);
+                users.put(userName, user);
+
+                commit = journal.append(new JournalRecord(Operation.AVATAR, userName, avatarCodec.encode(avatar)));
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                Journal.await(commit);
+            } catch (IOException e) {
+                if (undo(previous, user)) {
+                    avatarStore.release(avatar);
+                }
+                throw e;
+            }
+        } finally {
+            journal.endChange();
+        }
+
+        if (previousAvatar != null && avatarStore.release(previousAvatar)) {
+            avatarThumbnails.invalidate(previousAvatar);
+        }
+
+        return user;
+    }
+
+    public long getMaxAvatarSize() {
+        return avatarStore.getMaxSize();
+    }
+
+    /**
+     * Opens avatar image of the user for reading. Caller is responsible for closing the returned content.
+     *
+     * @return <code>null</code> if the user has no avatar
+     */
+    public AvatarContent openAvatar(final String userName) throws EntityNotFoundException, IOException {
+        while (true) {
+            final User user = findByUserName(userName);
+
+            if (user == null) {
+                throw new EntityNotFoundException();
+            }
+
+            final Avatar avatar = user.getAvatar();
+
+            if (avatar == null) {
+                return null;
+            }
+
+            try {
+                return avatarStore.open(avatar.getHash());
+            } catch (NoSuchFileException e) {
+                // replaced since the user was read
+                final User currentUser = findByUserName(userName);
+
+                if (currentUser != null && currentUser.getAvatar() != null && currentUser.getAvatar().getHash().equals(avatar.getHash())) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens avatar image with given content hash for reading. Caller is responsible for closing the returned content.
+     *
+     * @throws java.nio.file.NoSuchFileException if there is no such image
+     */
+    public AvatarContent openAvatarImage(final String hash) throws IOException {
+        return avatarStore.open(hash);
+    }
+
+    /**
+     * Returns how much space is saved by sharing identical avatar images.
+     */
+    public AvatarReport getAvatarReport() {
+        awaitRecovery();
+
+        final Map<String, Long> images = new HashMap<String, Long>();
+        long references = 0;
+        long referencedBytes = 0;
+
+        for (final User user : users.values()) {
+            final Avatar avatar = user.getAvatar();
+
+            if (avatar != null) {
+                images.put(avatar.getHash(), avatar.getSize());
+                references++;
+                referencedBytes += avatar.getSize();
+            }
+        }
+
+        long storedBytes = 0;
+
+        for (final Long size : images.values()) {
+            storedBytes += size;
+        }
+
+        final AvatarReport report = new AvatarReport();
+        report.setReferences(references);
+        report.setImages(images.size());
+        report.setReferencedBytes(referencedBytes);
+        report.setStoredBytes(storedBytes);
+
+        return report;
+    }
+
+    /**
+     * Returns the opened avatar downscaled to fit into a square of given size.
+     *
+     * @throws IllegalArgumentException if the size is not supported
+     * @throws java.util.concurrent.RejectedExecutionException if too many avatars are being resized
+     */
+    public byte[] getAvatarThumbnail(final AvatarContent content, final int size) throws IOException {
+        return avatarThumbnails.getThumbnail(content, size);
+    }
+
+    // package visible for benchmarks
+    void checkNewUser(final User user) {
         Preconditions.checkArgument(StringUtils.hasText(user.getUserName()), "Invalid user definition! Missing username.");
         Preconditions.checkArgument(StringUtils.hasText(user.getFirstName()), "Invalid user definition! Missing first name.");
         Preconditions.checkArgument(StringUtils.hasText(user.getSurname()), "Invalid user definition! Missing surname.");
@@ -78,51 +690,211 @@ public class UserService {
 
         Preconditions.checkArgument(!isInvalidUserName, "Invalid user definition! Username must contain only letters and numbers.");
         Preconditions.checkArgument(isValidEmail, "Invalid user definition! Invalid format of email address.");
+    }
 
-        if (users.containsKey(user.getUserName())) {
-            throw new EntityAlreadyExistsException();
+    private void replay(final JournalRecord record) throws IOException {
+        switch (record.getOperation()) {
+        case CREATE:
+        case UPDATE:
+            final User user = codec.decode(record.getData());
+            final User previous = users.put(record.getKey(), user);
+
+            if (previous != null) {
+                user.setAvatar(previous.getAvatar());
+                unindex(previous);
+            }
+            index(user);
+            break;
+        case AVATAR:
+            final User avatarUser = users.get(record.getKey());
+
+            if (avatarUser != null) {
+                final User updatedUser = copy(avatarUser);
+                updatedUser.setAvatar(avatarCodec.decode(record.getData()));
+                users.put(record.getKey(), updatedUser);
+            }
+            break;
+        case DELETE:
+            final User removed = users.remove(record.getKey());
+
+            if (removed != null) {
+                unindex(removed);
+            }
+            break;
         }
+    }
 
-        user.setUserName(user.getUserName().toLowerCase());
-        user.setLastUpdated(new Date());
-        users.put(user.getUserName(), user);
+    private void index(final User user) {
+        emails.put(normalize(user.getEmail()), user.getUserName());
+        indexNames(user);
+    }
 
-        return user;
+    private void unindex(final User user) {
+        emails.remove(normalize(user.getEmail()), user.getUserName());
+        names.removeAll(getNameKeys(user));
+    }
+
+    private void indexNames(final User user) {
+        names.addAll(getNameKeys(user));
     }
 
-    public User updateUser(final String userName, final String firstName, final String surname, final String email) throws EntityNotFoundException {
-        final User user = users.get(userName);
+    private Set<String> getNameKeys(final User user) {
+        return ImmutableSet.of(getNameKey(user.getFirstName(), user), getNameKey(user.getSurname(), user));
+    }
+
+    private String getFirstMatchingNameKey(final User user, final String normalizedPrefix) {
+        String firstKey = null;
 
-        if (user == null) {
-            throw new EntityNotFoundException();
+        for (final String key : getNameKeys(user)) {
+            if (key.startsWith(normalizedPrefix) && (firstKey == null || key.compareTo(firstKey) < 0)) {
+                firstKey = key;
+            }
         }
 
-        if (StringUtils.hasText(firstName)) {
-            user.setFirstName(firstName);
+        return firstKey;
+    }
+
+    private static String getNameKey(final String name, final User user) {
+        return normalize(name) + NAME_SEPARATOR + user.getUserName();
+    }
+
+    private static String normalize(final String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns user described by recovered records.
+     */
+    private User resolve(final List<JournalRecord> records) throws IOException {
+        User user = null;
+
+        for (final JournalRecord record : records) {
+            switch (record.getOperation()) {
+            case CREATE:
+            case UPDATE:
+                final User previous = user;
+                user = codec.decode(record.getData());
+
+                if (previous != null) {
+                    user.setAvatar(previous.getAvatar());
+                }
+                break;
+            case AVATAR:
+                if (user != null) {
+                    user.setAvatar(avatarCodec.decode(record.getData()));
+                }
+                break;
+            case DELETE:
+                user = null;
+                break;
+            }
         }
 
-        if (StringUtils.hasText(surname)) {
-            user.setFirstName(surname);
+        return user;
+    }
+
+    /**
+     * Puts back the previous version of the user, or removes the user if there was none, after its change could not be made durable. A later
+     * change of the user is left in place, its own commit decides about it. Email address and names claimed only by the changed version are
+     * released.
+     *
+     * @return <code>true</code> if the change was undone
+     */
+    private boolean undo(final User previous, final User changed) {
+        final String userName = changed.getUserName();
+        final Lock lock = locks.get(userName);
+        final boolean undone;
+
+        lock.lock();
+        try {
+            undone = users.get(userName) == changed;
+
+            if (undone && previous == null) {
+                users.remove(userName);
+            } else if (undone) {
+                users.put(userName, previous);
+            }
+
+            releaseClaims(changed);
+        } finally {
+            lock.unlock();
         }
 
-        if (StringUtils.hasText(email)) {
-            user.setFirstName(email);
+        modified();
+
+        return undone;
+    }
+
+    /**
+     * Releases email address and names of a version of the user which are not used by its current version. Caller holds the lock of the user.
+     */
+    private void releaseClaims(final User version) {
+        final User current = users.get(version.getUserName());
+        final String email = normalize(version.getEmail());
+
+        if (current == null || !email.equals(normalize(current.getEmail()))) {
+            emails.remove(email, version.getUserName());
         }
 
-        user.setLastUpdated(new Date());
+        final Set<String> currentNameKeys = current == null ? ImmutableSet.<String> of() : getNameKeys(current);
 
-        return user;
+        for (final String nameKey : getNameKeys(version)) {
+            if (!currentNameKeys.contains(nameKey)) {
+                names.remove(nameKey);
+            }
+        }
     }
 
-    public User updateAvatar(final String userName, final InputStream avatarIs) throws EntityNotFoundException, IOException {
-        final User user = users.get(userName);
+    /**
+     * Returns a copy of the user to be changed before it is put into the map. Users in the map are never changed, they are replaced.
+     */
+    private static User copy(final User user) {
+        final User copy = new User();
+        copy.setUserName(user.getUserName());
+        copy.setFirstName(user.getFirstName());
+        copy.setSurname(user.getSurname());
+        copy.setEmail(user.getEmail());
+        copy.setAvatar(user.getAvatar());
+        copy.setLastUpdated(user.getLastUpdated());
+
+        return copy;
+    }
 
-        if (user == null) {
-            throw new EntityNotFoundException();
+    private void awaitRecovery() {
+        Futures.getUnchecked(recovery);
+    }
+
+    private Iterable<JournalRecord> getSnapshot() {
+        return Iterables.concat(Iterables.transform(users.values(), new Function<User, List<JournalRecord>>() {
+
+            @Override
+            public List<JournalRecord> apply(final User user) {
+                final List<JournalRecord> records = new ArrayList<JournalRecord>(2);
+                records.add(new JournalRecord(Operation.CREATE, user.getUserName(), codec.encode(user)));
+
+                if (user.getAvatar() != null) {
+                    records.add(new JournalRecord(Operation.AVATAR, user.getUserName(), avatarCodec.encode(user.getAvatar())));
+                }
+
+                return records;
+            }
+        }));
+    }
+
+    private Multiset<String> getAvatarReferences() {
+        final Multiset<String> references = HashMultiset.create();
+
+        for (final User user : users.values()) {
+            if (user.getAvatar() != null) {
+                references.add(user.getAvatar().getHash());
+            }
         }
 
-        user.setAvatar(IOUtils.toByteArray(avatarIs));
+        return references;
+    }
 
-        return user;
+    private void modified() {
+        lastModified = new Date();
+        revision.incrementAndGet();
     }
 }
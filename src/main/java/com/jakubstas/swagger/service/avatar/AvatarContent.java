@@ -0,0 +1,36 @@
+package com.jakubstas.swagger.service.avatar;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+import com.jakubstas.swagger.model.Avatar;
+
+/**
+ * Avatar image opened for reading together with the reference it was opened for. The channel stays readable even if the image is replaced in
+ * the meantime.
+ */
+public class AvatarContent implements Closeable {
+
+    private final Avatar avatar;
+
+    private final FileChannel channel;
+
+    public AvatarContent(final Avatar avatar, final FileChannel channel) {
+        this.avatar = avatar;
+        this.channel = channel;
+    }
+
+    public Avatar getAvatar() {
+        return avatar;
+    }
+
+    public FileChannel getChannel() {
+        return channel;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
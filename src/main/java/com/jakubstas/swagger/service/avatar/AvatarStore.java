@@ -0,0 +1,214 @@
+package com.jakubstas.swagger.service.avatar;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.regex.Pattern;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Striped;
+import com.jakubstas.swagger.model.Avatar;
+import com.jakubstas.swagger.service.AvatarTooLargeException;
+import com.jakubstas.swagger.service.UnsupportedAvatarFormatException;
+
+/**
+ * Keeps avatar images as files in the store directory, so their bytes live in the page cache instead of the heap. Images are served by
+ * transferring them directly from the file channel.
+ * <p>
+ * Images are addressed by the SHA-256 hash of their content, identical uploads share a single file. Every reference handed out by
+ * {@link #store(InputStream)} has to be released by {@link #release(Avatar)} once it is no longer used, the file is deleted with the last
+ * reference. Reference counts are not persisted, they are rebuilt from recovered references by {@link #recover(Multiset, long)}.
+ */
+@Service
+public class AvatarStore {
+
+    private static final String SUFFIX = ".png";
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private static final byte[] PNG_SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private final Logger log = LoggerFactory.getLogger(AvatarStore.class);
+
+    private final ConcurrentHashMultiset<String> references = ConcurrentHashMultiset.create();
+
+    // orders changes of a reference count and existence of the file
+    private final Striped<Lock> locks = Striped.lock(64);
+
+    @Value("${store.directory}")
+    private String storeDirectory;
+
+    @Value("${avatar.maxSize}")
+    private long maxSize;
+
+    private File directory;
+
+    @PostConstruct
+    public void init() throws IOException {
+        directory = new File(storeDirectory, "avatars");
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create avatar directory " + directory);
+        }
+    }
+
+    /**
+     * Stores the PNG image and returns a new reference to it. The image is spooled in fixed-size chunks to a temporary file, which is moved into
+     * the store once complete, unless the store already holds the same image.
+     */
+    public Avatar store(final InputStream image) throws AvatarTooLargeException, UnsupportedAvatarFormatException, IOException {
+        final byte[] buffer = new byte[CHUNK_SIZE];
+
+        // format is checked before anything is written
+        if (IOUtils.read(image, buffer, 0, PNG_SIGNATURE.length) < PNG_SIGNATURE.length
+                || !Arrays.equals(Arrays.copyOf(buffer, PNG_SIGNATURE.length), PNG_SIGNATURE)) {
+            throw new UnsupportedAvatarFormatException();
+        }
+
+        final File tmpFile = new File(directory, "upload-" + UUID.randomUUID().toString() + ".tmp");
+        final Hasher hasher = Hashing.sha256().newHasher();
+        long size = PNG_SIGNATURE.length;
+
+        try (FileOutputStream output = new FileOutputStream(tmpFile)) {
+            hasher.putBytes(buffer, 0, PNG_SIGNATURE.length);
+            output.write(buffer, 0, PNG_SIGNATURE.length);
+
+            int read;
+
+            while ((read = image.read(buffer)) != -1) {
+                size += read;
+
+                if (size > maxSize) {
+                    throw new AvatarTooLargeException();
+                }
+
+                hasher.putBytes(buffer, 0, read);
+                output.write(buffer, 0, read);
+            }
+
+            output.getChannel().force(true);
+        } catch (IOException | AvatarTooLargeException e) {
+            delete(tmpFile);
+            throw e;
+        }
+
+        final Avatar avatar = new Avatar(hasher.hash().toString(), size);
+        final File file = file(avatar.getHash());
+        final Lock lock = locks.get(avatar.getHash());
+
+        lock.lock();
+        try {
+            if (file.exists()) {
+                delete(tmpFile);
+            } else {
+                Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+
+            references.add(avatar.getHash());
+        } finally {
+            lock.unlock();
+        }
+
+        return avatar;
+    }
+
+    /**
+     * Releases a reference returned by {@link #store(InputStream)} and deletes the image if it was the last one.
+     *
+     * @return <code>true</code> if the image was deleted
+     */
+    public boolean release(final Avatar avatar) {
+        final Lock lock = locks.get(avatar.getHash());
+
+        lock.lock();
+        try {
+            if (references.remove(avatar.getHash(), 1) != 1) {
+                return false;
+            }
+
+            delete(file(avatar.getHash()));
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Maximum size of an image in bytes.
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Opens the image with given content hash for reading.
+     *
+     * @throws java.nio.file.NoSuchFileException if there is no such image
+     */
+    public AvatarContent open(final String hash) throws IOException {
+        if (!HASH.matcher(hash).matches()) {
+            throw new NoSuchFileException(hash);
+        }
+
+        final FileChannel channel = FileChannel.open(file(hash).toPath(), StandardOpenOption.READ);
+
+        return new AvatarContent(new Avatar(hash, channel.size()), channel);
+    }
+
+    /**
+     * Adds recovered references to the reference counts and deletes images which are not referenced and were stored before
+     * <code>storedBefore</code>, i.e. leftovers of uploads interrupted by a crash.
+     */
+    public void recover(final Multiset<String> recovered, final long storedBefore) {
+        references.addAll(recovered);
+
+        final File[] files = directory.listFiles();
+
+        if (files == null) {
+            return;
+        }
+
+        for (final File file : files) {
+            final String name = file.getName();
+            final String hash = name.endsWith(SUFFIX) ? name.substring(0, name.length() - SUFFIX.length()) : null;
+
+            if ((hash == null || !references.contains(hash)) && file.lastModified() < storedBefore) {
+                log.info("Deleting unreferenced avatar file {}", file);
+                delete(file);
+            }
+        }
+    }
+
+    private File file(final String hash) {
+        return new File(directory, hash + SUFFIX);
+    }
+
+    private void delete(final File file) {
+        if (file.exists() && !file.delete()) {
+            log.warn("Unable to delete avatar file {}", file);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.jakubstas.swagger.service.avatar;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.jakubstas.swagger.model.Avatar;
+
+/**
+ * Produces downscaled PNG derivatives of avatar images in supported sizes.
+ * <p>
+ * Derivatives are kept in a cache bounded by their total size in bytes and evicted in least recently used order. Concurrent requests for the same
+ * missing derivative wait for a single resize job. Jobs run on a bounded pool, a request finding the pool and its queue full is rejected instead
+ * of queueing up more work.
+ */
+@Service
+public class AvatarThumbnails {
+
+    private static final int QUEUE_SIZE = 64;
+
+    @Value("${avatar.thumbnailSizes}")
+    private String thumbnailSizes;
+
+    @Value("${avatar.thumbnailCacheSize}")
+    private long cacheSize;
+
+    private final Set<Integer> sizes = new TreeSet<Integer>();
+
+    private Cache<Key, byte[]> cache;
+
+    private ThreadPoolExecutor resizers;
+
+    @PostConstruct
+    public void init() {
+        // images are read from channels of stored files, there is nothing to gain from caching them on disk again
+        ImageIO.setUseCache(false);
+
+        for (final String size : Splitter.on(',').trimResults().omitEmptyStrings().split(thumbnailSizes)) {
+            sizes.add(Integer.valueOf(size));
+        }
+
+        cache = CacheBuilder.newBuilder().maximumWeight(cacheSize).weigher(new Weigher<Key, byte[]>() {
+
+            @Override
+            public int weigh(final Key key, final byte[] thumbnail) {
+                return thumbnail.length;
+            }
+        }).build();
+
+        final int threads = Runtime.getRuntime().availableProcessors();
+        resizers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(QUEUE_SIZE),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("avatar-resizer-%d").build());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        resizers.shutdownNow();
+    }
+
+    /**
+     * Returns the image of opened avatar downscaled to fit into a square of given size. Images smaller than the square are not enlarged.
+     *
+     * @throws IllegalArgumentException if the size is not supported
+     * @throws RejectedExecutionException if the derivative is not cached and too many images are being resized
+     */
+    public byte[] getThumbnail(final AvatarContent content, final int size) throws IOException {
+        Preconditions.checkArgument(sizes.contains(size), "Unsupported avatar size! Supported sizes are " + sizes + ".");
+
+        try {
+            return cache.get(new Key(content.getAvatar().getHash(), size), new Callable<byte[]>() {
+
+                @Override
+                public byte[] call() throws Exception {
+                    return resizers.submit(new Callable<byte[]>() {
+
+                        @Override
+                        public byte[] call() throws IOException {
+                            return resize(content, size);
+                        }
+                    }).get();
+                }
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            final Throwable cause = e.getCause() instanceof ExecutionException ? e.getCause().getCause() : e.getCause();
+
+            Throwables.propagateIfInstanceOf(cause, IOException.class);
+            throw Throwables.propagate(cause);
+        }
+    }
+
+    /**
+     * Removes all derivatives of the image.
+     */
+    public void invalidate(final Avatar avatar) {
+        for (final Integer size : sizes) {
+            cache.invalidate(new Key(avatar.getHash(), size));
+        }
+    }
+
+    private byte[] resize(final AvatarContent content, final int size) throws IOException {
+        final InputStream input = Channels.newInputStream(content.getChannel().position(0));
+        final BufferedImage image = ImageIO.read(input);
+
+        if (image == null) {
+            throw new IOException("Avatar " + content.getAvatar().getHash() + " is not a readable image");
+        }
+
+        final double scale = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+        final int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        final int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        final BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics = thumbnail.createGraphics();
+
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(thumbnail, "png", output);
+
+        return output.toByteArray();
+    }
+
+    private static class Key {
+
+        private final String hash;
+
+        private final int size;
+
+        Key(final String hash, final int size) {
+            this.hash = hash;
+            this.size = size;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * hash.hashCode() + size;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            final Key other = (Key) obj;
+
+            return size == other.size && hash.equals(other.hash);
+        }
+    }
+}
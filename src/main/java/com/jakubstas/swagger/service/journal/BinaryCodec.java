@@ -0,0 +1,83 @@
+package com.jakubstas.swagger.service.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * Encodes entities stored in the {@link Journal} in a compact binary form. Fields are written in a fixed order without any names, so the layout
+ * of an entity may only change together with the journal format.
+ */
+public abstract class BinaryCodec<T> {
+
+    private final Class<T> entityClass;
+
+    protected BinaryCodec(final Class<T> entityClass) {
+        this.entityClass = entityClass;
+    }
+
+    public byte[] encode(final T entity) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+
+        try {
+            write(entity, new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode " + entityClass.getSimpleName(), e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    public T decode(final byte[] data) throws IOException {
+        return read(new DataInputStream(new ByteArrayInputStream(data)));
+    }
+
+    protected abstract void write(T entity, DataOutput output) throws IOException;
+
+    protected abstract T read(DataInput input) throws IOException;
+
+    /**
+     * Writes UTF-8 encoded string prefixed with its length, or <code>-1</code> for <code>null</code>.
+     */
+    protected static void writeString(final DataOutput output, final String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    protected static String readString(final DataInput input) throws IOException {
+        final int length = input.readInt();
+
+        if (length < 0) {
+            return null;
+        }
+
+        final byte[] bytes = new byte[length];
+        input.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    protected static void writeDate(final DataOutput output, final Date value) throws IOException {
+        output.writeBoolean(value != null);
+
+        if (value != null) {
+            output.writeLong(value.getTime());
+        }
+    }
+
+    protected static Date readDate(final DataInput input) throws IOException {
+        return input.readBoolean() ? new Date(input.readLong()) : null;
+    }
+}
@@ -0,0 +1,106 @@
+package com.jakubstas.swagger.service.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Encoding of a single record shared by journal segments and snapshots: <code>[int length][int crc32][byte operation][UTF key][data]</code>.
+ */
+final class Frames {
+
+    static final int HEADER_SIZE = 8;
+
+    static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+
+    private Frames() {
+    }
+
+    /**
+     * Writes the framed record and returns number of bytes written.
+     */
+    static int write(final DataOutput output, final JournalRecord record) throws IOException {
+        final ByteArrayOutputStream payload = new ByteArrayOutputStream(record.getData().length + record.getKey().length() + 8);
+        final DataOutputStream payloadOutput = new DataOutputStream(payload);
+        payloadOutput.writeByte(record.getOperation().ordinal());
+        payloadOutput.writeUTF(record.getKey());
+        payloadOutput.write(record.getData());
+
+        final byte[] bytes = payload.toByteArray();
+
+        output.writeInt(bytes.length);
+        output.writeInt(checksum(bytes));
+        output.write(bytes);
+
+        return HEADER_SIZE + bytes.length;
+    }
+
+    /**
+     * Frames the records one after another into data of a single batch record.
+     */
+    static JournalRecord batch(final List<JournalRecord> records) throws IOException {
+        final ByteArrayOutputStream frames = new ByteArrayOutputStream(128 * records.size());
+        final DataOutputStream output = new DataOutputStream(frames);
+
+        for (final JournalRecord record : records) {
+            write(output, record);
+        }
+
+        return new JournalRecord(JournalRecord.Operation.BATCH, "", frames.toByteArray());
+    }
+
+    /**
+     * Decodes records framed in data of a batch record.
+     */
+    static List<JournalRecord> unbatch(final JournalRecord batch) throws IOException {
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(batch.getData()));
+        final List<JournalRecord> records = new ArrayList<JournalRecord>();
+
+        while (input.available() > 0) {
+            final int length = input.readInt();
+            final int checksum = input.readInt();
+
+            if (!isValidLength(length) || length > input.available()) {
+                throw new IOException("Corrupted record in journal batch");
+            }
+
+            final byte[] payload = new byte[length];
+            input.readFully(payload);
+
+            if (checksum(payload) != checksum) {
+                throw new IOException("Corrupted record in journal batch");
+            }
+
+            records.add(decode(payload));
+        }
+
+        return records;
+    }
+
+    static boolean isValidLength(final int length) {
+        return length > 0 && length <= MAX_RECORD_SIZE;
+    }
+
+    static int checksum(final byte[] payload) {
+        final CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        return (int) crc.getValue();
+    }
+
+    static JournalRecord decode(final byte[] payload) throws IOException {
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+        final JournalRecord.Operation operation = JournalRecord.Operation.values()[input.readByte()];
+        final String key = input.readUTF();
+        final byte[] data = new byte[input.available()];
+        input.readFully(data);
+
+        return new JournalRecord(operation, key, data);
+    }
+}
@@ -0,0 +1,645 @@
+package com.jakubstas.swagger.service.journal;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Append-only, checksummed log of entity changes with periodic compacted snapshots.
+ * <p>
+ * Records are written by a single writer thread which commits all records queued in the meantime with a single write and a single
+ * <code>fsync</code> (group commit). The log is split into segments, a snapshot always starts a new segment so that older segments can be deleted
+ * once the snapshot is durable. Recovery maps the snapshot (see {@link MappedSnapshot}) and reads all following segments, records of a single key
+ * can be looked up before the whole state is materialized.
+ * <p>
+ * Services publish a change before its records are durable and undo it if they can not be made durable. Such a change is wrapped by
+ * {@link #beginChange()} and {@link #endChange()}, a snapshot whose state may include a change undone meanwhile is discarded.
+ * <p>
+ * Each record is framed as <code>[int length][int crc32][byte operation][UTF key][data]</code>, a frame with invalid length or checksum marks the
+ * torn end of a segment.
+ */
+public class Journal implements Closeable {
+
+    private static final int SEGMENT_MAGIC = 0x534a4c32;
+
+    private static final int MAX_BATCH_SIZE = 4096;
+
+    private static final String SNAPSHOT_FILE = "snapshot.dat";
+
+    private static final Pattern SEGMENT_FILE = Pattern.compile("journal-(\\d+)\\.log");
+
+    private final Logger log = LoggerFactory.getLogger(Journal.class);
+
+    private final String name;
+
+    private final File directory;
+
+    private final BlockingQueue<Command> queue = new LinkedBlockingQueue<Command>();
+
+    private final AtomicLong recordsSinceSnapshot = new AtomicLong();
+
+    private final Object snapshotLock = new Object();
+
+    // shared by changes in progress, exclusive while a snapshot checks for failed commits
+    private final ReadWriteLock changes = new ReentrantReadWriteLock();
+
+    private final AtomicLong failedCommits = new AtomicLong();
+
+    private ExecutorService writer;
+
+    private ScheduledExecutorService snapshotScheduler;
+
+    private volatile boolean running;
+
+    private volatile Recovery recovery;
+
+    // accessed by the writer thread only once the journal is running
+    private FileChannel segment;
+
+    private long segmentSequence;
+
+    public Journal(final String name, final File directory) {
+        this.name = name;
+        this.directory = directory;
+    }
+
+    /**
+     * Opens the journal for appending. The snapshot is only mapped, records of following segments are decoded in parallel. Recovered records are
+     * available through {@link #lookup(String)} until they are materialized by {@link #materialize(RecordHandler)}.
+     *
+     * @return <code>true</code> if any previously persisted state was found
+     */
+    public boolean open() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create journal directory " + directory);
+        }
+
+        final long start = System.currentTimeMillis();
+        final File snapshotFile = new File(directory, SNAPSHOT_FILE);
+        final MappedSnapshot snapshot = snapshotFile.isFile() ? MappedSnapshot.open(snapshotFile) : null;
+        final long firstSegment = snapshot != null ? snapshot.getFirstSegment() : 0;
+        final List<File> files = new ArrayList<File>();
+        long lastSequence = firstSegment - 1;
+
+        for (final Long sequence : listSegments()) {
+            if (sequence < firstSegment) {
+                deleteSegment(sequence);
+            } else {
+                files.add(segmentFile(sequence));
+                lastSequence = sequence;
+            }
+        }
+
+        final List<JournalRecord> records = new ArrayList<JournalRecord>();
+        final ListMultimap<String, JournalRecord> recordsByKey = ArrayListMultimap.create();
+
+        for (final List<JournalRecord> segmentRecords : decodeInParallel(files)) {
+            records.addAll(segmentRecords);
+        }
+
+        for (final JournalRecord record : records) {
+            recordsByKey.put(record.getKey(), record);
+        }
+
+        final boolean found = snapshot != null || !files.isEmpty();
+
+        if (found) {
+            recovery = new Recovery(snapshot, records, recordsByKey);
+        }
+
+        log.info("Opened journal '{}' with {} snapshot records and {} records in {} segments in {} ms", name, snapshot != null ? snapshot.size() : 0,
+                records.size(), files.size(), System.currentTimeMillis() - start);
+
+        openSegment(Math.max(lastSequence + 1, firstSegment));
+        recordsSinceSnapshot.set(records.size());
+
+        running = true;
+        writer = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("journal-" + name + "-writer").build());
+        writer.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        });
+
+        return found;
+    }
+
+    /**
+     * Returns recovered records of the key in their original order, decoding only the part of the snapshot holding the key. Returns
+     * <code>null</code> once all recovered records were materialized.
+     */
+    public List<JournalRecord> lookup(final String key) throws IOException {
+        final Recovery current = recovery;
+
+        if (current == null) {
+            return null;
+        }
+
+        final List<JournalRecord> records = new ArrayList<JournalRecord>();
+
+        if (current.snapshot != null) {
+            records.addAll(current.snapshot.find(key));
+        }
+
+        records.addAll(current.recordsByKey.get(key));
+
+        return records;
+    }
+
+    /**
+     * Replays all recovered records into the handler in the background. Returned future completes once the handler received all of them, the
+     * mapped snapshot is released by then.
+     */
+    public ListenableFuture<Void> materialize(final RecordHandler handler) {
+        final Recovery current = recovery;
+
+        if (current == null) {
+            return Futures.immediateFuture(null);
+        }
+
+        final ListeningExecutorService materializer = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true).setNameFormat("journal-" + name + "-recovery").build()));
+
+        try {
+            return materializer.submit(new Callable<Void>() {
+
+                @Override
+                public Void call() throws IOException {
+                    final long start = System.currentTimeMillis();
+
+                    if (current.snapshot != null) {
+                        current.snapshot.replay(handler);
+                    }
+
+                    for (final JournalRecord record : current.records) {
+                        handler.apply(record);
+                    }
+
+                    recovery = null;
+
+                    log.info("Materialized journal '{}' in {} ms", name, System.currentTimeMillis() - start);
+
+                    return null;
+                }
+            });
+        } finally {
+            materializer.shutdown();
+        }
+    }
+
+    /**
+     * Queues records for appending. Records queued by one thread are written in the order they were queued. Returned future completes once the
+     * records are durable.
+     */
+    public ListenableFuture<Void> append(final JournalRecord... records) {
+        final SettableFuture<Void> commit = SettableFuture.create();
+
+        if (!running) {
+            failedCommits.incrementAndGet();
+            commit.setException(new IOException("Journal '" + name + "' is not open"));
+            return commit;
+        }
+
+        final ByteArrayOutputStream frames = new ByteArrayOutputStream(128 * records.length);
+
+        try {
+            final DataOutputStream output = new DataOutputStream(frames);
+
+            for (final JournalRecord record : records) {
+                Frames.write(output, record);
+            }
+        } catch (IOException e) {
+            failedCommits.incrementAndGet();
+            commit.setException(e);
+            return commit;
+        }
+
+        queue.add(new Command(frames.toByteArray(), commit));
+        recordsSinceSnapshot.addAndGet(records.length);
+
+        return commit;
+    }
+
+    /**
+     * Queues records for appending as a single frame, so either all of them or none are recovered after a crash. Returned future completes once
+     * the records are durable.
+     */
+    public ListenableFuture<Void> appendAtomically(final List<JournalRecord> records) {
+        try {
+            return append(Frames.batch(records));
+        } catch (IOException e) {
+            failedCommits.incrementAndGet();
+            return Futures.immediateFailedFuture(e);
+        }
+    }
+
+    /**
+     * Marks start of a change which is visible before its records are durable. The change has to be ended by {@link #endChange()} on the same
+     * thread once its records are durable or the change is undone.
+     */
+    public void beginChange() {
+        changes.readLock().lock();
+    }
+
+    public void endChange() {
+        changes.readLock().unlock();
+    }
+
+    /**
+     * Waits until records queued by {@link #append(JournalRecord...)} are durable.
+     */
+    public static void await(final ListenableFuture<Void> commit) throws IOException {
+        Futures.get(commit, IOException.class);
+    }
+
+    /**
+     * Writes a compacted snapshot of the state and removes the segments it supersedes. The snapshot is discarded if a commit failed while the state
+     * was read, as the state may include a change undone meanwhile.
+     */
+    public void snapshot(final SnapshotSource source) throws IOException {
+        synchronized (snapshotLock) {
+            final long start = System.currentTimeMillis();
+            final long superseded = recordsSinceSnapshot.getAndSet(0);
+            final long failed = getSettledFailures();
+
+            // state is read only after the new segment is started, so each change is either in the snapshot or in the new segment (or in both)
+            final long firstSegment = roll();
+            final File snapshot = new File(directory, SNAPSHOT_FILE);
+            final File tmpSnapshot = new File(directory, SNAPSHOT_FILE + ".tmp");
+            final long records = MappedSnapshot.write(tmpSnapshot, firstSegment, source.getState());
+
+            if (getSettledFailures() != failed) {
+                Files.delete(tmpSnapshot.toPath());
+                recordsSinceSnapshot.addAndGet(superseded);
+
+                throw new IOException("Snapshot of journal '" + name + "' discarded, a commit failed while it was taken");
+            }
+
+            Files.move(tmpSnapshot.toPath(), snapshot.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            for (final Long sequence : listSegments()) {
+                if (sequence < firstSegment) {
+                    deleteSegment(sequence);
+                }
+            }
+
+            log.info("Snapshot of journal '{}' with {} records superseding {} journal records written in {} ms", name, records, superseded,
+                    System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Periodically writes a snapshot whenever records were appended since the previous one.
+     */
+    public void scheduleSnapshots(final long interval, final TimeUnit unit, final SnapshotSource source) {
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("journal-" + name + "-snapshot").build());
+        snapshotScheduler.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                if (recordsSinceSnapshot.get() == 0) {
+                    return;
+                }
+
+                try {
+                    snapshot(source);
+                } catch (IOException | RuntimeException e) {
+                    log.error("Unable to write snapshot of journal '" + name + "'", e);
+                }
+            }
+        }, interval, interval, unit);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+
+        if (writer != null) {
+            running = false;
+            writer.shutdown();
+
+            try {
+                writer.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (segment != null) {
+            segment.close();
+        }
+    }
+
+    /**
+     * Returns number of failed commits once no change is in progress, so all changes which failed so far are undone.
+     */
+    private long getSettledFailures() {
+        changes.writeLock().lock();
+        try {
+            return failedCommits.get();
+        } finally {
+            changes.writeLock().unlock();
+        }
+    }
+
+    private long roll() throws IOException {
+        final SettableFuture<Void> rolled = SettableFuture.create();
+
+        queue.add(new Command(null, rolled));
+        await(rolled);
+
+        return segmentSequence;
+    }
+
+    private void writeLoop() {
+        final List<Command> batch = new ArrayList<Command>();
+
+        while (running || !queue.isEmpty()) {
+            try {
+                final Command first = queue.poll(100, TimeUnit.MILLISECONDS);
+
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(final List<Command> batch) {
+        final List<Command> pending = new ArrayList<Command>(batch.size());
+        int pendingBytes = 0;
+
+        for (final Command command : batch) {
+            if (command.frames != null) {
+                pending.add(command);
+                pendingBytes += command.frames.length;
+            } else {
+                commit(pending, pendingBytes);
+                pending.clear();
+                pendingBytes = 0;
+
+                try {
+                    segment.close();
+                    openSegment(segmentSequence + 1);
+                    command.commit.set(null);
+                } catch (IOException e) {
+                    command.commit.setException(e);
+                }
+            }
+        }
+
+        commit(pending, pendingBytes);
+    }
+
+    private void commit(final List<Command> commands, final int size) {
+        if (commands.isEmpty()) {
+            return;
+        }
+
+        try {
+            final ByteBuffer buffer = ByteBuffer.allocate(size);
+
+            for (final Command command : commands) {
+                buffer.put(command.frames);
+            }
+
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                segment.write(buffer);
+            }
+            segment.force(false);
+
+            for (final Command command : commands) {
+                command.commit.set(null);
+            }
+        } catch (IOException e) {
+            log.error("Unable to append to journal '" + name + "'", e);
+            failedCommits.incrementAndGet();
+
+            for (final Command command : commands) {
+                command.commit.setException(e);
+            }
+        }
+    }
+
+    private void openSegment(final long sequence) throws IOException {
+        final FileChannel channel = FileChannel.open(segmentFile(sequence).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+        if (channel.size() == 0) {
+            final ByteBuffer header = ByteBuffer.allocate(4).putInt(SEGMENT_MAGIC);
+            header.flip();
+            channel.write(header);
+            channel.force(true);
+        }
+
+        segment = channel;
+        segmentSequence = sequence;
+    }
+
+    private List<List<JournalRecord>> decodeInParallel(final List<File> files) throws IOException {
+        if (files.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final int threads = Math.min(files.size(), Runtime.getRuntime().availableProcessors());
+        final ExecutorService decoders = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setDaemon(true).setNameFormat("journal-" + name + "-recovery-%d").build());
+
+        try {
+            final List<Future<List<JournalRecord>>> futures = new ArrayList<Future<List<JournalRecord>>>(files.size());
+
+            for (final File file : files) {
+                futures.add(decoders.submit(new Callable<List<JournalRecord>>() {
+
+                    @Override
+                    public List<JournalRecord> call() throws IOException {
+                        return readSegment(file);
+                    }
+                }));
+            }
+
+            final List<List<JournalRecord>> results = new ArrayList<List<JournalRecord>>(files.size());
+
+            for (final Future<List<JournalRecord>> future : futures) {
+                results.add(future.get());
+            }
+
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Recovery of journal '" + name + "' was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Unable to recover journal '" + name + "'", e.getCause());
+        } finally {
+            decoders.shutdown();
+        }
+    }
+
+    private List<JournalRecord> readSegment(final File file) throws IOException {
+        final List<JournalRecord> records = new ArrayList<JournalRecord>();
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024))) {
+            if (input.readInt() != SEGMENT_MAGIC) {
+                throw new IOException("File " + file + " is not a journal file");
+            }
+
+            while (true) {
+                final JournalRecord record = readFrame(input);
+
+                if (record == null) {
+                    break;
+                }
+
+                if (record.getOperation() == JournalRecord.Operation.BATCH) {
+                    records.addAll(Frames.unbatch(record));
+                } else {
+                    records.add(record);
+                }
+            }
+        } catch (EOFException e) {
+            // empty segment
+        }
+
+        return records;
+    }
+
+    private JournalRecord readFrame(final DataInputStream input) throws IOException {
+        final byte[] payload;
+        final int checksum;
+
+        try {
+            final int length = input.readInt();
+
+            if (!Frames.isValidLength(length)) {
+                return null;
+            }
+
+            checksum = input.readInt();
+            payload = new byte[length];
+            input.readFully(payload);
+        } catch (EOFException e) {
+            return null;
+        }
+
+        if (Frames.checksum(payload) != checksum) {
+            log.warn("Torn record found in journal '{}', ignoring the rest of the segment", name);
+            return null;
+        }
+
+        return Frames.decode(payload);
+    }
+
+    private List<Long> listSegments() {
+        final List<Long> sequences = new ArrayList<Long>();
+        final String[] names = directory.list();
+
+        if (names != null) {
+            for (final String fileName : names) {
+                final Matcher matcher = SEGMENT_FILE.matcher(fileName);
+
+                if (matcher.matches()) {
+                    sequences.add(Long.valueOf(matcher.group(1)));
+                }
+            }
+        }
+
+        Collections.sort(sequences);
+
+        return sequences;
+    }
+
+    private File segmentFile(final long sequence) {
+        return new File(directory, String.format("journal-%016d.log", sequence));
+    }
+
+    private void deleteSegment(final long sequence) {
+        if (!segmentFile(sequence).delete()) {
+            log.warn("Unable to delete superseded segment {} of journal '{}'", sequence, name);
+        }
+    }
+
+    /**
+     * Recovered state which is not materialized yet.
+     */
+    private static class Recovery {
+
+        private final MappedSnapshot snapshot;
+
+        private final List<JournalRecord> records;
+
+        private final ListMultimap<String, JournalRecord> recordsByKey;
+
+        Recovery(final MappedSnapshot snapshot, final List<JournalRecord> records, final ListMultimap<String, JournalRecord> recordsByKey) {
+            this.snapshot = snapshot;
+            this.records = records;
+            this.recordsByKey = recordsByKey;
+        }
+    }
+
+    /**
+     * Queued frames to append, or a request to start a new segment if there are no frames.
+     */
+    private static class Command {
+
+        private final byte[] frames;
+
+        private final SettableFuture<Void> commit;
+
+        Command(final byte[] frames, final SettableFuture<Void> commit) {
+            this.frames = frames;
+            this.commit = commit;
+        }
+    }
+}
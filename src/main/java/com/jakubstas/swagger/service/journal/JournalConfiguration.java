@@ -0,0 +1,65 @@
+package com.jakubstas.swagger.service.journal;
+
+import java.io.File;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration bean for journals persisting state of services. The default store directory lies in the temporary directory, which suits
+ * development only.
+ */
+@Component
+public class JournalConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(JournalConfiguration.class);
+
+    @Value("${store.directory}")
+    private String directory;
+
+    @Value("${store.snapshotInterval}")
+    private long snapshotInterval;
+
+    @PostConstruct
+    public void init() {
+        final File temporary = new File(System.getProperty("java.io.tmpdir")).getAbsoluteFile();
+
+        for (File parent = new File(directory).getAbsoluteFile(); parent != null; parent = parent.getParentFile()) {
+            if (parent.equals(temporary)) {
+                log.warn("Store directory {} lies in the temporary directory, stored data may be lost on reboot. Set store.directory to a persistent"
+                        + " directory.", directory);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Creates journal persisted in its own subdirectory of the store directory.
+     */
+    public Journal createJournal(final String name) {
+        return new Journal(name, new File(directory, name));
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Interval between snapshots in seconds.
+     */
+    public long getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    public void setSnapshotInterval(long snapshotInterval) {
+        this.snapshotInterval = snapshotInterval;
+    }
+}
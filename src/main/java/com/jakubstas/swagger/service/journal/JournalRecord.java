@@ -0,0 +1,40 @@
+package com.jakubstas.swagger.service.journal;
+
+/**
+ * Single change of an entity recorded in the {@link Journal}.
+ */
+public class JournalRecord {
+
+    public enum Operation {
+        CREATE, UPDATE, DELETE, AVATAR,
+
+        /**
+         * Records appended atomically, framed one after another in the data. Batches are expanded when the journal is read, handlers never see them.
+         */
+        BATCH
+    }
+
+    private final Operation operation;
+
+    private final String key;
+
+    private final byte[] data;
+
+    public JournalRecord(final Operation operation, final String key, final byte[] data) {
+        this.operation = operation;
+        this.key = key;
+        this.data = data == null ? new byte[0] : data;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+}
@@ -0,0 +1,219 @@
+package com.jakubstas.swagger.service.journal;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Snapshot file read through a memory mapping.
+ * <p>
+ * The file consists of <code>[int magic][long firstSegment]</code>, the records framed the same way as in journal segments, an index of record
+ * positions sorted by key and a footer <code>[int count][long indexPosition][int magic]</code>. Records of a single key can be found by a binary
+ * search of the index, so only the records actually looked up are decoded until the whole snapshot is replayed.
+ */
+final class MappedSnapshot {
+
+    static final int MAGIC = 0x534e5032;
+
+    private static final int HEADER_SIZE = 12;
+
+    private static final int FOOTER_SIZE = 16;
+
+    private final ByteBuffer buffer;
+
+    private final long firstSegment;
+
+    private final int count;
+
+    private final int indexPosition;
+
+    private MappedSnapshot(final ByteBuffer buffer, final long firstSegment, final int count, final int indexPosition) {
+        this.buffer = buffer;
+        this.firstSegment = firstSegment;
+        this.count = count;
+        this.indexPosition = indexPosition;
+    }
+
+    /**
+     * Writes the records into a new snapshot file and returns number of records written. The file is synced, but not published.
+     */
+    static long write(final File file, final long firstSegment, final Iterable<JournalRecord> records) throws IOException {
+        final List<IndexEntry> index = new ArrayList<IndexEntry>();
+
+        try (FileOutputStream fileOutput = new FileOutputStream(file)) {
+            final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileOutput, 64 * 1024));
+            long position = HEADER_SIZE;
+
+            output.writeInt(MAGIC);
+            output.writeLong(firstSegment);
+
+            for (final JournalRecord record : records) {
+                index.add(new IndexEntry(record.getKey(), (int) position));
+                position += Frames.write(output, record);
+
+                if (position + 4L * index.size() + FOOTER_SIZE > Integer.MAX_VALUE) {
+                    throw new IOException("Snapshot " + file + " exceeds maximum size of a mapped file");
+                }
+            }
+
+            // sort is stable, records of a key stay in their original order
+            Collections.sort(index, IndexEntry.BY_KEY);
+
+            for (final IndexEntry entry : index) {
+                output.writeInt(entry.position);
+            }
+
+            output.writeInt(index.size());
+            output.writeLong(position);
+            output.writeInt(MAGIC);
+            output.flush();
+            fileOutput.getChannel().force(true);
+        }
+
+        return index.size();
+    }
+
+    static MappedSnapshot open(final File file) throws IOException {
+        final ByteBuffer buffer;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+
+            if (size < HEADER_SIZE + FOOTER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("File " + file + " is not a journal snapshot");
+            }
+
+            // the mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        final int footer = buffer.limit() - FOOTER_SIZE;
+        final int count = buffer.getInt(footer);
+        final long indexPosition = buffer.getLong(footer + 4);
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(footer + 12) != MAGIC || count < 0 || indexPosition < HEADER_SIZE
+                || indexPosition + 4L * count != footer) {
+            throw new IOException("File " + file + " is not a complete journal snapshot");
+        }
+
+        return new MappedSnapshot(buffer, buffer.getLong(4), count, (int) indexPosition);
+    }
+
+    long getFirstSegment() {
+        return firstSegment;
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * Decodes records of the key in their original order.
+     */
+    List<JournalRecord> find(final String key) throws IOException {
+        final ByteBuffer view = buffer.duplicate();
+        int low = 0;
+        int high = count;
+
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+
+            if (readKey(view, positionAt(view, middle)).compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        final List<JournalRecord> records = new ArrayList<JournalRecord>(2);
+
+        for (int i = low; i < count; i++) {
+            final int position = positionAt(view, i);
+
+            if (!readKey(view, position).equals(key)) {
+                break;
+            }
+
+            view.position(position);
+            records.add(readFrame(view));
+        }
+
+        return records;
+    }
+
+    /**
+     * Decodes all records in their original order and applies them to the handler.
+     */
+    void replay(final RecordHandler handler) throws IOException {
+        final ByteBuffer view = buffer.duplicate();
+        view.position(HEADER_SIZE);
+
+        while (view.position() < indexPosition) {
+            handler.apply(readFrame(view));
+        }
+    }
+
+    private int positionAt(final ByteBuffer view, final int index) {
+        return view.getInt(indexPosition + 4 * index);
+    }
+
+    private String readKey(final ByteBuffer view, final int position) throws IOException {
+        // key is written by writeUTF right after the frame header and the operation
+        final int keyPosition = position + Frames.HEADER_SIZE + 1;
+        final byte[] key = new byte[2 + (view.getShort(keyPosition) & 0xffff)];
+
+        view.position(keyPosition);
+        view.get(key);
+
+        return new DataInputStream(new ByteArrayInputStream(key)).readUTF();
+    }
+
+    private JournalRecord readFrame(final ByteBuffer view) throws IOException {
+        final int length = view.getInt();
+        final int checksum = view.getInt();
+
+        if (!Frames.isValidLength(length) || length > indexPosition - view.position()) {
+            throw new IOException("Corrupted record in journal snapshot");
+        }
+
+        final byte[] payload = new byte[length];
+        view.get(payload);
+
+        if (Frames.checksum(payload) != checksum) {
+            throw new IOException("Corrupted record in journal snapshot");
+        }
+
+        return Frames.decode(payload);
+    }
+
+    private static class IndexEntry {
+
+        private static final Comparator<IndexEntry> BY_KEY = new Comparator<IndexEntry>() {
+
+            @Override
+            public int compare(final IndexEntry first, final IndexEntry second) {
+                return first.key.compareTo(second.key);
+            }
+        };
+
+        private final String key;
+
+        private final int position;
+
+        IndexEntry(final String key, final int position) {
+            this.key = key;
+            this.position = position;
+        }
+    }
+}
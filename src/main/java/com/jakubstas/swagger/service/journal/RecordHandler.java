@@ -0,0 +1,11 @@
+package com.jakubstas.swagger.service.journal;
+
+import java.io.IOException;
+
+/**
+ * Applies recovered records to the state of a service.
+ */
+public interface RecordHandler {
+
+    void apply(JournalRecord record) throws IOException;
+}
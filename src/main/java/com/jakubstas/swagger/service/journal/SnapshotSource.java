@@ -0,0 +1,9 @@
+package com.jakubstas.swagger.service.journal;
+
+/**
+ * Provides records which recreate the complete current state of a service.
+ */
+public interface SnapshotSource {
+
+    Iterable<JournalRecord> getState();
+}
@@ -0,0 +1,259 @@
+package com.jakubstas.swagger.service.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Inverted index of documents identified by string keys, with results ranked by BM25.
+ * <p>
+ * Documents are numbered internally and every term maps to an immutable {@link Postings} list of document numbers. A change publishes new lists of
+ * the affected terms, so searches never take a lock and see each list either before or after the change. Changes are serialized among
+ * themselves. Numbers of removed documents are reused, a search running concurrently with changes may therefore miss a document being changed or
+ * return a key that is just being removed.
+ */
+public class InvertedIndex {
+
+    private static final float K1 = 1.2f;
+
+    private static final float B = 0.75f;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final Comparator<Hit> WORST_FIRST = new Comparator<Hit>() {
+
+        @Override
+        public int compare(final Hit first, final Hit second) {
+            final int byScore = Float.compare(first.score, second.score);
+
+            // equally scored documents are ordered by key
+            return byScore != 0 ? byScore : second.key.compareTo(first.key);
+        }
+    };
+
+    private final ConcurrentMap<String, Postings> postings = new ConcurrentHashMap<String, Postings>();
+
+    private volatile AtomicReferenceArray<String> keys = new AtomicReferenceArray<String>(INITIAL_CAPACITY);
+
+    private volatile AtomicIntegerArray lengths = new AtomicIntegerArray(INITIAL_CAPACITY);
+
+    private volatile int documentCount;
+
+    private volatile long totalLength;
+
+    // following fields are accessed only by writers holding the monitor
+
+    private final Map<String, Integer> numbers = new HashMap<String, Integer>();
+
+    private final Map<Integer, Map<String, Integer>> documentTerms = new HashMap<Integer, Map<String, Integer>>();
+
+    private final Deque<Integer> freeNumbers = new ArrayDeque<Integer>();
+
+    private int nextNumber;
+
+    /**
+     * Indexes the document or replaces its previous terms.
+     */
+    public synchronized void put(final String key, final List<String> terms) {
+        final Map<String, Integer> frequencies = new HashMap<String, Integer>();
+
+        for (final String term : terms) {
+            final Integer frequency = frequencies.get(term);
+            frequencies.put(term, frequency == null ? 1 : frequency + 1);
+        }
+
+        Integer number = numbers.get(key);
+        final Map<String, Integer> previousFrequencies;
+
+        if (number == null) {
+            number = allocate(key);
+            previousFrequencies = Collections.emptyMap();
+            documentCount++;
+        } else {
+            previousFrequencies = documentTerms.get(number);
+            totalLength -= lengths.get(number);
+        }
+
+        for (final Entry<String, Integer> frequency : frequencies.entrySet()) {
+            if (!frequency.getValue().equals(previousFrequencies.get(frequency.getKey()))) {
+                final Postings termPostings = postings.get(frequency.getKey());
+                postings.put(frequency.getKey(), (termPostings == null ? Postings.EMPTY : termPostings).with(number, frequency.getValue()));
+            }
+        }
+
+        for (final String previousTerm : previousFrequencies.keySet()) {
+            if (!frequencies.containsKey(previousTerm)) {
+                removePosting(previousTerm, number);
+            }
+        }
+
+        documentTerms.put(number, frequencies);
+        lengths.set(number, terms.size());
+        totalLength += terms.size();
+    }
+
+    public synchronized void remove(final String key) {
+        final Integer number = numbers.remove(key);
+
+        if (number == null) {
+            return;
+        }
+
+        for (final String term : documentTerms.remove(number).keySet()) {
+            removePosting(term, number);
+        }
+
+        totalLength -= lengths.get(number);
+        documentCount--;
+        keys.set(number, null);
+        lengths.set(number, 0);
+        freeNumbers.push(number);
+    }
+
+    /**
+     * Returns keys of documents containing any of the terms, from the best match, skipping <code>offset</code> best matches.
+     */
+    public SearchHits search(final List<String> terms, final int offset, final int limit) {
+        Preconditions.checkArgument(offset >= 0 && limit > 0, "Invalid window of search results.");
+
+        final List<Postings> lists = new ArrayList<Postings>();
+
+        for (final String term : new LinkedHashSet<String>(terms)) {
+            final Postings termPostings = postings.get(term);
+
+            if (termPostings != null) {
+                lists.add(termPostings);
+            }
+        }
+
+        final AtomicReferenceArray<String> currentKeys = keys;
+        final AtomicIntegerArray currentLengths = lengths;
+        final int count = Math.max(1, documentCount);
+        final float averageLength = Math.max(1f, (float) totalLength / count);
+        final float[] idfs = new float[lists.size()];
+        final int[] positions = new int[lists.size()];
+
+        for (int i = 0; i < lists.size(); i++) {
+            final int frequency = lists.get(i).size();
+            idfs[i] = (float) Math.log(1 + (count - frequency + 0.5) / (frequency + 0.5));
+        }
+
+        final int depth = offset + limit;
+        final PriorityQueue<Hit> best = new PriorityQueue<Hit>(Math.min(depth, 1024), WORST_FIRST);
+        int total = 0;
+
+        while (true) {
+            // postings are merged by document number, each document is scored once
+            int document = Integer.MAX_VALUE;
+
+            for (int i = 0; i < lists.size(); i++) {
+                if (positions[i] < lists.get(i).size()) {
+                    document = Math.min(document, lists.get(i).document(positions[i]));
+                }
+            }
+
+            if (document == Integer.MAX_VALUE) {
+                break;
+            }
+
+            final String key = document < currentKeys.length() ? currentKeys.get(document) : null;
+            final float lengthNorm = K1 * (1 - B + B * (document < currentLengths.length() ? currentLengths.get(document) : 0) / averageLength);
+            float score = 0;
+
+            for (int i = 0; i < lists.size(); i++) {
+                final Postings list = lists.get(i);
+
+                if (positions[i] < list.size() && list.document(positions[i]) == document) {
+                    final int frequency = list.frequency(positions[i]);
+                    score += idfs[i] * frequency * (K1 + 1) / (frequency + lengthNorm);
+                    positions[i]++;
+                }
+            }
+
+            if (key == null) {
+                // removed after the postings were read
+                continue;
+            }
+
+            total++;
+            final Hit hit = new Hit(key, score);
+
+            if (best.size() < depth) {
+                best.add(hit);
+            } else if (WORST_FIRST.compare(hit, best.peek()) > 0) {
+                best.poll();
+                best.add(hit);
+            }
+        }
+
+        final List<Hit> ranked = new ArrayList<Hit>(best);
+        Collections.sort(ranked, Collections.reverseOrder(WORST_FIRST));
+
+        final List<String> window = new ArrayList<String>(Math.max(0, Math.min(limit, ranked.size() - offset)));
+
+        for (int i = offset; i < ranked.size(); i++) {
+            window.add(ranked.get(i).key);
+        }
+
+        return new SearchHits(window, total);
+    }
+
+    private int allocate(final String key) {
+        final int number = freeNumbers.isEmpty() ? nextNumber++ : freeNumbers.pop();
+
+        if (number >= keys.length()) {
+            // readers keep using the arrays they have read, writes go to the copies only
+            final AtomicReferenceArray<String> newKeys = new AtomicReferenceArray<String>(keys.length() * 2);
+            final AtomicIntegerArray newLengths = new AtomicIntegerArray(keys.length() * 2);
+
+            for (int i = 0; i < keys.length(); i++) {
+                newKeys.set(i, keys.get(i));
+                newLengths.set(i, lengths.get(i));
+            }
+
+            keys = newKeys;
+            lengths = newLengths;
+        }
+
+        numbers.put(key, number);
+        keys.set(number, key);
+
+        return number;
+    }
+
+    private void removePosting(final String term, final int number) {
+        final Postings termPostings = postings.get(term).without(number);
+
+        if (termPostings == null) {
+            postings.remove(term);
+        } else {
+            postings.put(term, termPostings);
+        }
+    }
+
+    private static class Hit {
+
+        private final String key;
+
+        private final float score;
+
+        Hit(final String key, final float score) {
+            this.key = key;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.jakubstas.swagger.service.search;
+
+import java.util.Arrays;
+
+/**
+ * Immutable postings list of a term: ascending document numbers and frequencies of the term in them. Changes produce new lists, so readers holding
+ * a list are never affected by writers.
+ */
+final class Postings {
+
+    static final Postings EMPTY = new Postings(new int[0], new int[0]);
+
+    private final int[] documents;
+
+    private final int[] frequencies;
+
+    private Postings(final int[] documents, final int[] frequencies) {
+        this.documents = documents;
+        this.frequencies = frequencies;
+    }
+
+    int size() {
+        return documents.length;
+    }
+
+    int document(final int index) {
+        return documents[index];
+    }
+
+    int frequency(final int index) {
+        return frequencies[index];
+    }
+
+    /**
+     * Returns list with the document added or its frequency replaced.
+     */
+    Postings with(final int document, final int frequency) {
+        final int index = Arrays.binarySearch(documents, document);
+
+        if (index >= 0) {
+            final int[] newFrequencies = frequencies.clone();
+            newFrequencies[index] = frequency;
+
+            return new Postings(documents, newFrequencies);
+        }
+
+        final int insertion = -index - 1;
+        final int[] newDocuments = new int[documents.length + 1];
+        final int[] newFrequencies = new int[documents.length + 1];
+
+        System.arraycopy(documents, 0, newDocuments, 0, insertion);
+        System.arraycopy(frequencies, 0, newFrequencies, 0, insertion);
+        newDocuments[insertion] = document;
+        newFrequencies[insertion] = frequency;
+        System.arraycopy(documents, insertion, newDocuments, insertion + 1, documents.length - insertion);
+        System.arraycopy(frequencies, insertion, newFrequencies, insertion + 1, documents.length - insertion);
+
+        return new Postings(newDocuments, newFrequencies);
+    }
+
+    /**
+     * Returns list without the document, <code>null</code> if no document would remain.
+     */
+    Postings without(final int document) {
+        final int index = Arrays.binarySearch(documents, document);
+
+        if (index < 0) {
+            return this;
+        }
+
+        if (documents.length == 1) {
+            return null;
+        }
+
+        final int[] newDocuments = new int[documents.length - 1];
+        final int[] newFrequencies = new int[documents.length - 1];
+
+        System.arraycopy(documents, 0, newDocuments, 0, index);
+        System.arraycopy(frequencies, 0, newFrequencies, 0, index);
+        System.arraycopy(documents, index + 1, newDocuments, index, documents.length - index - 1);
+        System.arraycopy(frequencies, index + 1, newFrequencies, index, documents.length - index - 1);
+
+        return new Postings(newDocuments, newFrequencies);
+    }
+}
@@ -0,0 +1,32 @@
+package com.jakubstas.swagger.service.search;
+
+import java.util.List;
+
+/**
+ * A window of search results ordered from the best match.
+ */
+public class SearchHits {
+
+    private final List<String> keys;
+
+    private final int total;
+
+    SearchHits(final List<String> keys, final int total) {
+        this.keys = keys;
+        this.total = total;
+    }
+
+    /**
+     * Keys of the documents in the window.
+     */
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Number of all documents matching the query.
+     */
+    public int getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,49 @@
+package com.jakubstas.swagger.service.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Splits text into lowercase terms at every character that is neither a letter nor a digit. Common English words carrying no meaning on their own
+ * are left out, they would only make the longest postings lists longer.
+ */
+public final class Tokenizer {
+
+    private static final Set<String> STOP_WORDS = ImmutableSet.of("a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it",
+            "of", "on", "or", "the", "to", "with");
+
+    private Tokenizer() {
+    }
+
+    public static List<String> tokenize(final String text) {
+        final List<String> terms = new ArrayList<String>();
+
+        if (text == null) {
+            return terms;
+        }
+
+        final String lowerCaseText = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+
+        for (int i = 0; i <= lowerCaseText.length(); i++) {
+            final boolean isTermCharacter = i < lowerCaseText.length() && Character.isLetterOrDigit(lowerCaseText.charAt(i));
+
+            if (isTermCharacter && start < 0) {
+                start = i;
+            } else if (!isTermCharacter && start >= 0) {
+                final String term = lowerCaseText.substring(start, i);
+
+                if (!STOP_WORDS.contains(term)) {
+                    terms.add(term);
+                }
+                start = -1;
+            }
+        }
+
+        return terms;
+    }
+}
@@ -0,0 +1,380 @@
+package com.jakubstas.swagger.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.FileSystemUtils;
+
+import com.google.common.io.Files;
+import com.jakubstas.swagger.model.Product;
+import com.jakubstas.swagger.model.ProductOperation;
+import com.jakubstas.swagger.model.User;
+
+/**
+ * Threads racing to create and delete the same users and products. Every key must be created exactly once, and the state recovered from the
+ * journal must equal the state the services held before they were closed.
+ */
+public class ConcurrentWritesTest {
+
+    private static final int THREADS = 8;
+
+    private static final int KEYS = 500;
+
+    private static final int BATCHES = 20;
+
+    private static final int BATCH_SIZE = 50;
+
+    private File directory;
+
+    private AnnotationConfigApplicationContext context;
+
+    private UserService userService;
+
+    private ProductService productService;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDir();
+        open();
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Test
+    public void userNameIsTakenOnce() throws Exception {
+        final AtomicIntegerArray created = race(new KeyTask() {
+
+            @Override
+            public boolean run(final int thread, final int key) throws Exception {
+                try {
+                    userService.createUser(user("racer" + key, "racer" + key + "." + thread + "@example.com"));
+                    return true;
+                } catch (EntityAlreadyExistsException e) {
+                    return false;
+                }
+            }
+        });
+
+        for (int key = 0; key < KEYS; key++) {
+            assertEquals("creates of racer" + key, 1, created.get(key));
+
+            final User user = userService.findByUserName("racer" + key);
+            assertNotNull(user);
+
+            // addresses of users which were not created are released
+            for (int thread = 0; thread < THREADS; thread++) {
+                final String email = "racer" + key + "." + thread + "@example.com";
+                final User registered = userService.findByEmail(email);
+
+                if (email.equals(user.getEmail())) {
+                    assertEquals(user.getUserName(), registered.getUserName());
+                } else {
+                    assertNull(email, registered);
+                }
+            }
+        }
+
+        assertRecovered();
+    }
+
+    @Test
+    public void emailIsRegisteredOnce() throws Exception {
+        final AtomicIntegerArray created = race(new KeyTask() {
+
+            @Override
+            public boolean run(final int thread, final int key) throws Exception {
+                try {
+                    userService.createUser(user("mail" + key + "x" + thread, "mail" + key + "@example.com"));
+                    return true;
+                } catch (EmailAlreadyRegisteredException e) {
+                    return false;
+                }
+            }
+        });
+
+        for (int key = 0; key < KEYS; key++) {
+            assertEquals("creates with mail" + key, 1, created.get(key));
+
+            int registered = 0;
+
+            for (int thread = 0; thread < THREADS; thread++) {
+                if (userService.findByUserName("mail" + key + "x" + thread) != null) {
+                    registered++;
+                }
+            }
+
+            assertEquals("users with mail" + key, 1, registered);
+            assertNotNull(userService.findByEmail("mail" + key + "@example.com"));
+        }
+
+        assertRecovered();
+    }
+
+    @Test
+    public void productIsCreatedAndDeletedOnce() throws Exception {
+        final AtomicIntegerArray created = race(new KeyTask() {
+
+            @Override
+            public boolean run(final int thread, final int key) throws Exception {
+                try {
+                    productService.createProduct(product("race" + key, "thread " + thread));
+                    return true;
+                } catch (EntityAlreadyExistsException e) {
+                    return false;
+                }
+            }
+        });
+
+        final AtomicIntegerArray deleted = race(new KeyTask() {
+
+            @Override
+            public boolean run(final int thread, final int key) throws Exception {
+                try {
+                    productService.deleteProduct("race" + key, null);
+                    return true;
+                } catch (EntityNotFoundException e) {
+                    return false;
+                }
+            }
+        });
+
+        for (int key = 0; key < KEYS; key++) {
+            assertEquals("creates of race" + key, 1, created.get(key));
+            assertEquals("deletes of race" + key, 1, deleted.get(key));
+            assertNull(productService.findByCode("race" + key));
+        }
+
+        assertRecovered();
+    }
+
+    @Test
+    public void interleavedCreatesAndDeletesMatchCatalog() throws Exception {
+        final AtomicIntegerArray created = new AtomicIntegerArray(KEYS);
+        final AtomicIntegerArray deleted = new AtomicIntegerArray(KEYS);
+
+        // even threads create, odd threads delete, several times over each key
+        race(new KeyTask() {
+
+            @Override
+            public boolean run(final int thread, final int key) throws Exception {
+                for (int round = 0; round < 4; round++) {
+                    try {
+                        if (thread % 2 == 0) {
+                            productService.createProduct(product("churn" + key, "thread " + thread));
+                            created.incrementAndGet(key);
+                        } else {
+                            productService.deleteProduct("churn" + key, null);
+                            deleted.incrementAndGet(key);
+                        }
+                    } catch (EntityAlreadyExistsException | EntityNotFoundException e) {
+                        // lost the race
+                    }
+                }
+                return true;
+            }
+        });
+
+        for (int key = 0; key < KEYS; key++) {
+            final int exists = productService.findByCode("churn" + key) != null ? 1 : 0;
+
+            assertEquals("churn" + key, exists, created.get(key) - deleted.get(key));
+        }
+
+        assertRecovered();
+    }
+
+    @Test
+    public void atomicBatchIsAppliedOnce() throws Exception {
+        final AtomicIntegerArray applied = new AtomicIntegerArray(BATCHES);
+
+        race(new KeyTask() {
+
+            @Override
+            public boolean run(final int thread, final int key) throws Exception {
+                if (key >= BATCHES) {
+                    return false;
+                }
+
+                final List<ProductOperation> operations = new ArrayList<ProductOperation>(BATCH_SIZE);
+
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    final ProductOperation operation = new ProductOperation();
+                    operation.setAction(ProductOperation.Action.CREATE);
+                    operation.setProduct(product("batch" + key + "-" + i, "thread " + thread));
+                    operations.add(operation);
+                }
+
+                if (productService.applyBatch(operations, true).isApplied()) {
+                    applied.incrementAndGet(key);
+                }
+                return true;
+            }
+        });
+
+        for (int batch = 0; batch < BATCHES; batch++) {
+            assertEquals("applied batches " + batch, 1, applied.get(batch));
+
+            // all products of the batch come from the same thread
+            final String name = productService.findByCode("batch" + batch + "-0").getName();
+
+            for (int i = 1; i < BATCH_SIZE; i++) {
+                assertEquals(name, productService.findByCode("batch" + batch + "-" + i).getName());
+            }
+        }
+
+        assertRecovered();
+    }
+
+    /**
+     * Runs the task by all threads at once for every key in the same order, so the threads keep colliding on the same key. Exceptions the task
+     * does not expect fail the test.
+     *
+     * @return number of runs per key which returned <code>true</code>
+     */
+    private static AtomicIntegerArray race(final KeyTask task) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CyclicBarrier start = new CyclicBarrier(THREADS);
+        final AtomicIntegerArray successes = new AtomicIntegerArray(KEYS);
+
+        try {
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>(THREADS);
+
+            for (int thread = 0; thread < THREADS; thread++) {
+                final int current = thread;
+
+                futures.add(executor.submit(new Callable<Void>() {
+
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+
+                        for (int key = 0; key < KEYS; key++) {
+                            if (task.run(current, key)) {
+                                successes.incrementAndGet(key);
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (final Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return successes;
+    }
+
+    /**
+     * Closes the services, recovers them from the journal and checks that nothing was lost or resurrected.
+     */
+    private void assertRecovered() throws IOException {
+        final Map<String, String> users = describeUsers();
+        final Map<String, String> products = describeProducts();
+
+        context.close();
+        open();
+
+        assertEquals(users, describeUsers());
+        assertEquals(products, describeProducts());
+
+        for (final String userName : users.keySet()) {
+            final User user = userService.findByUserName(userName);
+            assertTrue(userName, userService.findByEmail(user.getEmail()) != null);
+        }
+    }
+
+    private Map<String, String> describeUsers() {
+        final Map<String, String> users = new TreeMap<String, String>();
+
+        for (final User user : userService.getAll()) {
+            users.put(user.getUserName(), user.getFirstName() + "|" + user.getSurname() + "|" + user.getEmail() + "|" + user.getLastUpdated().getTime());
+        }
+
+        return users;
+    }
+
+    private Map<String, String> describeProducts() {
+        final Map<String, String> products = new TreeMap<String, String>();
+
+        for (final Product product : productService.getAll()) {
+            products.put(product.getCode(), product.getName() + "|" + product.getDescription() + "|" + product.getVersion());
+        }
+
+        return products;
+    }
+
+    private void open() throws IOException {
+        final Properties properties = PropertiesLoaderUtils.loadProperties(new ClassPathResource("store.properties"));
+        properties.setProperty("store.directory", directory.getAbsolutePath());
+        properties.setProperty("store.snapshotInterval", Integer.toString(Integer.MAX_VALUE));
+
+        final PropertySourcesPlaceholderConfigurer configurer = new PropertySourcesPlaceholderConfigurer();
+        configurer.setProperties(properties);
+
+        context = new AnnotationConfigApplicationContext();
+        context.addBeanFactoryPostProcessor(configurer);
+        context.scan("com.jakubstas.swagger.service");
+        context.refresh();
+
+        userService = context.getBean(UserService.class);
+        productService = context.getBean(ProductService.class);
+    }
+
+    private static User user(final String userName, final String email) {
+        final User user = new User();
+        user.setUserName(userName);
+        user.setFirstName("Race");
+        user.setSurname("Condition");
+        user.setEmail(email);
+
+        return user;
+    }
+
+    private static Product product(final String code, final String name) {
+        final Product product = new Product();
+        product.setCode(code);
+        product.setName(name);
+        product.setDescription("raced by " + name);
+
+        return product;
+    }
+
+    /**
+     * Single attempt of a thread at a key.
+     */
+    private interface KeyTask {
+
+        boolean run(int thread, int key) throws Exception;
+    }
+}